@@ -1,6 +1,8 @@
 package basicgraph;
 
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import util.GraphLoader;
 
@@ -21,6 +23,8 @@ public abstract class Graph {
 	private int numEdges;
 	//optional association of String labels to vertices 
 	private Map<Integer,String> vertexLabels;
+	//reverse association of labels to vertex indices, kept in step with vertexLabels
+	private Map<String,Integer> labelIndices;
 	
 	/**
 	 * Create a new empty Graph
@@ -29,6 +33,7 @@ public abstract class Graph {
 		numVertices = 0;
 		numEdges = 0;
 		vertexLabels = null;
+		labelIndices = null;
 	}
 
 	
@@ -88,6 +93,47 @@ public abstract class Graph {
 	 * edge to the representation of the graph.
 	 */
 	public abstract void implementAddEdge(int v, int w);
+
+	/**
+	 * Add count new vertices to the graph in one go.
+	 * @param count Number of vertices to add.
+	 * @return index of the first vertex added
+	 */
+	public int addVertices(int count) {
+		int first = numVertices;
+		for (int i = 0; i < count; i++) {
+			addVertex();
+		}
+		return first;
+	}
+
+	/**
+	 * Add the first count edges of the given endpoint arrays in one go,
+	 * edge i running from v[i] to w[i].
+	 * @param v Indices of the start points of the edges to be added.
+	 * @param w Indices of the end points of the edges to be added.
+	 * @param count Number of edges to add.
+	 */
+	public void addEdges(int[] v, int[] w, int count) {
+		for (int i = 0; i < count; i++) {
+			if (v[i] >= numVertices || w[i] >= numVertices) {
+				throw new IndexOutOfBoundsException();
+			}
+		}
+		numEdges += count;
+		implementAddEdges(v, w, count);
+	}
+
+	/**
+	 * Method implementing adding many edges to the representation
+	 * of the graph.  Subclasses may override it to size their storage
+	 * once for the whole batch.
+	 */
+	public void implementAddEdges(int[] v, int[] w, int count) {
+		for (int i = 0; i < count; i++) {
+			implementAddEdge(v[i], w[i]);
+		}
+	}
 	
 	/**
 	 * Get all (out-)neighbors of a given vertex.
@@ -104,27 +150,178 @@ public abstract class Graph {
 	 * 	via incoming edges to v. 
 	 */
 	public abstract List<Integer> getInNeighbors(int v);
-	
-	
 
-	/** 
-	 * The degree sequence of a graph is a sorted (organized in numerical order 
-	 * from largest to smallest, possibly with repetitions) list of the degrees 
+	/**
+	 * Visit every out-neighbor of a given vertex, once for each edge.
+	 * Subclasses override this to avoid building the neighbor list.
+	 * @param v Index of vertex in question.
+	 * @param visitor The action to run for every out-neighbor.
+	 */
+	public void forEachNeighbor(int v, IntConsumer visitor) {
+		for (int w : getNeighbors(v)) {
+			visitor.accept(w);
+		}
+	}
+
+	/**
+	 * Report the number of edges leaving a given vertex.
+	 * Subclasses override this to avoid building the neighbor list.
+	 * @param v Index of vertex in question.
+	 * @return The out-degree of v.
+	 */
+	public int getOutDegree(int v) {
+		return getNeighbors(v).size();
+	}
+
+	/**
+	 * The degree sequence of a graph is a sorted (organized in numerical order
+	 * from largest to smallest, possibly with repetitions) list of the degrees
 	 * of the vertices in the graph.
-	 * 
+	 *
 	 * @return The degree sequence of this graph.
 	 */
 	public List<Integer> degreeSequence() {
-		// XXX: Implement in part 1 of week 2
-		List<Integer> sequence = new ArrayList<>();
-        for (int i = 0; i < numVertices; i++) {
-            int degree  = getNeighbors(i).size() + getInNeighbors(i).size();
-            sequence.add(degree);
-        }
-        sequence.sort(Collections.reverseOrder());
+		List<Integer> sequence = new ArrayList<>(numVertices);
+		for (int degree : getDegreeSequence()) {
+			sequence.add(degree);
+		}
 		return sequence;
 	}
-	
+
+	/**
+	 * Compute the degree (in-degree plus out-degree) of every vertex.
+	 * In-degrees are accumulated from a single pass over the out-edges,
+	 * split into vertex ranges that are processed in parallel.
+	 *
+	 * @return Array where entry v is the degree of vertex v.
+	 */
+	public int[] getDegrees() {
+		int n = numVertices;
+		int[][] ranges = vertexRanges(n);
+		int[][] partialInDegrees = new int[ranges.length][];
+		int[] degrees = new int[n];
+		IntStream.range(0, ranges.length).parallel().forEach(r -> {
+			int[] inDegrees = new int[n];
+			IntConsumer countIn = w -> inDegrees[w]++;
+			for (int v = ranges[r][0]; v < ranges[r][1]; v++) {
+				degrees[v] = getOutDegree(v);
+				forEachNeighbor(v, countIn);
+			}
+			partialInDegrees[r] = inDegrees;
+		});
+		IntStream.range(0, ranges.length).parallel().forEach(r -> {
+			for (int v = ranges[r][0]; v < ranges[r][1]; v++) {
+				for (int[] inDegrees : partialInDegrees) {
+					degrees[v] += inDegrees[v];
+				}
+			}
+		});
+		return degrees;
+	}
+
+	/**
+	 * Compute the degree sequence of the graph in one pass, see degreeSequence.
+	 * Degrees are ordered from largest to smallest with a counting sort.
+	 *
+	 * @return The degree sequence of this graph as a primitive array.
+	 */
+	public int[] getDegreeSequence() {
+		int[] degrees = getDegrees();
+		int maxDegree = 0;
+		for (int degree : degrees) {
+			maxDegree = Math.max(maxDegree, degree);
+		}
+		int[] counts = new int[maxDegree + 1];
+		for (int degree : degrees) {
+			counts[degree]++;
+		}
+		int[] sequence = new int[degrees.length];
+		int position = 0;
+		for (int degree = maxDegree; degree >= 0; degree--) {
+			for (int i = 0; i < counts[degree]; i++) {
+				sequence[position++] = degree;
+			}
+		}
+		return sequence;
+	}
+
+	/**
+	 * Count, for every vertex, the distinct vertices that can be reached
+	 * in exactly two hops.  Entry v equals the number of distinct values in
+	 * getDistance2(v).  Vertex ranges are processed in parallel, each with
+	 * its own bitset of vertices already seen.
+	 *
+	 * @return Array where entry v is the number of distinct vertices two hops from v.
+	 */
+	public int[] getDistance2Counts() {
+		int n = numVertices;
+		int[][] ranges = vertexRanges(n);
+		int[] counts = new int[n];
+		IntStream.range(0, ranges.length).parallel().forEach(r -> {
+			Distance2Counter counter = new Distance2Counter(n);
+			for (int v = ranges[r][0]; v < ranges[r][1]; v++) {
+				forEachNeighbor(v, counter);
+				counts[v] = counter.reset();
+			}
+		});
+		return counts;
+	}
+
+	/**
+	 * Split vertices 0 .. n-1 into contiguous [start, end) ranges,
+	 * one per available processor.
+	 */
+	private static int[][] vertexRanges(int n) {
+		int numRanges = Math.max(1, Math.min(n, Runtime.getRuntime().availableProcessors()));
+		int[][] ranges = new int[numRanges][];
+		for (int r = 0; r < numRanges; r++) {
+			ranges[r] = new int[] {(int) ((long) n * r / numRanges), (int) ((long) n * (r + 1) / numRanges)};
+		}
+		return ranges;
+	}
+
+	/**
+	 * Visitor for the first hop out of a vertex.  It walks the second hop
+	 * and marks every vertex found in a bitset, remembering which bits
+	 * were set so they can be cleared cheaply for the next vertex.
+	 */
+	private class Distance2Counter implements IntConsumer {
+		private final long[] seen;
+		private int[] touched = new int[16];
+		private int count = 0;
+		private final IntConsumer secondHop = this::mark;
+
+		Distance2Counter(int numVertices) {
+			seen = new long[(numVertices + 63) >>> 6];
+		}
+
+		private void mark(int w) {
+			long bit = 1L << w;
+			if ((seen[w >>> 6] & bit) == 0) {
+				seen[w >>> 6] |= bit;
+				if (count == touched.length) {
+					touched = Arrays.copyOf(touched, count * 2);
+				}
+				touched[count++] = w;
+			}
+		}
+
+		@Override
+		public void accept(int u) {
+			forEachNeighbor(u, secondHop);
+		}
+
+		/** Clear the marked vertices and report how many there were. */
+		int reset() {
+			int result = count;
+			for (int i = 0; i < count; i++) {
+				seen[touched[i] >>> 6] = 0;
+			}
+			count = 0;
+			return result;
+		}
+	}
+
 	/**
 	 * Get all the vertices that are 2 away from the vertex in question.
 	 * @param v The starting vertex
@@ -160,6 +357,7 @@ public abstract class Graph {
 	 */
 	public void initializeLabels() {
 		vertexLabels = new HashMap<Integer,String>();
+		labelIndices = new HashMap<String,Integer>();
 	}	
 	/**
 	 * Test whether some vertex in the graph is labeled 
@@ -180,7 +378,7 @@ public abstract class Graph {
 	 */
 	public boolean hasVertex(String s)
 	{
-		return vertexLabels.containsValue(s);
+		return labelIndices.containsKey(s);
 	}
 	
 	/**
@@ -192,6 +390,7 @@ public abstract class Graph {
 		if (v < getNumVertices() && !vertexLabels.containsKey(v)) 
 		{
 			vertexLabels.put(v, s);
+			labelIndices.putIfAbsent(s, v);
 		}
 		else {
 			System.out.println("ERROR: tried to label a vertex that is out of range or already labeled");
@@ -217,9 +416,9 @@ public abstract class Graph {
 	 * @return The integer index of this vertex 
 	 */
 	public int getIndex(String s) {
-		for (Map.Entry<Integer,String> entry : vertexLabels.entrySet()) {
-			if (entry.getValue().equals(s))
-				return entry.getKey();
+		Integer index = labelIndices.get(s);
+		if (index != null) {
+			return index;
 		}
 		System.out.println("ERROR: No vertex with this label");
 		return -1;
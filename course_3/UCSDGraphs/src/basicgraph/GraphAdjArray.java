@@ -0,0 +1,263 @@
+package basicgraph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/** A class that implements a directed graph.
+ * The graph may have self-loops, parallel edges.
+ * Vertices are labeled by integers 0 .. n-1
+ * and may also have String labels.
+ * The edges of the graph are not labeled.
+ * Representation of edges via growable primitive int arrays:
+ * every vertex keeps an array of its out-neighbors and an array
+ * of its in-neighbors, so both directions can be walked in time
+ * proportional to the degree without boxing or copying.
+ *
+ * @author UCSD MOOC development team and YOU
+ *
+ */
+public class GraphAdjArray extends Graph {
+
+	private static final int[] NO_NEIGHBORS = new int[0];
+
+	private final int defaultNumVertices = 5;
+	private final int defaultDegree = 4;
+
+	private int[][] outNeighbors;
+	private int[] outDegrees;
+	private int[][] inNeighbors;
+	private int[] inDegrees;
+
+	/**
+	 * Create a new empty Graph
+	 */
+	public GraphAdjArray () {
+		outNeighbors = new int[defaultNumVertices][];
+		outDegrees = new int[defaultNumVertices];
+		inNeighbors = new int[defaultNumVertices][];
+		inDegrees = new int[defaultNumVertices];
+	}
+
+	/**
+	 * Implement the abstract method for adding a vertex.
+	 * If need to increase the number of vertex slots, double them
+	 * to amortize cost.
+	 */
+	public void implementAddVertex() {
+		int v = getNumVertices();
+		if (v >= outNeighbors.length) {
+			int capacity = Math.max(v * 2, defaultNumVertices);
+			outNeighbors = Arrays.copyOf(outNeighbors, capacity);
+			outDegrees = Arrays.copyOf(outDegrees, capacity);
+			inNeighbors = Arrays.copyOf(inNeighbors, capacity);
+			inDegrees = Arrays.copyOf(inDegrees, capacity);
+		}
+		outNeighbors[v] = NO_NEIGHBORS;
+		inNeighbors[v] = NO_NEIGHBORS;
+	}
+
+	/**
+	 * Implement the abstract method for adding an edge.
+	 * The edge is recorded both in the out-neighbors of v
+	 * and in the in-neighbors of w.
+	 * @param v the index of the start point for the edge.
+	 * @param w the index of the end point for the edge.
+	 */
+	public void implementAddEdge(int v, int w) {
+		outNeighbors[v] = append(outNeighbors[v], outDegrees[v], w);
+		outDegrees[v]++;
+		inNeighbors[w] = append(inNeighbors[w], inDegrees[w], v);
+		inDegrees[w]++;
+	}
+
+	/**
+	 * Implement adding a batch of edges.  The neighbor arrays of every
+	 * vertex are resized at most once for the whole batch.
+	 * @param v the indices of the start points of the edges.
+	 * @param w the indices of the end points of the edges.
+	 * @param count the number of edges to add.
+	 */
+	public void implementAddEdges(int[] v, int[] w, int count) {
+		int n = getNumVertices();
+		int[] extraOut = new int[n];
+		int[] extraIn = new int[n];
+		for (int i = 0; i < count; i++) {
+			extraOut[v[i]]++;
+			extraIn[w[i]]++;
+		}
+		for (int u = 0; u < n; u++) {
+			if (outDegrees[u] + extraOut[u] > outNeighbors[u].length) {
+				outNeighbors[u] = Arrays.copyOf(outNeighbors[u], outDegrees[u] + extraOut[u]);
+			}
+			if (inDegrees[u] + extraIn[u] > inNeighbors[u].length) {
+				inNeighbors[u] = Arrays.copyOf(inNeighbors[u], inDegrees[u] + extraIn[u]);
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			outNeighbors[v[i]][outDegrees[v[i]]++] = w[i];
+			inNeighbors[w[i]][inDegrees[w[i]]++] = v[i];
+		}
+	}
+
+	/**
+	 * Store value at position size of the array, doubling the array
+	 * if it is already full.
+	 */
+	private int[] append(int[] array, int size, int value) {
+		if (size == array.length) {
+			array = Arrays.copyOf(array, Math.max(size * 2, defaultDegree));
+		}
+		array[size] = value;
+		return array;
+	}
+
+	/**
+	 * Implement the abstract method for finding all
+	 * out-neighbors of a vertex.
+	 * If there are multiple edges between the vertex
+	 * and one of its out-neighbors, this neighbor
+	 * appears once in the list for each of these edges.
+	 * The returned list is a read-only view of the neighbors
+	 * present at the time of the call; no copy is made.
+	 *
+	 * @param v the index of vertex.
+	 * @return List<Integer> a list of indices of vertices.
+	 */
+	public List<Integer> getNeighbors(int v) {
+		return new IntArrayView(outNeighbors[v], outDegrees[v]);
+	}
+
+	/**
+	 * Implement the abstract method for finding all
+	 * in-neighbors of a vertex.
+	 * If there are multiple edges from another vertex
+	 * to this one, the neighbor
+	 * appears once in the list for each of these edges.
+	 * The returned list is a read-only view, see getNeighbors.
+	 *
+	 * @param v the index of vertex.
+	 * @return List<Integer> a list of indices of vertices.
+	 */
+	public List<Integer> getInNeighbors(int v) {
+		return new IntArrayView(inNeighbors[v], inDegrees[v]);
+	}
+
+	/**
+	 * Visit every out-neighbor of a vertex without boxing.
+	 * A neighbor is visited once for each edge to it.
+	 *
+	 * @param v the index of vertex.
+	 * @param visitor the action to run for every out-neighbor.
+	 */
+	public void forEachNeighbor(int v, IntConsumer visitor) {
+		int[] neighbors = outNeighbors[v];
+		for (int i = 0, n = outDegrees[v]; i < n; i++) {
+			visitor.accept(neighbors[i]);
+		}
+	}
+
+	/**
+	 * Visit every in-neighbor of a vertex without boxing.
+	 * A neighbor is visited once for each edge from it.
+	 *
+	 * @param v the index of vertex.
+	 * @param visitor the action to run for every in-neighbor.
+	 */
+	public void forEachInNeighbor(int v, IntConsumer visitor) {
+		int[] neighbors = inNeighbors[v];
+		for (int i = 0, n = inDegrees[v]; i < n; i++) {
+			visitor.accept(neighbors[i]);
+		}
+	}
+
+	/**
+	 * Report the number of edges leaving a vertex
+	 * @param v the index of vertex.
+	 * @return the out-degree of v
+	 */
+	public int getOutDegree(int v) {
+		return outDegrees[v];
+	}
+
+	/**
+	 * Report the number of edges entering a vertex
+	 * @param v the index of vertex.
+	 * @return the in-degree of v
+	 */
+	public int getInDegree(int v) {
+		return inDegrees[v];
+	}
+
+	/**
+	 * Implement the abstract method for finding all
+	 * vertices reachable by two hops from v.
+	 * Walks the neighbor arrays directly, so the only
+	 * allocation is the result itself.
+	 *
+	 * @param v the index of vertex.
+	 * @return List<Integer> a list of indices of vertices.
+	 */
+	public List<Integer> getDistance2(int v) {
+		int[] first = outNeighbors[v];
+		int count = 0;
+		for (int i = 0; i < outDegrees[v]; i++) {
+			count += outDegrees[first[i]];
+		}
+		int[] result = new int[count];
+		int size = 0;
+		for (int i = 0; i < outDegrees[v]; i++) {
+			int u = first[i];
+			System.arraycopy(outNeighbors[u], 0, result, size, outDegrees[u]);
+			size += outDegrees[u];
+		}
+		return new IntArrayView(result, size);
+	}
+
+	/**
+	 * Generate string representation of adjacency arrays
+	 * @return the String
+	 */
+	public String adjacencyString() {
+		StringBuilder s = new StringBuilder("Adjacency arrays");
+		s.append(" (size ").append(getNumVertices()).append("+")
+			.append(2 * getNumEdges()).append(" integers):");
+
+		for (int v = 0; v < getNumVertices(); v++) {
+			s.append("\n\t").append(v).append(": ");
+			for (int i = 0; i < outDegrees[v]; i++) {
+				s.append(outNeighbors[v][i]).append(", ");
+			}
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Read-only List view over the first size entries of an int array.
+	 */
+	private static class IntArrayView extends AbstractList<Integer> implements RandomAccess {
+		private final int[] values;
+		private final int size;
+
+		IntArrayView(int[] values, int size) {
+			this.values = values;
+			this.size = size;
+		}
+
+		@Override
+		public Integer get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return values[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+}
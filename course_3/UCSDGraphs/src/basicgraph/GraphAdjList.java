@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
 /** A class that implements a directed graph. 
  * The graph may have self-loops, parallel edges. 
@@ -61,6 +62,29 @@ public class GraphAdjList extends Graph {
 		return new ArrayList<Integer>(adjListsMap.get(v));
 	}
 
+	/** 
+	 * Visit every out-neighbor of a vertex directly from its
+	 * adjacency list, without copying the list.
+	 * 
+	 * @param v the index of vertex.
+	 * @param visitor the action to run for every out-neighbor.
+	 */	
+	public void forEachNeighbor(int v, IntConsumer visitor) {
+		for (int w : adjListsMap.get(v)) {
+			visitor.accept(w);
+		}
+	}
+
+	/** 
+	 * Report the out-degree of a vertex without copying its list.
+	 * 
+	 * @param v the index of vertex.
+	 * @return the number of edges leaving v.
+	 */	
+	public int getOutDegree(int v) {
+		return adjListsMap.get(v).size();
+	}
+
 	/** 
 	 * Implement the abstract method for finding all 
 	 * in-neighbors of a vertex.
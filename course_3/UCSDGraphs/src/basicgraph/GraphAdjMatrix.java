@@ -1,130 +1,348 @@
 package basicgraph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
 
-/** A class that implements a directed graph. 
- * The graph may have self-loops, parallel edges. 
+/** A class that implements a directed graph.
+ * The graph may have self-loops, parallel edges.
  * Vertices are labeled by integers 0 .. n-1
  * and may also have String labels.
  * The edges of the graph are not labeled.
  * Representation of edges via an adjacency matrix.
- * 
+ *
+ * The matrix is stored densely while the graph is small or dense.
+ * Once it grows past SPARSE_MIN_VERTICES with fewer than one non-zero
+ * entry in SPARSE_DENSITY cells, each row is compressed to a sorted
+ * array of column indices with a parallel array of edge multiplicities.
+ * It is switched back to dense storage if it fills up again.
+ *
  * @author UCSD MOOC development team and YOU
  *
  */
 public class GraphAdjMatrix extends Graph {
 
 	private final int defaultNumVertices = 5;
+
+	// Graphs with fewer vertex slots than this always use the dense matrix
+	private static final int SPARSE_MIN_VERTICES = 64;
+	// Switch to sparse rows when fewer than 1 in SPARSE_DENSITY cells is non-zero
+	private static final int SPARSE_DENSITY = 16;
+	// Switch back to the dense matrix when at least 1 in DENSE_DENSITY cells is non-zero
+	private static final int DENSE_DENSITY = 4;
+
+	// Dense representation, null while the matrix is sparse
 	private int[][] adjMatrix;
-	
+
+	// Sparse representation, null while the matrix is dense:
+	// row v has rowSizes[v] non-zero entries, at the columns in rowColumns[v]
+	// (sorted ascending) with the edge counts in rowCounts[v]
+	private int[][] rowColumns;
+	private int[][] rowCounts;
+	private int[] rowSizes;
+
+	// Number of non-zero cells of the matrix
+	private int numEntries;
+
 	/** Create a new empty Graph */
 	public GraphAdjMatrix () {
 		adjMatrix = new int[defaultNumVertices][defaultNumVertices];
+		numEntries = 0;
 	}
-	
-	/** 
+
+	/**
 	 * Implement the abstract method for adding a vertex.
 	 * If need to increase dimensions of matrix, double them
-	 * to amortize cost. 
+	 * to amortize cost.  Growth is also when the storage mode
+	 * is reconsidered, based on the density of the matrix.
 	 */
 	public void implementAddVertex() {
 		int v = getNumVertices();
-		if (v >= adjMatrix.length) {
-			int[][] newAdjMatrix = new int[v*2][v*2];
-			for (int i = 0; i < adjMatrix.length; i ++) {
-				for (int j = 0; j < adjMatrix.length; j ++) {
-					newAdjMatrix[i][j] = adjMatrix[i][j];
+		if (isSparse()) {
+			if (v >= rowSizes.length) {
+				int capacity = v * 2;
+				if (shouldBeDense(v, capacity)) {
+					makeDense(capacity);
+				}
+				else {
+					rowColumns = Arrays.copyOf(rowColumns, capacity);
+					rowCounts = Arrays.copyOf(rowCounts, capacity);
+					rowSizes = Arrays.copyOf(rowSizes, capacity);
+				}
+			}
+		}
+		else if (v >= adjMatrix.length) {
+			int capacity = v * 2;
+			if (shouldBeSparse(v, capacity)) {
+				makeSparse(capacity);
+			}
+			else {
+				int[][] newAdjMatrix = new int[capacity][capacity];
+				for (int i = 0; i < adjMatrix.length; i ++) {
+					System.arraycopy(adjMatrix[i], 0, newAdjMatrix[i], 0, adjMatrix.length);
+				}
+				adjMatrix = newAdjMatrix;
+			}
+		}
+		if (isSparse() && rowColumns[v] == null) {
+			rowColumns[v] = new int[0];
+			rowCounts[v] = new int[0];
+		}
+	}
+
+	/**
+	 * Report whether the matrix is currently stored as compressed sparse rows.
+	 * @return true if sparse, false if stored as a dense matrix
+	 */
+	public boolean isSparse() {
+		return adjMatrix == null;
+	}
+
+	private boolean shouldBeSparse(int numVertices, int capacity) {
+		return capacity >= SPARSE_MIN_VERTICES
+				&& (long) numEntries * SPARSE_DENSITY < (long) numVertices * numVertices;
+	}
+
+	private boolean shouldBeDense(int numVertices, int capacity) {
+		return capacity < SPARSE_MIN_VERTICES
+				|| (long) numEntries * DENSE_DENSITY >= (long) numVertices * numVertices;
+	}
+
+	/** Convert the dense matrix into sparse rows with room for capacity rows. */
+	private void makeSparse(int capacity) {
+		int v = getNumVertices();
+		rowColumns = new int[capacity][];
+		rowCounts = new int[capacity][];
+		rowSizes = new int[capacity];
+		for (int i = 0; i < v; i ++) {
+			int size = 0;
+			for (int j = 0; j < v; j ++) {
+				if (adjMatrix[i][j] != 0) size++;
+			}
+			rowColumns[i] = new int[size];
+			rowCounts[i] = new int[size];
+			for (int j = 0; j < v; j ++) {
+				if (adjMatrix[i][j] != 0) {
+					rowColumns[i][rowSizes[i]] = j;
+					rowCounts[i][rowSizes[i]] = adjMatrix[i][j];
+					rowSizes[i]++;
 				}
 			}
-			adjMatrix = newAdjMatrix;
 		}
+		adjMatrix = null;
 	}
-	
-	/** 
+
+	/** Convert the sparse rows into a dense capacity x capacity matrix. */
+	private void makeDense(int capacity) {
+		int[][] newAdjMatrix = new int[capacity][capacity];
+		for (int i = 0; i < getNumVertices(); i ++) {
+			for (int k = 0; k < rowSizes[i]; k ++) {
+				newAdjMatrix[i][rowColumns[i][k]] = rowCounts[i][k];
+			}
+		}
+		adjMatrix = newAdjMatrix;
+		rowColumns = null;
+		rowCounts = null;
+		rowSizes = null;
+	}
+
+	/**
 	 * Implement the abstract method for adding an edge.
 	 * Allows for multiple edges between two points:
 	 * the entry at row v, column w stores the number of such edges.
 	 * @param v the index of the start point for the edge.
-	 * @param w the index of the end point for the edge.  
-	 */	
+	 * @param w the index of the end point for the edge.
+	 */
 	public void implementAddEdge(int v, int w) {
-		adjMatrix[v][w] += 1;
+		if (!isSparse()) {
+			if (adjMatrix[v][w] == 0) numEntries++;
+			adjMatrix[v][w] += 1;
+			return;
+		}
+		int k = Arrays.binarySearch(rowColumns[v], 0, rowSizes[v], w);
+		if (k >= 0) {
+			rowCounts[v][k] += 1;
+			return;
+		}
+		// insert a new column into the sorted row
+		k = -(k + 1);
+		int size = rowSizes[v];
+		if (size == rowColumns[v].length) {
+			int newLength = Math.max(4, size * 2);
+			rowColumns[v] = Arrays.copyOf(rowColumns[v], newLength);
+			rowCounts[v] = Arrays.copyOf(rowCounts[v], newLength);
+		}
+		System.arraycopy(rowColumns[v], k, rowColumns[v], k + 1, size - k);
+		System.arraycopy(rowCounts[v], k, rowCounts[v], k + 1, size - k);
+		rowColumns[v][k] = w;
+		rowCounts[v][k] = 1;
+		rowSizes[v]++;
+		numEntries++;
+	}
+
+	/**
+	 * Report the entry at row v, column w of the adjacency matrix.
+	 * @param v the index of the start point.
+	 * @param w the index of the end point.
+	 * @return the number of edges from v to w.
+	 */
+	public int getEntry(int v, int w) {
+		if (!isSparse()) {
+			return adjMatrix[v][w];
+		}
+		int k = Arrays.binarySearch(rowColumns[v], 0, rowSizes[v], w);
+		return k >= 0 ? rowCounts[v][k] : 0;
 	}
-	
-	/** 
-	 * Implement the abstract method for finding all 
+
+	/**
+	 * Implement the abstract method for finding all
 	 * out-neighbors of a vertex.
 	 * If there are multiple edges between the vertex
 	 * and one of its out-neighbors, this neighbor
 	 * appears once in the list for each of these edges.
-	 * 
+	 *
 	 * @param v the index of vertex.
-	 * @return List<Integer> a list of indices of vertices.  
-	 */	
+	 * @return List<Integer> a list of indices of vertices.
+	 */
 	public List<Integer> getNeighbors(int v) {
 		List<Integer> neighbors = new ArrayList<Integer>();
+		forEachNeighbor(v, neighbors::add);
+		return neighbors;
+	}
+
+	/**
+	 * Visit every out-neighbor of a vertex by walking its row
+	 * of the matrix, without building the neighbor list.
+	 *
+	 * @param v the index of vertex.
+	 * @param visitor the action to run for every out-neighbor.
+	 */
+	public void forEachNeighbor(int v, IntConsumer visitor) {
+		if (isSparse()) {
+			for (int k = 0; k < rowSizes[v]; k ++) {
+				for (int j = 0; j < rowCounts[v][k]; j ++) {
+					visitor.accept(rowColumns[v][k]);
+				}
+			}
+			return;
+		}
 		for (int i = 0; i < getNumVertices(); i ++) {
 			for (int j=0; j< adjMatrix[v][i]; j ++) {
-				neighbors.add(i);
+				visitor.accept(i);
 			}
 		}
-		return neighbors;
 	}
-	
-	/** 
-	 * Implement the abstract method for finding all 
+
+	/**
+	 * Report the out-degree of a vertex as the sum of its row.
+	 *
+	 * @param v the index of vertex.
+	 * @return the number of edges leaving v.
+	 */
+	public int getOutDegree(int v) {
+		int degree = 0;
+		if (isSparse()) {
+			for (int k = 0; k < rowSizes[v]; k ++) {
+				degree += rowCounts[v][k];
+			}
+			return degree;
+		}
+		for (int i = 0; i < getNumVertices(); i ++) {
+			degree += adjMatrix[v][i];
+		}
+		return degree;
+	}
+
+	/**
+	 * Implement the abstract method for finding all
 	 * in-neighbors of a vertex.
 	 * If there are multiple edges from another vertex
 	 * to this one, the neighbor
 	 * appears once in the list for each of these edges.
-	 * 
+	 *
 	 * @param v the index of vertex.
-	 * @return List<Integer> a list of indices of vertices.  
+	 * @return List<Integer> a list of indices of vertices.
 	 */
 	public List<Integer> getInNeighbors(int v) {
 		List<Integer> inNeighbors = new ArrayList<Integer>();
 		for (int i = 0; i < getNumVertices(); i ++) {
-			for (int j=0; j< adjMatrix[i][v]; j++) {
+			int entry = getEntry(i, v);
+			for (int j=0; j< entry; j++) {
 				inNeighbors.add(i);
 			}
 		}
 		return inNeighbors;
 	}
-	
-	/** 
-	 * Implement the abstract method for finding all 
+
+	/**
+	 * Implement the abstract method for finding all
 	 * vertices reachable by two hops from v.
-	 * Use matrix multiplication to record length 2 paths.
-	 * 
+	 * Use matrix multiplication to record length 2 paths:
+	 * row v of the squared matrix is accumulated from the rows
+	 * of v's out-neighbors, touching only non-zero entries when sparse.
+	 * A vertex appears once for every path of length 2 to it.
+	 *
 	 * @param v the index of vertex.
-	 * @return List<Integer> a list of indices of vertices.  
-	 */	
+	 * @return List<Integer> a list of indices of vertices.
+	 */
 	public List<Integer> getDistance2(int v) {
-		// XXX Implement this method in week 2
 		List<Integer> result = new ArrayList<>();
-		for (Integer i : getNeighbors(v)) {
-			result.addAll(getNeighbors(i));
+		if (isSparse()) {
+			// only the columns reached are kept, in ascending order
+			Map<Integer, Integer> squaredRow = new TreeMap<>();
+			for (int k = 0; k < rowSizes[v]; k ++) {
+				int u = rowColumns[v][k];
+				int paths = rowCounts[v][k];
+				for (int l = 0; l < rowSizes[u]; l ++) {
+					squaredRow.merge(rowColumns[u][l], paths * rowCounts[u][l], Integer::sum);
+				}
+			}
+			for (Map.Entry<Integer, Integer> entry : squaredRow.entrySet()) {
+				for (int j = 0; j < entry.getValue(); j ++) {
+					result.add(entry.getKey());
+				}
+			}
+			return result;
 		}
 
+		int[] squaredRow = new int[getNumVertices()];
+		for (int u = 0; u < getNumVertices(); u ++) {
+			int paths = adjMatrix[v][u];
+			if (paths == 0) continue;
+			for (int w = 0; w < getNumVertices(); w ++) {
+				squaredRow[w] += paths * adjMatrix[u][w];
+			}
+		}
+		for (int w = 0; w < squaredRow.length; w ++) {
+			for (int j = 0; j < squaredRow[w]; j ++) {
+				result.add(w);
+			}
+		}
 		return result;
 	}
-	
+
 	/**
 	 * Generate string representation of adjacency matrix
 	 * @return the String
 	 */
 	public String adjacencyString() {
 		int dim = getNumVertices();
-		String s = "Adjacency matrix";
-		s += " (size " + dim + "x" + dim + " = " + dim* dim + " integers):";
+		String s = isSparse() ? "Sparse adjacency matrix" : "Adjacency matrix";
+		if (isSparse()) {
+			s += " (size " + dim + "x" + dim + ", " + numEntries + " non-zero entries):";
+		}
+		else {
+			s += " (size " + dim + "x" + dim + " = " + dim* dim + " integers):";
+		}
 		for (int i = 0; i < dim; i ++) {
 			s += "\n\t"+i+": ";
 			for (int j = 0; j < dim; j++) {
-			s += adjMatrix[i][j] + ", ";
+			s += getEntry(i, j) + ", ";
 			}
 		}
 		return s;
@@ -0,0 +1,89 @@
+package basicgraph;
+
+import java.util.HashSet;
+
+import util.GraphLoader;
+
+/** A class for timing the per-vertex degree sequence and distance-two
+ * methods against the bulk getDegreeSequence and getDistance2Counts
+ * methods, on each implementation of Graph.
+ *
+ * @author UCSD MOOC development team and YOU
+ *
+ */
+public class GraphBenchmarking {
+
+	public static void main(String [] args) {
+
+		// Run each test more than once to get bigger numbers and less noise.
+		int trials = 20;
+
+		// The files to test on, in order of growing size
+		String[] roadFiles = {
+			"data/testdata/simpletest.map",
+			"data/maps/ucsd.map",
+			"data/maps/hollywood_small.map",
+			"data/maps/new_york.map"
+		};
+		String routeFile = "data/airports/routesUA.dat";
+
+		System.out.println("graph\tvertices\tper-vertex degrees\tbulk degrees\tper-vertex distance2\tbulk distance2");
+		for (String roadFile : roadFiles) {
+			for (Graph graph : newGraphs()) {
+				GraphLoader.loadRoadMap(roadFile, graph);
+				printTimings(roadFile, graph, trials);
+			}
+		}
+		for (Graph graph : newGraphs()) {
+			GraphLoader.loadRoutes(routeFile, graph);
+			printTimings(routeFile, graph, trials);
+		}
+	}
+
+	/** One empty graph of every implementation */
+	private static Graph[] newGraphs() {
+		return new Graph[] {new GraphAdjList(), new GraphAdjMatrix(), new GraphAdjArray()};
+	}
+
+	/**
+	 * Print the average time in milliseconds of one call of each method
+	 * on a loaded graph, separated by tabs.
+	 */
+	private static void printTimings(String file, Graph graph, int trials) {
+		int numVertices = graph.getNumVertices();
+		System.out.print(graph.getClass().getSimpleName() + " " + file + "\t" + numVertices + "\t");
+
+		long timer = System.nanoTime();
+		for (int i = 0; i < trials; i++) {
+			int[] degrees = new int[numVertices];
+			for (int v = 0; v < numVertices; v++) {
+				degrees[v] = graph.getNeighbors(v).size() + graph.getInNeighbors(v).size();
+			}
+		}
+		System.out.print(millisPerTrial(timer, trials) + "\t");
+
+		timer = System.nanoTime();
+		for (int i = 0; i < trials; i++) {
+			graph.getDegreeSequence();
+		}
+		System.out.print(millisPerTrial(timer, trials) + "\t");
+
+		timer = System.nanoTime();
+		for (int i = 0; i < trials; i++) {
+			for (int v = 0; v < numVertices; v++) {
+				new HashSet<Integer>(graph.getDistance2(v)).size();
+			}
+		}
+		System.out.print(millisPerTrial(timer, trials) + "\t");
+
+		timer = System.nanoTime();
+		for (int i = 0; i < trials; i++) {
+			graph.getDistance2Counts();
+		}
+		System.out.println(millisPerTrial(timer, trials));
+	}
+
+	private static float millisPerTrial(long startNanos, int trials) {
+		return (System.nanoTime() - startNanos) / 1e6f / trials;
+	}
+}
@@ -10,7 +10,14 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -19,6 +26,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 import basicgraph.Graph;
 import geography.GeographicPoint;
@@ -28,6 +36,10 @@ import roadgraph.MapGraph;
 
 public class GraphLoader 
 {
+	// Route files are split into about this many chunks per core
+	private static final int ROUTE_CHUNKS_PER_CORE = 4;
+	// Route file chunks are never smaller than this many bytes
+	private static final int MIN_ROUTE_CHUNK = 1 << 20;
 	
 	/** 
 	 * 	 * The file contains data lines as follows:
@@ -213,61 +225,167 @@ public class GraphLoader
 	 * The file contains data as follows:
 	 * Airline, AirlineID, Source airport, Source airport ID,
 	 * Destination airport, Destination airport ID, Codeshare, Stops, Equipment
-	 * This method will only read in nonstop routes (with Stops == 0)
 	 * Vertices are airports (labeled with Strings)
-	 * Edges represent nonstop routes
+	 * Edges represent routes
+	 * 
+	 * The file is memory-mapped and split into chunks at line boundaries.
+	 * The chunks are parsed in parallel, each interning the airport codes
+	 * it finds into its own dictionary.  The dictionaries are then merged 
+	 * in file order, so vertices are numbered in order of first appearance,
+	 * and all vertices and edges are added to the graph in one bulk insert.
 	 * @param filename
 	 * @param graph
 	 */
 	public static void loadRoutes(String filename, Graph graph)
 	{
-		String source;
-		String destination;
-		int sourceIndex;
-		int destinationIndex;
-		
-		int lineCount = 0; //for debugging
-		
 		//Initialize vertex label HashMap in graph
 		graph.initializeLabels();
-		
-		//Read in flights from file
-		BufferedReader reader = null;
-		try {
-            String nextLine;
-            reader = new BufferedReader(new FileReader(filename));
-            while ((nextLine = reader.readLine()) != null) {
-            	String[] flightInfo = nextLine.split(",");
-//           	//Only count nonstop flights
-//            	if (Integer.parseInt(flightInfo[7])==0) {
-            		source = flightInfo[2];
-            		destination = flightInfo[4];
-            		//Add edge for this flight, if both source & destination are already vertices.
-            		//If one of these airports is missing, add vertex for it and then place edge.
-            		if (!graph.hasVertex(source)) {
-            			sourceIndex = graph.addVertex();
-            			graph.addLabel(sourceIndex, source);
-            		}
-            		else {
-            			sourceIndex = graph.getIndex(source);
-            		}
-            		if (!graph.hasVertex(destination)) {
-            			destinationIndex = graph.addVertex();
-            			graph.addLabel(destinationIndex, destination);
-            		}
-            		else {
-            			destinationIndex = graph.getIndex(destination);
-            		}
-            		graph.addEdge(sourceIndex, destinationIndex);
-            	}
-            	lineCount ++;
-//           }
-    		reader.close();
-		} catch (IOException e) {
-            System.err.println("Problem loading route file: " + filename);
-            e.printStackTrace();
-        }
 
+		RouteChunk[] chunks;
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			long[] bounds = findChunkBounds(channel);
+			chunks = new RouteChunk[bounds.length - 1];
+			IntStream.range(0, chunks.length).parallel().forEach(i -> {
+				try {
+					chunks[i] = parseRouteChunk(channel, bounds[i], bounds[i + 1]);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (IOException | UncheckedIOException e) {
+			System.err.println("Problem loading route file: " + filename);
+			e.printStackTrace();
+			return;
+		}
+
+		// Merge the chunk dictionaries in file order and renumber the edges
+		LabelDictionary airports = new LabelDictionary();
+		int numRoutes = 0;
+		for (RouteChunk chunk : chunks) {
+			numRoutes += chunk.numRoutes;
+		}
+		int[] sources = new int[numRoutes];
+		int[] destinations = new int[numRoutes];
+		int position = 0;
+		for (RouteChunk chunk : chunks) {
+			int[] globalIds = new int[chunk.airports.size()];
+			for (int id = 0; id < globalIds.length; id++) {
+				globalIds[id] = airports.intern(chunk.airports, id);
+			}
+			for (int i = 0; i < chunk.numRoutes; i++) {
+				sources[position] = globalIds[chunk.sources[i]];
+				destinations[position] = globalIds[chunk.destinations[i]];
+				position++;
+			}
+		}
+
+		int first = graph.addVertices(airports.size());
+		for (int id = 0; id < airports.size(); id++) {
+			graph.addLabel(first + id, airports.getLabel(id));
+		}
+		if (first != 0) {
+			for (int i = 0; i < numRoutes; i++) {
+				sources[i] += first;
+				destinations[i] += first;
+			}
+		}
+		graph.addEdges(sources, destinations, numRoutes);
+	}
+
+	// Airport codes and routes parsed from one chunk of a route file.
+	// Ids in sources and destinations refer to the chunk's own dictionary.
+	private static class RouteChunk
+	{
+		LabelDictionary airports = new LabelDictionary();
+		int[] sources = new int[1024];
+		int[] destinations = new int[1024];
+		int numRoutes = 0;
+
+		void addRoute(int source, int destination)
+		{
+			if (numRoutes == sources.length) {
+				sources = Arrays.copyOf(sources, numRoutes * 2);
+				destinations = Arrays.copyOf(destinations, numRoutes * 2);
+			}
+			sources[numRoutes] = source;
+			destinations[numRoutes] = destination;
+			numRoutes++;
+		}
+	}
+
+	// Split a file into about ROUTE_CHUNKS_PER_CORE chunks per core, 
+	// none smaller than MIN_ROUTE_CHUNK bytes, each ending just after a newline 
+	// (or at the end of the file).  Returns the chunk start offsets followed 
+	// by the file size.
+	private static long[] findChunkBounds(FileChannel channel) throws IOException
+	{
+		long size = channel.size();
+		int numChunks = (int) Math.max(1, Math.min(
+				Runtime.getRuntime().availableProcessors() * ROUTE_CHUNKS_PER_CORE,
+				size / MIN_ROUTE_CHUNK));
+		long[] bounds = new long[numChunks + 1];
+		ByteBuffer probe = ByteBuffer.allocate(256);
+		for (int i = 1; i < numChunks; i++) {
+			long position = Math.max(bounds[i - 1], size * i / numChunks);
+			// advance to the byte after the next newline
+			boolean found = false;
+			while (!found && position < size) {
+				probe.clear();
+				int read = channel.read(probe, position);
+				for (int k = 0; k < read && !found; k++) {
+					found = probe.get(k) == '\n';
+					position++;
+				}
+			}
+			bounds[i] = position;
+		}
+		bounds[numChunks] = size;
+		return bounds;
+	}
+
+	// Parse the routes in bytes [start, end) of the file, keeping the 
+	// source (third) and destination (fifth) airport of every line.
+	private static RouteChunk parseRouteChunk(FileChannel channel, long start, long end) 
+			throws IOException
+	{
+		RouteChunk chunk = new RouteChunk();
+		if (end <= start) {
+			return chunk;
+		}
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		byte[] field = new byte[64];
+		int length = 0;
+		int fieldIndex = 0;
+		int source = -1;
+		int destination = -1;
+		int limit = buffer.limit();
+		for (int i = 0; i <= limit; i++) {
+			byte b = i < limit ? buffer.get(i) : (byte) '\n';
+			if (b == ',' || b == '\n') {
+				if (fieldIndex == 2) {
+					source = chunk.airports.intern(field, 0, length);
+				}
+				else if (fieldIndex == 4) {
+					destination = chunk.airports.intern(field, 0, length);
+				}
+				length = 0;
+				fieldIndex++;
+				if (b == '\n') {
+					// only lines with both airports are routes
+					if (fieldIndex > 4) {
+						chunk.addRoute(source, destination);
+					}
+					fieldIndex = 0;
+				}
+			}
+			else if (b != '\r' && (fieldIndex == 2 || fieldIndex == 4)) {
+				if (length == field.length) {
+					field = Arrays.copyOf(field, length * 2);
+				}
+				field[length++] = b;
+			}
+		}
+		return chunk;
 	}
 		
 	
@@ -0,0 +1,139 @@
+/**
+ * @author UCSD Intermediate Programming MOOC team
+ *
+ * A compact dictionary that interns short byte strings (such as
+ * airport codes) into dense integer ids 0 .. size-1, in the order
+ * they are first seen.
+ */
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+class LabelDictionary
+{
+	// Open addressing table holding id + 1 of each label, 0 when empty
+	private int[] table;
+	// All label bytes back to back; label i starts at starts[i]
+	private byte[] bytes;
+	private int[] starts;
+	private int[] hashes;
+	private int size;
+	private int bytesUsed;
+
+	/** Create an empty dictionary */
+	LabelDictionary()
+	{
+		table = new int[64];
+		bytes = new byte[256];
+		starts = new int[33];
+		hashes = new int[32];
+		size = 0;
+		bytesUsed = 0;
+	}
+
+	/** Number of distinct labels interned so far */
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Look up a label, adding it if it is not in the dictionary yet.
+	 * @param source Array holding the label bytes
+	 * @param offset Position of the first byte of the label
+	 * @param length Number of bytes in the label
+	 * @return the id of the label
+	 */
+	int intern(byte[] source, int offset, int length)
+	{
+		int hash = hash(source, offset, length);
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		while (table[slot] != 0) {
+			int id = table[slot] - 1;
+			if (hashes[id] == hash && matches(id, source, offset, length)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+		int id = add(source, offset, length, hash);
+		table[slot] = id + 1;
+		if (size * 2 > table.length) {
+			rehash();
+		}
+		return id;
+	}
+
+	/**
+	 * Look up a label of another dictionary in this one, adding it
+	 * if it is not in this dictionary yet.
+	 * @param other The dictionary the label comes from
+	 * @param otherId The id of the label in the other dictionary
+	 * @return the id of the label in this dictionary
+	 */
+	int intern(LabelDictionary other, int otherId)
+	{
+		int start = other.starts[otherId];
+		return intern(other.bytes, start, other.starts[otherId + 1] - start);
+	}
+
+	/** The label with the given id as a String */
+	String getLabel(int id)
+	{
+		return new String(bytes, starts[id], starts[id + 1] - starts[id], StandardCharsets.UTF_8);
+	}
+
+	private int add(byte[] source, int offset, int length, int hash)
+	{
+		if (size == hashes.length) {
+			hashes = Arrays.copyOf(hashes, size * 2);
+			starts = Arrays.copyOf(starts, size * 2 + 1);
+		}
+		if (bytesUsed + length > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, bytesUsed + length));
+		}
+		System.arraycopy(source, offset, bytes, bytesUsed, length);
+		bytesUsed += length;
+		hashes[size] = hash;
+		starts[size + 1] = bytesUsed;
+		return size++;
+	}
+
+	private boolean matches(int id, byte[] source, int offset, int length)
+	{
+		int start = starts[id];
+		if (starts[id + 1] - start != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (bytes[start + i] != source[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash()
+	{
+		table = new int[table.length * 2];
+		int mask = table.length - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = hashes[id] & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id + 1;
+		}
+	}
+
+	private static int hash(byte[] source, int offset, int length)
+	{
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + source[offset + i];
+		}
+		// spread the low bits, which pick the slot
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,536 @@
+/**
+ * A class that represents a large grid maze to navigate through.
+ */
+package week3example;
+
+import java.util.Arrays;
+
+/**
+ * A 2D maze stored as a grid of bits rather than a graph of MazeNodes.
+ * Open cells are set bits of a long array, and cell (row, col) is
+ * identified by the int index row * width + col.  Moves are up, down,
+ * left or right, each costing 1, exactly as in Maze.
+ *
+ * Search state (parents, path costs, the search queue) lives in int arrays
+ * indexed by cell that are reused from one search to the next.  Every
+ * search gets a new stamp, and entries written by older searches are
+ * ignored, so the arrays never have to be cleared.
+ *
+ * Three searches are available, each returning the cells on a shortest
+ * path from start to goal: breadth first search, A* with the Manhattan
+ * distance heuristic, and Jump Point Search adapted to 4-connected grids.
+ *
+ * @author UCSD Intermediate Programming MOOC Team
+ *
+ */
+public class MazeGrid {
+	private static final int[] NO_PATH = new int[0];
+
+	private int width;
+	private int height;
+	private long[] open;
+
+	// Per-cell search state, valid only where stamp[cell] is currentStamp,
+	// or minus currentStamp once A* has closed the cell
+	private int[] stamp;
+	private int[] parent;
+	private int[] cost;
+	private int currentStamp;
+
+	// Queue for breadth first search, heap for A* and Jump Point Search
+	private int[] queue;
+	private long[] heapKeys;
+	private int[] heapCells;
+	private int heapSize;
+
+	/**
+	 * Create a new Maze with specified height and width, all walls
+	 * @param width The width of the maze
+	 * @param height The height of the maze
+	 */
+	public MazeGrid(int width, int height) {
+		initialize(width, height);
+	}
+
+	/**
+	 * Reset the maze to have the given height and width, all walls
+	 * @param width The width of the maze
+	 * @param height The height of the maze
+	 */
+	public void initialize(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.open = new long[(int) (((long) width * height + 63) >>> 6)];
+		this.stamp = null;
+		this.queue = null;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Open the cell at the given location (i.e. make it not a wall).
+	 * @param row The row of the cell
+	 * @param col The column of the cell
+	 */
+	public void setOpen(int row, int col) {
+		int cell = getCell(row, col);
+		open[cell >>> 6] |= 1L << cell;
+	}
+
+	/**
+	 * Turn the cell at the given location into a wall.
+	 * @param row The row of the cell
+	 * @param col The column of the cell
+	 */
+	public void setWall(int row, int col) {
+		int cell = getCell(row, col);
+		open[cell >>> 6] &= ~(1L << cell);
+	}
+
+	/**
+	 * Whether a location is inside the maze and not a wall.
+	 * @param row The row of the cell
+	 * @param col The column of the cell
+	 * @return true if the cell can be walked on
+	 */
+	public boolean isOpen(int row, int col) {
+		if (row < 0 || row >= height || col < 0 || col >= width) {
+			return false;
+		}
+		int cell = row * width + col;
+		return (open[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	/**
+	 * @return the index of the cell at the given location
+	 */
+	public int getCell(int row, int col) {
+		if (row < 0 || row >= height || col < 0 || col >= width) {
+			throw new IndexOutOfBoundsException("No cell at (" + row + ", " + col + ")");
+		}
+		return row * width + col;
+	}
+
+	/**
+	 * @return the row of a cell index
+	 */
+	public int getRow(int cell) {
+		return cell / width;
+	}
+
+	/**
+	 * @return the column of a cell index
+	 */
+	public int getColumn(int cell) {
+		return cell % width;
+	}
+
+	/** breadth first search from (startRow,startCol) to (endRow,endCol)
+	 *
+	 * @param startRow  The row of the starting position
+	 * @param startCol  The column of the starting position
+	 * @param endRow The row of the end position
+	 * @param endCol The column of the end position
+	 * @return the cells on the path from starting position to ending position,
+	 * or an empty array if there is no path.
+	 */
+	public int[] bfs(int startRow, int startCol, int endRow, int endCol) {
+		if (!isOpen(startRow, startCol) || !isOpen(endRow, endCol)) {
+			return NO_PATH;
+		}
+		int start = getCell(startRow, startCol);
+		int goal = getCell(endRow, endCol);
+		newSearch();
+		if (queue == null) {
+			queue = new int[width * height];
+		}
+		visit(start, start, 0);
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = start;
+		while (head < tail) {
+			int curr = queue[head++];
+			if (curr == goal) {
+				return constructPath(start, goal);
+			}
+			int row = curr / width;
+			int col = curr - row * width;
+			int nextCost = cost[curr] + 1;
+			if (row > 0 && isOpenCell(curr - width) && !isVisited(curr - width)) {
+				visit(curr - width, curr, nextCost);
+				queue[tail++] = curr - width;
+			}
+			if (col > 0 && isOpenCell(curr - 1) && !isVisited(curr - 1)) {
+				visit(curr - 1, curr, nextCost);
+				queue[tail++] = curr - 1;
+			}
+			if (row < height - 1 && isOpenCell(curr + width) && !isVisited(curr + width)) {
+				visit(curr + width, curr, nextCost);
+				queue[tail++] = curr + width;
+			}
+			if (col < width - 1 && isOpenCell(curr + 1) && !isVisited(curr + 1)) {
+				visit(curr + 1, curr, nextCost);
+				queue[tail++] = curr + 1;
+			}
+		}
+		return NO_PATH;
+	}
+
+	/** A* search from (startRow,startCol) to (endRow,endCol), guided
+	 * by the Manhattan distance to the goal.
+	 *
+	 * @param startRow  The row of the starting position
+	 * @param startCol  The column of the starting position
+	 * @param endRow The row of the end position
+	 * @param endCol The column of the end position
+	 * @return the cells on the path from starting position to ending position,
+	 * or an empty array if there is no path.
+	 */
+	public int[] aStar(int startRow, int startCol, int endRow, int endCol) {
+		if (!isOpen(startRow, startCol) || !isOpen(endRow, endCol)) {
+			return NO_PATH;
+		}
+		int start = getCell(startRow, startCol);
+		int goal = getCell(endRow, endCol);
+		newSearch();
+		visit(start, start, 0);
+		push(start, 0, manhattan(start, goal));
+		while (heapSize > 0) {
+			int curr = pop();
+			if (isClosed(curr)) {
+				continue;
+			}
+			stamp[curr] = -currentStamp;
+			if (curr == goal) {
+				return constructPath(start, goal);
+			}
+			int row = curr / width;
+			int col = curr - row * width;
+			if (row > 0) relax(curr, curr - width, 1, goal);
+			if (col > 0) relax(curr, curr - 1, 1, goal);
+			if (row < height - 1) relax(curr, curr + width, 1, goal);
+			if (col < width - 1) relax(curr, curr + 1, 1, goal);
+		}
+		return NO_PATH;
+	}
+
+	/** Jump Point Search from (startRow,startCol) to (endRow,endCol).
+	 *
+	 * This is A* over jump points only: instead of stepping to each
+	 * neighbor, a search scans in a straight line until it reaches a
+	 * cell where a shortest path may have to turn.  Shortest paths are
+	 * taken to go horizontally before they go vertically, so a horizontal
+	 * scan stops next to the first open cell above or below a wall, and
+	 * a vertical scan stops where a horizontal scan would find a jump point.
+	 *
+	 * @param startRow  The row of the starting position
+	 * @param startCol  The column of the starting position
+	 * @param endRow The row of the end position
+	 * @param endCol The column of the end position
+	 * @return the cells on the path from starting position to ending position,
+	 * or an empty array if there is no path.
+	 */
+	public int[] jps(int startRow, int startCol, int endRow, int endCol) {
+		if (!isOpen(startRow, startCol) || !isOpen(endRow, endCol)) {
+			return NO_PATH;
+		}
+		int start = getCell(startRow, startCol);
+		int goal = getCell(endRow, endCol);
+		newSearch();
+		visit(start, start, 0);
+		push(start, 0, manhattan(start, goal));
+		while (heapSize > 0) {
+			int curr = pop();
+			if (isClosed(curr)) {
+				continue;
+			}
+			stamp[curr] = -currentStamp;
+			if (curr == goal) {
+				return expandPath(start, goal);
+			}
+			int row = curr / width;
+			int col = curr - row * width;
+			jumpTo(curr, jumpHorizontal(row, col, 1, goal), goal);
+			jumpTo(curr, jumpHorizontal(row, col, -1, goal), goal);
+			jumpTo(curr, jumpVertical(row, col, 1, goal), goal);
+			jumpTo(curr, jumpVertical(row, col, -1, goal), goal);
+		}
+		return NO_PATH;
+	}
+
+	// Scan along a row from (row, col) in direction dc.  Returns the first
+	// jump point found, or -1 if the scan runs into a wall.  The row is read
+	// 64 cells at a time: a jump point is an open cell with an open cell
+	// above (or below) it and a wall above (or below) the cell before it.
+	private int jumpHorizontal(int row, int col, int dc, int goal) {
+		int rowStart = row * width;
+		int goalCol = goal / width == row ? goal - rowStart : -1;
+		int c = col;
+		while (true) {
+			int p = rowStart + c;
+			int remaining = dc > 0 ? width - 1 - c : c;
+			if (remaining <= 0) {
+				return -1;
+			}
+			long stops;
+			if (dc > 0) {
+				// bit k is the cell k + 1 columns to the right of c
+				long valid = remaining >= 64 ? -1L : (1L << remaining) - 1;
+				long cells = bits(p + 1) & valid;
+				long forced = 0;
+				if (row > 0) forced |= bits(p + 1 - width) & ~bits(p - width);
+				if (row < height - 1) forced |= bits(p + 1 + width) & ~bits(p + width);
+				stops = ~cells | (forced & cells);
+				if (goalCol > c && goalCol - c <= 64) stops |= 1L << (goalCol - c - 1);
+				if (stops != 0) {
+					int k = Long.numberOfTrailingZeros(stops);
+					return (cells & (1L << k)) != 0 ? p + 1 + k : -1;
+				}
+				c += 64;
+			}
+			else {
+				// bit j is the cell 64 - j columns to the left of c
+				long valid = remaining >= 64 ? -1L : -1L << (64 - remaining);
+				long cells = bits(p - 64) & valid;
+				long forced = 0;
+				if (row > 0) forced |= bits(p - 64 - width) & ~bits(p - 63 - width);
+				if (row < height - 1) forced |= bits(p - 64 + width) & ~bits(p - 63 + width);
+				stops = ~cells | (forced & cells);
+				if (goalCol >= 0 && goalCol < c && c - goalCol <= 64) stops |= 1L << (goalCol - c + 64);
+				if (stops != 0) {
+					int j = 63 - Long.numberOfLeadingZeros(stops);
+					return (cells & (1L << j)) != 0 ? p - 64 + j : -1;
+				}
+				c -= 64;
+			}
+		}
+	}
+
+	// The 64 bits of the open array starting at bit index start,
+	// with bits outside the array read as walls
+	private long bits(int start) {
+		if (start < 0) {
+			return start <= -64 ? 0 : bits(0) << -start;
+		}
+		int word = start >>> 6;
+		int shift = start & 63;
+		long low = word < open.length ? open[word] >>> shift : 0;
+		if (shift == 0 || word + 1 >= open.length) {
+			return low;
+		}
+		return low | (open[word + 1] << (64 - shift));
+	}
+
+	// Scan along a column from (row, col) in direction dr, checking both
+	// horizontal directions from every cell.  Returns the first jump point
+	// found, or -1 if the scan runs into a wall.
+	private int jumpVertical(int row, int col, int dr, int goal) {
+		int r = row + dr;
+		while (isOpen(r, col)) {
+			int cell = r * width + col;
+			if (cell == goal
+					|| jumpHorizontal(r, col, 1, goal) >= 0
+					|| jumpHorizontal(r, col, -1, goal) >= 0) {
+				return cell;
+			}
+			r += dr;
+		}
+		return -1;
+	}
+
+	// Record reaching jump point next from curr, if it is an improvement
+	private void jumpTo(int curr, int next, int goal) {
+		if (next < 0 || isClosed(next)) {
+			return;
+		}
+		int nextCost = cost[curr] + manhattan(curr, next);
+		if (!isVisited(next) || nextCost < cost[next]) {
+			visit(next, curr, nextCost);
+			push(next, nextCost, nextCost + manhattan(next, goal));
+		}
+	}
+
+	// A* edge relaxation from curr to its neighbor next
+	private void relax(int curr, int next, int edgeCost, int goal) {
+		if (!isOpenCell(next) || isClosed(next)) {
+			return;
+		}
+		int nextCost = cost[curr] + edgeCost;
+		if (!isVisited(next) || nextCost < cost[next]) {
+			visit(next, curr, nextCost);
+			push(next, nextCost, nextCost + manhattan(next, goal));
+		}
+	}
+
+	private boolean isOpenCell(int cell) {
+		return (open[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	private int manhattan(int from, int to) {
+		return Math.abs(from / width - to / width) + Math.abs(from % width - to % width);
+	}
+
+	/** Start a new search, allocating the search arrays on first use */
+	private void newSearch() {
+		int numCells = width * height;
+		if (stamp == null) {
+			stamp = new int[numCells];
+			parent = new int[numCells];
+			cost = new int[numCells];
+			heapKeys = new long[64];
+			heapCells = new int[64];
+			currentStamp = 0;
+		}
+		if (++currentStamp == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			currentStamp = 1;
+		}
+		heapSize = 0;
+	}
+
+	private boolean isVisited(int cell) {
+		return stamp[cell] == currentStamp || stamp[cell] == -currentStamp;
+	}
+
+	private boolean isClosed(int cell) {
+		return stamp[cell] == -currentStamp;
+	}
+
+	private void visit(int cell, int from, int pathCost) {
+		stamp[cell] = currentStamp;
+		parent[cell] = from;
+		cost[cell] = pathCost;
+	}
+
+	// Add a cell to the binary heap, ordered by estimate and then
+	// by larger path cost so that ties favour cells closer to the goal
+	private void push(int cell, int pathCost, int estimate) {
+		if (heapSize == heapKeys.length) {
+			heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+			heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+		}
+		long key = ((long) estimate << 32) | (Integer.MAX_VALUE - pathCost);
+		int i = heapSize++;
+		while (i > 0) {
+			int up = (i - 1) >>> 1;
+			if (heapKeys[up] <= key) break;
+			heapKeys[i] = heapKeys[up];
+			heapCells[i] = heapCells[up];
+			i = up;
+		}
+		heapKeys[i] = key;
+		heapCells[i] = cell;
+	}
+
+	// Remove and return the cell with the smallest key from the heap
+	private int pop() {
+		int top = heapCells[0];
+		long key = heapKeys[--heapSize];
+		int cell = heapCells[heapSize];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) break;
+			if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) child++;
+			if (key <= heapKeys[child]) break;
+			heapKeys[i] = heapKeys[child];
+			heapCells[i] = heapCells[child];
+			i = child;
+		}
+		heapKeys[i] = key;
+		heapCells[i] = cell;
+		return top;
+	}
+
+	// Follow parents back from the goal
+	private int[] constructPath(int start, int goal) {
+		int[] path = new int[cost[goal] + 1];
+		int curr = goal;
+		for (int i = path.length - 1; i > 0; i--) {
+			path[i] = curr;
+			curr = parent[curr];
+		}
+		path[0] = start;
+		return path;
+	}
+
+	// Follow parents back from the goal, filling in the straight
+	// lines between consecutive jump points
+	private int[] expandPath(int start, int goal) {
+		int[] path = new int[cost[goal] + 1];
+		int curr = goal;
+		int i = path.length - 1;
+		while (curr != start) {
+			int from = parent[curr];
+			int step = from / width == curr / width ? (from < curr ? 1 : -1) : (from < curr ? width : -width);
+			for (int cell = curr; cell != from; cell -= step) {
+				path[i--] = cell;
+			}
+			curr = from;
+		}
+		path[0] = start;
+		return path;
+	}
+
+	/**
+	 * Print the maze grid to the screen, marking a path on it
+	 * in the same way as Maze.
+	 * @param path The cells of a path from start to goal, may be empty.
+	 */
+	public void printMaze(int[] path) {
+		char[][] display = new char[height][width];
+		for (int r = 0; r < height; r++) {
+			for (int c = 0; c < width; c++) {
+				display[r][c] = isOpen(r, c) ? MazeNode.EMPTY : '*';
+			}
+		}
+		for (int i = 0; i < path.length; i++) {
+			char mark = i == 0 ? MazeNode.START : (i == path.length - 1 ? MazeNode.GOAL : MazeNode.PATH);
+			display[getRow(path[i])][getColumn(path[i])] = mark;
+		}
+		for (char[] row : display) {
+			System.out.println(row);
+		}
+	}
+
+	public static void main(String[] args) {
+		String mazeFile = "data/mazes/maze1.maze";
+		MazeGrid maze = new MazeGrid(0, 0);
+		MazeLoader.loadMaze(mazeFile, maze);
+		maze.printMaze(maze.bfs(3, 3, 2, 0));
+		System.out.println("\n");
+		maze.printMaze(maze.aStar(3, 3, 2, 0));
+		System.out.println("\n");
+		maze.printMaze(maze.jps(3, 3, 2, 0));
+
+		// A large open grid with a wall down the middle
+		int size = 4096;
+		MazeGrid large = new MazeGrid(size, size);
+		for (int r = 0; r < size; r++) {
+			for (int c = 0; c < size; c++) {
+				if (c != size / 2 || r == size - 1) {
+					large.setOpen(r, c);
+				}
+			}
+		}
+		for (int i = 0; i < 3; i++) {
+			long timer = System.nanoTime();
+			int bfsLength = large.bfs(0, 0, 0, size - 1).length;
+			long bfsTime = System.nanoTime() - timer;
+			timer = System.nanoTime();
+			int aStarLength = large.aStar(0, 0, 0, size - 1).length;
+			long aStarTime = System.nanoTime() - timer;
+			timer = System.nanoTime();
+			int jpsLength = large.jps(0, 0, 0, size - 1).length;
+			long jpsTime = System.nanoTime() - timer;
+			System.out.println("4096x4096 path lengths " + bfsLength + "/" + aStarLength + "/" + jpsLength
+					+ ", ms: bfs " + bfsTime / 1000000 + ", A* " + aStarTime / 1000000 + ", jps " + jpsTime / 1000000);
+		}
+	}
+}
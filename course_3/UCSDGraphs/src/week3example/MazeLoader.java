@@ -62,4 +62,52 @@ public class MazeLoader {
 		maze.linkEdges();
 	}
 	
+	/**
+	 * Load a maze file into a bit-packed MazeGrid.  The format is the same
+	 * as for loadMaze into a Maze: a first line with the width and height,
+	 * then one line per row where '*' is a wall and anything else is open.
+	 * Rows or lines that are missing are open; characters past the width
+	 * are ignored.
+	 * @param filename The maze file
+	 * @param maze The grid to load the maze into
+	 */
+	public static void loadMaze(String filename, MazeGrid maze)
+	{
+		BufferedReader reader = null;
+		try {
+            String nextLine;
+            int width = 0;
+            int height = 0;
+            reader = new BufferedReader(new FileReader(filename));
+            if ((nextLine = reader.readLine()) != null) {
+            	String[] dims = nextLine.split(" ");
+            	width = Integer.parseInt(dims[0]);
+            	height = Integer.parseInt(dims[1]);
+            	maze.initialize(width, height);
+            }
+            int currRow = 0;
+            while ((nextLine = reader.readLine()) != null && currRow < height) {
+            	int currCol = 0;
+            	for (; currCol < width && currCol < nextLine.length(); currCol++) {
+            		if (nextLine.charAt(currCol) != '*') {
+            			maze.setOpen(currRow, currCol);
+            		}
+            	}
+            	for (; currCol < width; currCol++) {
+            		maze.setOpen(currRow, currCol);
+            	}
+            	currRow++;
+            }
+            for (; currRow < height; currRow++) {
+            	for (int c = 0; c < width; c++) {
+            		maze.setOpen(currRow, c);
+            	}
+            }
+    		reader.close();
+		} catch (IOException e) {
+            System.err.println("Problem loading maze file: " + filename);
+            e.printStackTrace();
+        }
+	}
+	
 }
@@ -1,14 +1,15 @@
 package graph;
 
-import java.util.HashSet;
-
 /**
  * Models social spread mechanism when all neighbouring friends are getting triggered
  * on next step. That's the fastest way of spreading considering one generation is equal one distance from source.
  * <p>
+ * Every edge passes the spread on, so a step is one level of a breadth first search
+ * on the bitset engine of {@link BitsetSocialSpread}.
+ * <p>
  * Created by Alex Filatau.
  */
-public class AbsoluteSocialSpread extends SocialSpread {
+public class AbsoluteSocialSpread extends BitsetSocialSpread {
     /**
      * Any social spread requires target graph to work on
      *
@@ -19,32 +20,10 @@ public class AbsoluteSocialSpread extends SocialSpread {
     }
 
     /**
-     * Process next generation of spread
-     *
-     * @return step number
+     * Friends of triggered vertices are always triggered
      */
     @Override
-    public boolean step() {
-        if (getAllTriggeredVertices().isEmpty())
-            throw new IllegalStateException("Nothing to spread - not initialized");
-        if (isCompleted()) return false;
-
-        boolean spreaded = false;
-        HashSet<Integer> newlyTriggered = new HashSet<>();
-
-        for (Integer frontierVertex : getLastTriggeredVertices()) {
-            for (Integer vertex : getNonTriggeredFriends(frontierVertex)) {
-                this.triggeredVertices.add(vertex);
-                newlyTriggered.add(vertex);
-                spreaded = true;
-            }
-        }
-
-        if (spreaded) {
-            this.currentStepNumber++;
-            this.lastTriggeredVertices = (HashSet<Integer>) newlyTriggered.clone();
-        }
-
-        return spreaded;
+    protected boolean tryActivate(int source, int target) {
+        return true;
     }
 }
@@ -272,4 +272,114 @@ public class AbsoluteSocialSpreadTest {
         assertFalse(spread.isVertexTriggered(1));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void triggeredVerticesShouldSurviveGraphChangesBetweenSteps() {
+        SocialGraph graph = new SocialGraph();
+        AbsoluteSocialSpread spread = new AbsoluteSocialSpread(graph);
+
+        graph.addEdge(5, 6);
+        spread.setStartingPoint(5);
+        assertTrue(spread.step());
+
+        // new vertices before and after the triggered ones move them to other indices
+        graph.addEdge(6, 1);
+        graph.addEdge(6, 9);
+        assertTrue(spread.getLastTriggeredVertices().containsAll(asList(6)));
+        assertTrue(spread.step());
+        assertTrue(spread.isCompleted());
+        assertEquals(2, spread.getCurrentStepNumber());
+    }
+
+    @Test
+    public void wideSpreadShouldMatchBreadthFirstSearchLevels() {
+        SocialGraph graph = new SocialGraph();
+        AbsoluteSocialSpread spread = new AbsoluteSocialSpread(graph);
+
+        // every vertex v has friends 2v + 1 and 2v + 2, and the last ones lead back to 0,
+        // so the frontier doubles each step until pull steps take over
+        int size = 100_000;
+        for (int v = 0; v < size; v++) {
+            graph.addEdge(v, 2 * v + 1 < size ? 2 * v + 1 : 0);
+            graph.addEdge(v, 2 * v + 2 < size ? 2 * v + 2 : 0);
+        }
+        spread.setStartingPoint(0);
+
+        int steps = 0;
+        while (spread.step()) {
+            steps++;
+            int expected = Math.min(size, (1 << (steps + 1)) - 1);
+            assertEquals(expected, spread.getNumberOfTriggeredVertices());
+        }
+        assertTrue(spread.isCompleted());
+        assertEquals(16, steps);
+    }
+
+    @Test
+    public void sensorShouldStopSpreadWithinStep() {
+        SocialGraph graph = new SocialGraph();
+        AbsoluteSocialSpread spread = new AbsoluteSocialSpread(graph);
+        graph.addEdge(1, 2);
+        graph.addEdge(1, 3);
+        graph.addEdge(3, 4);
+        spread.setStartingPoint(1);
+        spread.setSensors(asList(4, 3));
+
+        assertTrue(spread.step());
+        assertEquals(Integer.valueOf(3), spread.getDetectedSensor());
+        assertFalse(spread.step());
+        assertEquals(1, spread.getCurrentStepNumber());
+        assertFalse(spread.getAllTriggeredVertices().contains(4));
+
+        spread.reset();
+        assertNull(spread.getDetectedSensor());
+        spread.setStartingPoint(3);
+        assertEquals(Integer.valueOf(3), spread.getDetectedSensor());
+    }
+
+    @Test
+    public void pullStepShouldStopAtLowestSensor() {
+        SocialGraph graph = new SocialGraph();
+        AbsoluteSocialSpread spread = new AbsoluteSocialSpread(graph);
+
+        // same tree as above, vertices 65535 .. 99999 make the last pull step
+        int size = 100_000;
+        for (int v = 0; v < size; v++) {
+            graph.addEdge(v, 2 * v + 1 < size ? 2 * v + 1 : 0);
+            graph.addEdge(v, 2 * v + 2 < size ? 2 * v + 2 : 0);
+        }
+        spread.setStartingPoint(0);
+        spread.setSensors(asList(99_999, 70_000));
+
+        while (spread.step()) ;
+        assertEquals(Integer.valueOf(70_000), spread.getDetectedSensor());
+        assertEquals(16, spread.getCurrentStepNumber());
+        assertEquals(70_001, spread.getNumberOfTriggeredVertices());
+        assertFalse(spread.getAllTriggeredVertices().contains(70_001));
+    }
+
+    @Test
+    public void pushAndPullShouldDetectTheSameSensor() {
+        for (BitsetSocialSpread.Direction direction : asList(BitsetSocialSpread.Direction.PUSH,
+                BitsetSocialSpread.Direction.PULL)) {
+            SocialGraph graph = new SocialGraph();
+            AbsoluteSocialSpread spread = new AbsoluteSocialSpread(graph);
+
+            // push meets 4 first through 1, pull meets 2 first
+            for (int v = 1; v <= 4; v++)
+                graph.addVertex(v);
+            graph.addEdge(1, 4);
+            graph.addEdge(3, 2);
+            spread.setStartingPoint(1);
+            spread.setStartingPoint(3);
+            spread.setSensors(asList(4, 2));
+            spread.setDirection(direction);
+
+            assertTrue(spread.step());
+            assertEquals(direction.toString(), Integer.valueOf(2), spread.getDetectedSensor());
+            assertFalse(spread.step());
+            assertEquals(1, spread.getCurrentStepNumber());
+            assertEquals(3, spread.getNumberOfTriggeredVertices());
+            assertFalse(spread.getAllTriggeredVertices().contains(4));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * Betweenness centrality by Brandes' algorithm: a breadth-first search from every source
+ * counts shortest paths, then dependencies are accumulated walking back from the farthest
+ * vertices. Predecessors are found through in-edges instead of being stored.
+ * <p>
+ * Exact scores need a search from every vertex. {@link #approximate} searches from a random
+ * sample of sources and scales the result (Brandes and Pich), which keeps the ranking of
+ * central vertices on big graphs at a fraction of the cost.
+ * <p>
+ * Sources are split into batches searched in parallel, every batch adding up its own
+ * scores; batches are summed at the end. Scores count directed shortest paths between
+ * ordered pairs of other vertices, without normalization.
+ */
+public class BetweennessCentrality extends CentralityScores {
+
+    // Number of batches per worker thread
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private final int sources;
+
+    private BetweennessCentrality(CsrGraph graph, double[] scores, int sources) {
+        super(graph, scores);
+        this.sources = sources;
+    }
+
+    /**
+     * Exact betweenness, searching from every vertex on the common fork/join pool
+     *
+     * @param graph target graph
+     * @return scores of all vertices
+     */
+    public static BetweennessCentrality compute(CsrGraph graph) {
+        int n = graph.getNumVertices();
+        int[] sources = new int[n];
+        for (int v = 0; v < n; v++)
+            sources[v] = v;
+        return compute(graph, sources, 1, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Approximate betweenness from a random sample of sources, on the common fork/join pool.
+     * Exact if samples is not less than the number of vertices.
+     *
+     * @param graph   target graph
+     * @param samples number of distinct sources to search from
+     * @param seed    seed of the sample
+     * @return estimated scores of all vertices
+     */
+    public static BetweennessCentrality approximate(CsrGraph graph, int samples, long seed) {
+        int n = graph.getNumVertices();
+        if (samples >= n) return compute(graph);
+        if (samples < 1)
+            throw new IllegalArgumentException(String.format("Samples [%s] should be positive", samples));
+
+        // first samples elements of a partial Fisher-Yates shuffle
+        int[] order = new int[n];
+        for (int v = 0; v < n; v++)
+            order[v] = v;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < samples; i++) {
+            int j = i + random.nextInt(n - i);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return compute(graph, Arrays.copyOf(order, samples), (double) n / samples, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Betweenness from the given sources
+     *
+     * @param graph   target graph
+     * @param sources vertex indices to search from
+     * @param scale   factor applied to the sums, n / sources.length for a uniform sample
+     * @param pool    pool to run on
+     * @return scores of all vertices
+     */
+    static BetweennessCentrality compute(CsrGraph graph, int[] sources, double scale, ForkJoinPool pool) {
+        int n = graph.getNumVertices();
+        int batches = Math.max(1, Math.min(sources.length, pool.getParallelism() * BATCHES_PER_THREAD));
+        double[][] partial = new double[batches][];
+        pool.submit(() -> IntStream.range(0, batches).parallel().forEach(b -> {
+            Search search = new Search(graph);
+            int from = (int) ((long) sources.length * b / batches);
+            int to = (int) ((long) sources.length * (b + 1) / batches);
+            for (int i = from; i < to; i++)
+                search.accumulate(sources[i]);
+            partial[b] = search.scores;
+        })).join();
+
+        double[] scores = new double[n];
+        for (double[] batch : partial)
+            for (int v = 0; v < n; v++)
+                scores[v] += batch[v];
+        if (scale != 1)
+            for (int v = 0; v < n; v++)
+                scores[v] *= scale;
+        return new BetweennessCentrality(graph, scores, sources.length);
+    }
+
+    /**
+     * @return number of sources searched from, the number of vertices for exact scores
+     */
+    public int getSources() {
+        return sources;
+    }
+
+    /**
+     * Scratch arrays of one batch, reused for all of its sources
+     */
+    private static class Search {
+        private final CsrGraph graph;
+        private final double[] scores;
+        private final int[] distance;
+        private final double[] paths;
+        private final double[] dependency;
+        // vertices in the order they were reached, also the queue of the search
+        private final int[] order;
+
+        Search(CsrGraph graph) {
+            this.graph = graph;
+            int n = graph.getNumVertices();
+            scores = new double[n];
+            distance = new int[n];
+            paths = new double[n];
+            dependency = new double[n];
+            order = new int[n];
+            Arrays.fill(distance, -1);
+        }
+
+        void accumulate(int source) {
+            int size = 0;
+            order[size++] = source;
+            distance[source] = 0;
+            paths[source] = 1;
+            for (int head = 0; head < size; head++) {
+                int v = order[head];
+                for (int e = graph.outOffsets[v]; e < graph.outOffsets[v + 1]; e++) {
+                    int w = graph.outTargets[e];
+                    if (distance[w] < 0) {
+                        distance[w] = distance[v] + 1;
+                        order[size++] = w;
+                    }
+                    if (distance[w] == distance[v] + 1)
+                        paths[w] += paths[v];
+                }
+            }
+
+            for (int i = size - 1; i > 0; i--) {
+                int w = order[i];
+                double share = (1 + dependency[w]) / paths[w];
+                for (int e = graph.inOffsets[w]; e < graph.inOffsets[w + 1]; e++) {
+                    int v = graph.inSources[e];
+                    if (distance[v] == distance[w] - 1)
+                        dependency[v] += paths[v] * share;
+                }
+                scores[w] += dependency[w];
+            }
+
+            // reset only what this search touched
+            for (int i = 0; i < size; i++) {
+                int v = order[i];
+                distance[v] = -1;
+                paths[v] = 0;
+                dependency[v] = 0;
+            }
+        }
+    }
+}
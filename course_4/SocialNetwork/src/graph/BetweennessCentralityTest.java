@@ -0,0 +1,98 @@
+package graph;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class BetweennessCentralityTest {
+    @Test
+    public void middleOfPathShouldBeOnOnePath() {
+        CsrGraph graph = new CsrGraph.Builder().addEdge(1, 2).addEdge(2, 3).build();
+        BetweennessCentrality betweenness = BetweennessCentrality.compute(graph);
+
+        assertEquals(0, betweenness.getScore(1), 0);
+        assertEquals(1, betweenness.getScore(2), 0);
+        assertEquals(0, betweenness.getScore(3), 0);
+    }
+
+    @Test
+    public void shouldSplitBetweenEqualPaths() {
+        // two shortest paths from 1 to 4, through 2 and through 3
+        CsrGraph graph = new CsrGraph.Builder().addEdge(1, 2).addEdge(1, 3).addEdge(2, 4).addEdge(3, 4).build();
+        BetweennessCentrality betweenness = BetweennessCentrality.compute(graph);
+
+        assertEquals(0.5, betweenness.getScore(2), 1e-12);
+        assertEquals(0.5, betweenness.getScore(3), 1e-12);
+    }
+
+    @Test
+    public void shouldMatchPairCounting() {
+        CsrGraph graph = randomGraph(60, 180, 3);
+        double[] expected = countPairs(graph);
+
+        assertArrayEquals(expected, BetweennessCentrality.compute(graph).getScores(), 1e-9);
+    }
+
+    @Test
+    public void fullSampleShouldBeExact() {
+        CsrGraph graph = randomGraph(40, 120, 5);
+        BetweennessCentrality sampled = BetweennessCentrality.approximate(graph, 40, 1);
+
+        assertEquals(40, sampled.getSources());
+        assertArrayEquals(countPairs(graph), sampled.getScores(), 1e-9);
+        assertEquals(10, BetweennessCentrality.approximate(graph, 10, 1).getSources());
+    }
+
+    private static CsrGraph randomGraph(int n, int m, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        for (int v = 0; v < n; v++)
+            builder.addVertex(v);
+        for (int e = 0; e < m; e++)
+            builder.addEdge(random.nextInt(n), random.nextInt(n));
+        return builder.build();
+    }
+
+    // for every pair (s, t), share of shortest s-t paths through v: paths(s, v) * paths(v, t) / paths(s, t)
+    private static double[] countPairs(CsrGraph graph) {
+        int n = graph.getNumVertices();
+        int[][] distance = new int[n][];
+        double[][] paths = new double[n][];
+        for (int s = 0; s < n; s++) {
+            distance[s] = new int[n];
+            paths[s] = new double[n];
+            Arrays.fill(distance[s], -1);
+            distance[s][s] = 0;
+            paths[s][s] = 1;
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(s);
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                for (int e = graph.outOffsets[v]; e < graph.outOffsets[v + 1]; e++) {
+                    int w = graph.outTargets[e];
+                    if (distance[s][w] < 0) {
+                        distance[s][w] = distance[s][v] + 1;
+                        queue.add(w);
+                    }
+                    if (distance[s][w] == distance[s][v] + 1)
+                        paths[s][w] += paths[s][v];
+                }
+            }
+        }
+        double[] result = new double[n];
+        for (int s = 0; s < n; s++)
+            for (int t = 0; t < n; t++)
+                for (int v = 0; v < n; v++)
+                    if (s != t && v != s && v != t && distance[s][t] > 0 && distance[s][v] > 0 && distance[v][t] > 0
+                            && distance[s][v] + distance[v][t] == distance[s][t])
+                        result[v] += paths[s][v] * paths[v][t] / paths[s][t];
+        return result;
+    }
+}
@@ -0,0 +1,521 @@
+package graph;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * Spread engine keeping triggered vertices and the last generation (frontier) as bitsets
+ * over the dense vertex indices of the graph's {@link CapGraph#getSnapshot() snapshot}.
+ * <p>
+ * Each generation is computed level-synchronously, in one of two directions
+ * (direction-optimizing BFS, Beamer et al.):
+ * <ul>
+ * <li>push - every frontier vertex tries to trigger its non-triggered friends;
+ * cheap while the frontier is small</li>
+ * <li>pull - every non-triggered vertex looks for a friend in the frontier, stopping at the
+ * first one that triggers it; cheap once the frontier holds a big share of the edges,
+ * and run in parallel over ranges of bitset words</li>
+ * </ul>
+ * Subclasses decide whether an edge passes the spread on by overriding
+ * {@link #tryActivate(int, int)}.
+ * <p>
+ * With sensors set ({@link #setSensors(Collection)}) the spread stops inside the step that
+ * triggers a sensor. Of the sensors triggered in that step the one with the lowest snapshot
+ * index is detected, and the step keeps only the vertices of lower index than it, in push and
+ * pull mode alike, so the outcome doesn't depend on the direction or on parallel scheduling.
+ * <p>
+ * If the graph gets new vertices or edges, state is carried over to the new snapshot
+ * on the next call.
+ */
+public abstract class BitsetSocialSpread extends SocialSpread {
+
+    // Switch from push to pull once frontier edges exceed 1 / ALPHA of the edges left to check
+    static final int ALPHA = 14;
+    // Switch back to push once the frontier holds less than 1 / BETA of the vertices
+    static final int BETA = 24;
+    // Bitset words handled by one parallel task in pull mode, 64 vertices each
+    private static final int WORDS_PER_TASK = 1024;
+
+    private CsrGraph snapshot;
+    private long[] triggered;
+    private long[] frontier;
+    private long[] next;
+    private int triggeredCount;
+    private int frontierCount;
+    // out-edges of frontier vertices (push work), in-edges of vertices not triggered yet (pull work)
+    private long frontierEdges;
+    private long untriggeredEdges;
+    private boolean pulling;
+    private Direction direction = Direction.AUTOMATIC;
+
+    // sensor ids, their bits over the snapshot and the first one triggered
+    private int[] sensorIds = new int[0];
+    private long[] sensors;
+    private Integer detectedSensor;
+    // lowest sensor index triggered by the step in progress
+    private final AtomicInteger stepSensor = new AtomicInteger(Integer.MAX_VALUE);
+
+    private final Set<Integer> allTriggeredView = new BitsetView(true);
+    private final Set<Integer> lastTriggeredView = new BitsetView(false);
+
+    /**
+     * Direction of the steps, picked by the size of the frontier unless fixed
+     */
+    enum Direction {
+        AUTOMATIC, PUSH, PULL
+    }
+
+    /**
+     * Any social spread requires target graph to work on
+     *
+     * @param graph target Graph
+     */
+    public BitsetSocialSpread(SocialGraph graph) {
+        super(graph);
+    }
+
+    /**
+     * Fix the direction of the following steps, for tests and measurements
+     */
+    void setDirection(Direction direction) {
+        this.direction = direction;
+    }
+
+    /**
+     * Decide if the spread passes along an edge in the current step. Called for edges
+     * from a frontier vertex to a non-triggered vertex, in push mode for all such edges,
+     * in pull mode until one of them triggers the target.
+     * With {@link #isParallel()} the method is called from several threads at once.
+     *
+     * @param source index of the frontier vertex in the snapshot
+     * @param target index of the non-triggered vertex in the snapshot
+     * @return True if the target gets triggered
+     */
+    protected abstract boolean tryActivate(int source, int target);
+
+    /**
+     * Whether pull steps may call {@link #tryActivate(int, int)} from several threads
+     *
+     * @return True by default
+     */
+    protected boolean isParallel() {
+        return true;
+    }
+
+    /**
+     * Called when the graph changed and the state was moved to a new snapshot,
+     * so subclasses can rebuild state of their own
+     *
+     * @param snapshot the new snapshot
+     */
+    protected void snapshotChanged(CsrGraph snapshot) {
+    }
+
+    /**
+     * Graph snapshot the state refers to, updated if the graph has changed
+     *
+     * @return current snapshot
+     */
+    protected CsrGraph getSnapshot() {
+        sync();
+        return snapshot;
+    }
+
+    /**
+     * Check if the vertex with the given snapshot index is triggered
+     */
+    protected boolean isTriggeredIndex(int index) {
+        return (triggered[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Check if the vertex with the given snapshot index was triggered in the last step
+     */
+    protected boolean isFrontierIndex(int index) {
+        return (frontier[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Stop the spread at the first of these vertices to get triggered. A sensor that is
+     * already in the frontier counts as detected right away, the lowest index first.
+     *
+     * @param sensors sensor vertices, null or empty for none
+     */
+    @Override
+    public void setSensors(Collection<Integer> sensors) {
+        sync();
+        sensorIds = sensors == null ? new int[0] : sensors.stream().mapToInt(Integer::intValue).toArray();
+        detectedSensor = null;
+        buildSensors();
+        if (this.sensors == null) return;
+        for (int word = 0; word < frontier.length; word++) {
+            long hits = frontier[word] & this.sensors[word];
+            if (hits != 0) {
+                detectedSensor = snapshot.getVertexId((word << 6) + Long.numberOfTrailingZeros(hits));
+                return;
+            }
+        }
+    }
+
+    private void buildSensors() {
+        if (sensorIds.length == 0) {
+            sensors = null;
+            return;
+        }
+        sensors = new long[triggered.length];
+        for (int vertex : sensorIds) {
+            int index = snapshot.indexOf(vertex);
+            if (index >= 0) sensors[index >>> 6] |= 1L << index;
+        }
+    }
+
+    private boolean isSensor(int index) {
+        return sensors != null && (sensors[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public Integer getDetectedSensor() {
+        return detectedSensor;
+    }
+
+    /**
+     * Process next generation of spread: compute it and make it the frontier.
+     * With sensors set, the generation ends at the lowest index sensor it triggers.
+     *
+     * @return True if any vertex got triggered, False once a sensor was detected
+     */
+    @Override
+    public boolean step() {
+        if (getAllTriggeredVertices().isEmpty())
+            throw new IllegalStateException("Nothing to spread - not initialized");
+        if (isCompleted() || detectedSensor != null) return false;
+
+        return advance();
+    }
+
+    private boolean advance() {
+        int n = snapshot.getNumVertices();
+        if (frontierCount == 0) return false;
+
+        if (direction != Direction.AUTOMATIC)
+            pulling = direction == Direction.PULL;
+        else if (!pulling && frontierEdges > untriggeredEdges / ALPHA)
+            pulling = true;
+        else if (pulling && frontierCount < n / BETA)
+            pulling = false;
+
+        Arrays.fill(next, 0);
+        int added = pulling ? pull() : push();
+        int sensor = stepSensor.getAndSet(Integer.MAX_VALUE);
+        if (sensor != Integer.MAX_VALUE) {
+            added -= dropAfter(sensor);
+            detectedSensor = snapshot.getVertexId(sensor);
+        }
+        if (added == 0) return false;
+
+        long[] swap = frontier;
+        frontier = next;
+        next = swap;
+        frontierCount = added;
+        triggeredCount += added;
+        frontierEdges = 0;
+        forEachSetBit(frontier, v -> {
+            frontierEdges += snapshot.getOutDegree(v);
+            untriggeredEdges -= snapshot.getInDegree(v);
+        });
+        this.currentStepNumber++;
+        return true;
+    }
+
+    // Once a sensor is triggered, only vertices of lower index are still tried
+    private int push() {
+        int[] offsets = snapshot.outOffsets;
+        int[] targets = snapshot.outTargets;
+        int added = 0;
+        int bound = Integer.MAX_VALUE;
+        for (int word = 0; word < frontier.length; word++) {
+            long value = frontier[word];
+            while (value != 0) {
+                int u = (word << 6) + Long.numberOfTrailingZeros(value);
+                value &= value - 1;
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    long bit = 1L << v;
+                    if (v < bound && (triggered[v >>> 6] & bit) == 0 && tryActivate(u, v)) {
+                        triggered[v >>> 6] |= bit;
+                        next[v >>> 6] |= bit;
+                        added++;
+                        if (isSensor(v)) bound = v;
+                    }
+                }
+            }
+        }
+        if (bound != Integer.MAX_VALUE) stepSensor.set(bound);
+        return added;
+    }
+
+    private int pull() {
+        int words = triggered.length;
+        int tasks = (words + WORDS_PER_TASK - 1) / WORDS_PER_TASK;
+        IntStream ranges = IntStream.range(0, tasks);
+        if (isParallel() && tasks > 1)
+            ranges = ranges.parallel();
+        return ranges.map(t -> pullWords(t * WORDS_PER_TASK, Math.min(words, (t + 1) * WORDS_PER_TASK))).sum();
+    }
+
+    // Take back the vertices of this step with a higher index than the sensor, push may have
+    // triggered them before reaching the sensor, pull tasks before they saw it
+    private int dropAfter(int sensor) {
+        int dropped = 0;
+        for (int word = sensor >>> 6; word < next.length; word++) {
+            long late = word == sensor >>> 6 ? next[word] & (-2L << sensor) : next[word];
+            if (late == 0) continue;
+            next[word] &= ~late;
+            triggered[word] &= ~late;
+            dropped += Long.bitCount(late);
+        }
+        return dropped;
+    }
+
+    // Pull into words [from, to) of the bitsets; tasks own their words, so no other task writes them.
+    // Stops at the first sensor triggered, or once a task found one at a lower index.
+    private int pullWords(int from, int to) {
+        int[] offsets = snapshot.inOffsets;
+        int[] sources = snapshot.inSources;
+        int n = snapshot.getNumVertices();
+        int added = 0;
+        for (int word = from; word < to; word++) {
+            if (sensors != null && stepSensor.get() < word << 6) break;
+            long candidates = ~triggered[word];
+            if (word == triggered.length - 1 && (n & 63) != 0)
+                candidates &= (1L << n) - 1;
+            while (candidates != 0) {
+                int v = (word << 6) + Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int u = sources[e];
+                    if ((frontier[u >>> 6] & (1L << u)) != 0 && tryActivate(u, v)) {
+                        triggered[word] |= 1L << v;
+                        next[word] |= 1L << v;
+                        added++;
+                        if (isSensor(v)) {
+                            stepSensor.accumulateAndGet(v, Math::min);
+                            return added;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Make sure the state matches the current snapshot of the graph,
+     * moving triggered vertices over to new indices if the graph has changed
+     */
+    private void sync() {
+        CsrGraph current = this.graph.getSnapshot();
+        if (current == snapshot) return;
+
+        CsrGraph previous = snapshot;
+        long[] previousTriggered = triggered;
+        long[] previousFrontier = frontier;
+        snapshot = current;
+        int words = (current.getNumVertices() + 63) >>> 6;
+        triggered = new long[words];
+        frontier = new long[words];
+        next = new long[words];
+        triggeredCount = 0;
+        frontierCount = 0;
+        frontierEdges = 0;
+        untriggeredEdges = current.getNumEdges();
+        pulling = false;
+
+        buildSensors();
+        if (previous != null) {
+            forEachSetBit(previousTriggered, v -> mark(current.indexOf(previous.getVertexId(v)), false));
+            forEachSetBit(previousFrontier, v -> mark(current.indexOf(previous.getVertexId(v)), true));
+        }
+        snapshotChanged(current);
+    }
+
+    private void mark(int index, boolean inFrontier) {
+        long bit = 1L << index;
+        if ((triggered[index >>> 6] & bit) == 0) {
+            triggered[index >>> 6] |= bit;
+            triggeredCount++;
+            untriggeredEdges -= snapshot.getInDegree(index);
+        }
+        if (inFrontier && (frontier[index >>> 6] & bit) == 0) {
+            frontier[index >>> 6] |= bit;
+            frontierCount++;
+            frontierEdges += snapshot.getOutDegree(index);
+            if (isSensor(index) && (detectedSensor == null || index < snapshot.indexOf(detectedSensor)))
+                detectedSensor = snapshot.getVertexId(index);
+        }
+    }
+
+    private static void forEachSetBit(long[] bits, IntConsumer action) {
+        for (int word = 0; word < bits.length; word++) {
+            long value = bits[word];
+            while (value != 0) {
+                action.accept((word << 6) + Long.numberOfTrailingZeros(value));
+                value &= value - 1;
+            }
+        }
+    }
+
+    private int indexOf(int vertex) {
+        sync();
+        int index = snapshot.indexOf(vertex);
+        if (index < 0)
+            throw new IllegalArgumentException(String.format("Requested vertex [%s]is not in graph", vertex));
+        return index;
+    }
+
+    @Override
+    public int getNumberOfTriggeredVertices() {
+        sync();
+        return triggeredCount;
+    }
+
+    @Override
+    public boolean isSpreadable() {
+        sync();
+        if (isCompleted() || frontierCount == 0) return false;
+        int[] offsets = snapshot.outOffsets;
+        int[] targets = snapshot.outTargets;
+        for (int word = 0; word < frontier.length; word++) {
+            long value = frontier[word];
+            while (value != 0) {
+                int u = (word << 6) + Long.numberOfTrailingZeros(value);
+                value &= value - 1;
+                for (int e = offsets[u]; e < offsets[u + 1]; e++)
+                    if (!isTriggeredIndex(targets[e])) return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<Integer> getNonTriggeredFriends(Integer vertex) {
+        sync();
+        int u = snapshot.indexOf(vertex);
+        if (u < 0) return Collections.emptyList();
+        List<Integer> result = new ArrayList<>();
+        snapshot.forEachOutNeighbor(u, v -> {
+            if (!isTriggeredIndex(v)) result.add(snapshot.getVertexId(v));
+        });
+        return result;
+    }
+
+    @Override
+    public boolean isVertexTriggered(int vertex) {
+        return isTriggeredIndex(indexOf(vertex));
+    }
+
+    @Override
+    public boolean isCompleted() {
+        sync();
+        return triggeredCount == snapshot.getNumVertices();
+    }
+
+    /**
+     * Get Set of all vertices that were affected by previous steps
+     *
+     * @return read-only view that follows the spread
+     */
+    @Override
+    public Set<Integer> getAllTriggeredVertices() {
+        return allTriggeredView;
+    }
+
+    /**
+     * Get Set of vertices that were affected by last step
+     *
+     * @return read-only view that follows the spread
+     */
+    @Override
+    public Set<Integer> getLastTriggeredVertices() {
+        return lastTriggeredView;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.detectedSensor = null;
+        if (snapshot == null) return;
+        // keep the arrays for the next run on the same snapshot
+        Arrays.fill(triggered, 0);
+        Arrays.fill(frontier, 0);
+        triggeredCount = 0;
+        frontierCount = 0;
+        frontierEdges = 0;
+        untriggeredEdges = snapshot.getNumEdges();
+        pulling = false;
+    }
+
+    @Override
+    public void setStartingPoint(int vertex) {
+        mark(indexOf(vertex), true);
+    }
+
+    /**
+     * Read-only set of vertex ids backed by the triggered or the frontier bitset
+     */
+    private class BitsetView extends AbstractSet<Integer> {
+        private final boolean all;
+
+        BitsetView(boolean all) {
+            this.all = all;
+        }
+
+        private long[] bits() {
+            sync();
+            return all ? triggered : frontier;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Integer)) return false;
+            long[] bits = bits();
+            int index = snapshot.indexOf((Integer) o);
+            return index >= 0 && (bits[index >>> 6] & (1L << index)) != 0;
+        }
+
+        @Override
+        public int size() {
+            sync();
+            return all ? triggeredCount : frontierCount;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            long[] bits = bits();
+            CsrGraph graph = snapshot;
+            return new Iterator<Integer>() {
+                private int word = -1;
+                private long value;
+
+                @Override
+                public boolean hasNext() {
+                    while (value == 0 && word + 1 < bits.length)
+                        value = bits[++word];
+                    return value != 0;
+                }
+
+                @Override
+                public Integer next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    int index = (word << 6) + Long.numberOfTrailingZeros(value);
+                    value &= value - 1;
+                    return graph.getVertexId(index);
+                }
+            };
+        }
+    }
+}
@@ -18,6 +18,14 @@ public class CapGraph implements Graph {
     private final HashSet<Integer> vertices = new HashSet<>();
     private final HashMap<Integer, HashSet<Integer>> edges = new HashMap<>();
 
+    // bumped on every change of vertices or edges, tells when the snapshot is stale
+    private int version;
+    // the snapshot and the version it was built at, read without locking
+    private volatile CsrGraph snapshot;
+    private volatile int snapshotVersion;
+    // kept while added edges don't change what reaches what, dropped otherwise
+    private ReachabilityIndex reachability;
+
     /**
      * Add new vertex to the graph
      *
@@ -25,7 +33,10 @@ public class CapGraph implements Graph {
      */
     @Override
     public void addVertex(int num) {
-        vertices.add(num);
+        if (vertices.add(num)) {
+            version++;
+            reachability = null;
+        }
 
     }
 
@@ -40,10 +51,44 @@ public class CapGraph implements Graph {
         addVertex(from);
         addVertex(to);
         HashSet<Integer> toVertices = edges.getOrDefault(from, new HashSet<>());
-        toVertices.add(to);
+        if (toVertices.add(to)) {
+            version++;
+            // an edge to a vertex already reachable from its source connects nothing new
+            if (reachability != null && !reachability.canReach(from, to))
+                reachability = null;
+        }
         edges.put(from, toVertices);
     }
 
+    /**
+     * Immutable CSR copy of the graph for algorithms working on dense int indices.
+     * The copy is cached and only rebuilt after vertices or edges were added
+     * through addVertex / addEdge.
+     * An up to date copy is returned without locking, so spreads running in parallel
+     * don't wait on each other.
+     *
+     * @return CsrGraph with the current vertices and edges
+     */
+    public CsrGraph getSnapshot() {
+        // version before snapshot: it's written after the snapshot it belongs to
+        int built = snapshotVersion;
+        CsrGraph current = snapshot;
+        if (current != null && built == version) return current;
+        return buildSnapshot();
+    }
+
+    private synchronized CsrGraph buildSnapshot() {
+        if (snapshot == null || snapshotVersion != version) {
+            CsrGraph.Builder builder = new CsrGraph.Builder();
+            for (Integer vertex : vertices)
+                builder.addVertex(vertex);
+            edges.forEach((from, toVertices) -> toVertices.forEach(to -> builder.addEdge(from, to)));
+            snapshot = builder.build();
+            snapshotVersion = version;
+        }
+        return snapshot;
+    }
+
     /**
      * Check if vertex is in the graph
      *
@@ -109,10 +154,10 @@ public class CapGraph implements Graph {
         if (!containsVertex(center)) return egonet;
 
         egonet.addVertex(center);
-        edges.get(center).forEach(vertex -> egonet.addEdge(center, vertex));
+        getNeighbors(center).forEach(vertex -> egonet.addEdge(center, vertex));
 
         for (Integer egoVertex : egonet.getVertices()) {
-            for (Integer vertex : edges.get(egoVertex)) {
+            for (Integer vertex : getNeighbors(egoVertex)) {
                 if (egonet.containsVertex(vertex))
                     egonet.addEdge(egoVertex, vertex);
             }
@@ -123,70 +168,83 @@ public class CapGraph implements Graph {
 
 
     /**
-     * Returns all of the strongly connected components in the Graph as a list of subgraphs
+     * Returns all of the strongly connected components in the Graph as a list of subgraphs.
+     * Components are found by iterative Tarjan (or parallel forward-backward on big graphs)
+     * over a CSR copy of the graph; each subgraph is built when it is read from the list.
      *
      * @return List of strongly connected graphs
      */
     @Override
     public List<Graph> getSCCs() {
-        List<Graph> result = new ArrayList<>();
-
-        // DFS traverse graph for the first time
-        HashSet<Integer> visited = new HashSet<>();
-        Stack<Integer> finished = new Stack<>();
-
-        for (Integer vertex : getVertices())
-            if (!visited.contains(vertex))
-                dfsVisit(this, vertex, visited, finished);
-
-        // transpose graph edges
-        CapGraph transposedGraph = getTransposedGraph();
-
-        // DFS graph in reverse order
-        visited = new HashSet<>();
-        Stack<Integer> finishedForReverse = new Stack<>();
-
-        while (!finished.empty()) {
-            Integer vertex = finished.pop();
-            if (!visited.contains(vertex))
-                dfsVisit(transposedGraph, vertex, visited, finishedForReverse);
-            if (!finishedForReverse.empty()) {
-                result.add(getSubGraphForVertices(new ArrayList<>(finishedForReverse)));
-                finishedForReverse.removeAllElements();
+        StronglyConnectedComponents components = StronglyConnectedComponents.of(getSnapshot());
+
+        return new AbstractList<Graph>() {
+            @Override
+            public Graph get(int index) {
+                if (index < 0 || index >= size())
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+                HashSet<Integer> vertices = new HashSet<>();
+                for (int vertex : components.getMemberIds(index))
+                    vertices.add(vertex);
+                return getSubGraphForVertices(vertices);
             }
-        }
 
-        return result;
+            @Override
+            public int size() {
+                return components.getNumComponents();
+            }
+        };
     }
 
+    /**
+     * Communities of the graph by Louvain modularity optimisation, ignoring edge directions
+     *
+     * @return community of every vertex of the current snapshot
+     */
+    public Communities getCommunities() {
+        return Communities.louvain(getSnapshot());
+    }
 
     /**
-     * Helper method to process visiting a vertex recursively in depth first search sequence
-     * Same method is called for each neighbor of the visited vertex
-     *
-     * @param graph graph for traversal
-     * @param vertex vertex to be visited
-     * @param visited set of visited vertices so far
-     * @param finished stack for tracking already processed vertices
-     */
-    private void dfsVisit(CapGraph graph, Integer vertex, HashSet<Integer> visited, Stack<Integer> finished) {
-        visited.add(vertex);
-        for (Integer edgeVertex : graph.getNeighbors(vertex)) {
-            if (!visited.contains(edgeVertex)) {
-                dfsVisit(graph, edgeVertex, visited, finished);
-            }
-        }
-        finished.push(vertex);
+     * Reachability index of the graph, built on first use. It survives new edges between
+     * vertices where the source already reaches the target, and is rebuilt after other changes.
+     *
+     * @return index answering canReach queries, see {@link ReachabilityIndex}
+     */
+    public synchronized ReachabilityIndex getReachabilityIndex() {
+        if (reachability == null)
+            reachability = ReachabilityIndex.of(getSnapshot());
+        return reachability;
+    }
+
+    /**
+     * Check if there is a path from one vertex to another
+     *
+     * @param from source vertex
+     * @param to   target vertex
+     * @return True if from reaches to, every vertex reaches itself
+     */
+    public boolean canReach(int from, int to) {
+        return getReachabilityIndex().canReach(from, to);
+    }
+
+    /**
+     * Distance statistics of the graph: exact for small graphs, estimated by HyperANF for big ones
+     *
+     * @return hop plot, diameter and average path length of the current snapshot
+     */
+    public PathStatistics getPathStatistics() {
+        return PathStatistics.of(getSnapshot());
     }
 
     /**
-     * Helper method to extract a subgraph given list of vertices
+     * Helper method to extract a subgraph given set of vertices
      * Only common edges are preserved
      *
-     * @param vertices List of vertices to be extracted
+     * @param vertices Set of vertices to be extracted
      * @return new subgraph based on submitted vertices
      */
-    private CapGraph getSubGraphForVertices(List<Integer> vertices) {
+    private CapGraph getSubGraphForVertices(Set<Integer> vertices) {
         CapGraph subGraph = new CapGraph();
         for (Integer vertex : vertices) {
             subGraph.addVertex(vertex);
@@ -0,0 +1,77 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Created by Alex Filatau.
+ * A score for every vertex of a {@link CsrGraph}, higher meaning more central.
+ * Scores are kept by vertex index of the graph.
+ */
+public class CentralityScores {
+    private final CsrGraph graph;
+    private final double[] scores;
+
+    CentralityScores(CsrGraph graph, double[] scores) {
+        this.graph = graph;
+        this.scores = scores;
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Score of a vertex
+     *
+     * @param vertex vertex id
+     * @return the score
+     */
+    public double getScore(int vertex) {
+        int index = graph.indexOf(vertex);
+        if (index < 0)
+            throw new IllegalArgumentException(String.format("Vertex [%s] is not in graph", vertex));
+        return scores[index];
+    }
+
+    /**
+     * Scores of all vertices
+     *
+     * @return copy of the scores, element i belongs to the vertex with index i in the graph
+     */
+    public double[] getScores() {
+        return scores.clone();
+    }
+
+    /**
+     * Returns specified number (at most) of vertices sorted descending by score,
+     * vertices of equal score by id
+     *
+     * @param numVertices number of vertices to return
+     * @return List of top vertices by score
+     */
+    public List<Integer> getTopVertices(int numVertices) {
+        int count = Math.max(0, Math.min(numVertices, scores.length));
+        // keep the best count vertices in a heap with the weakest on top
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(1, count), (a, b) -> compare(b, a));
+        for (int v = 0; v < scores.length && count > 0; v++) {
+            if (best.size() < count) best.add(v);
+            else if (compare(v, best.peek()) < 0) {
+                best.poll();
+                best.add(v);
+            }
+        }
+        List<Integer> result = new ArrayList<>(best);
+        result.sort(this::compare);
+        for (int i = 0; i < result.size(); i++)
+            result.set(i, graph.getVertexId(result.get(i)));
+        return result;
+    }
+
+    // negative if vertex a ranks before vertex b
+    private int compare(int a, int b) {
+        int byScore = Double.compare(scores[b], scores[a]);
+        return byScore != 0 ? byScore : Integer.compare(a, b);
+    }
+}
@@ -0,0 +1,511 @@
+package graph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * Communities of a {@link CsrGraph}, stored as one community id per vertex index.
+ * Edge directions are ignored and repeated or reciprocal edges count once.
+ * <p>
+ * Two ways to find them:
+ * <ul>
+ * <li>{@link #labelPropagation} - every vertex repeatedly takes the label most of its neighbors
+ * have. Rounds run in parallel; in each round only a random half of the vertices update,
+ * from the labels of the previous round, so results don't depend on threads and labels
+ * don't oscillate between two sides of a bipartite part.</li>
+ * <li>{@link #louvain} - greedy modularity optimisation by Blondel et al.: vertices move
+ * to the neighboring community with the best modularity gain, then communities are
+ * merged into single vertices and the process repeats on the smaller graph.</li>
+ * </ul>
+ * Community ids are 0 .. getNumCommunities() - 1, numbered in order of their lowest vertex index.
+ * Members and subgraphs of communities are only built when asked for.
+ */
+public class Communities {
+
+    // Label propagation stops once fewer than this share of vertices change labels in a round
+    static final double MIN_CHANGE = 1e-4;
+    public static final int DEFAULT_MAX_ROUNDS = 50;
+    // Louvain stops moving vertices once a pass improves modularity by less than this
+    static final double MIN_GAIN = 1e-7;
+    // Number of ranges per worker thread
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final CsrGraph graph;
+    private final int[] communityOf;
+    private final int numCommunities;
+    private final double modularity;
+
+    // vertex indices grouped by community, built on first use
+    private int[] memberOffsets;
+    private int[] members;
+
+    private Communities(CsrGraph graph, CsrGraph.UndirectedAdjacency adjacency, int[] labels) {
+        this.graph = graph;
+        this.communityOf = labels;
+        this.numCommunities = renumber(labels);
+        this.modularity = modularity(adjacency, labels, numCommunities);
+    }
+
+    /**
+     * Label propagation with a fixed seed on the common fork/join pool
+     *
+     * @param graph target graph
+     * @return communities of the graph
+     */
+    public static Communities labelPropagation(CsrGraph graph) {
+        return labelPropagation(graph, 1, DEFAULT_MAX_ROUNDS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Label propagation until labels settle or maxRounds rounds have run
+     *
+     * @param graph     target graph
+     * @param seed      seed choosing which vertices update in which round
+     * @param maxRounds rounds after which labels are taken as they are
+     * @param pool      pool to run on
+     * @return communities of the graph
+     */
+    public static Communities labelPropagation(CsrGraph graph, long seed, int maxRounds, ForkJoinPool pool) {
+        int n = graph.getNumVertices();
+        CsrGraph.UndirectedAdjacency adjacency = graph.getUndirectedAdjacency();
+        int[] labels = new int[n];
+        for (int v = 0; v < n; v++)
+            labels[v] = v;
+        int[] next = new int[n];
+        int[] ranges = EgonetStatistics.splitByEdges(adjacency.offsets, pool.getParallelism() * RANGES_PER_THREAD);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        for (int round = 0; round < maxRounds; round++) {
+            long roundSeed = random.nextLong();
+            int[] current = labels;
+            int[] target = next;
+            int changed = pool.submit(() -> IntStream.range(0, ranges.length - 1).parallel()
+                    .map(r -> propagate(adjacency, current, target, roundSeed, ranges[r], ranges[r + 1]))
+                    .sum()).join();
+            labels = next;
+            next = current;
+            if (changed <= n * MIN_CHANGE) break;
+        }
+        return new Communities(graph, adjacency, labels);
+    }
+
+    // Update labels of vertices [from, to) picked for this round, return how many changed
+    private static int propagate(CsrGraph.UndirectedAdjacency adjacency, int[] labels, int[] next,
+                                 long roundSeed, int from, int to) {
+        int changed = 0;
+        // neighbor labels of one vertex, sorted to count runs
+        int[] scratch = new int[16];
+        for (int v = from; v < to; v++) {
+            next[v] = labels[v];
+            int start = adjacency.offsets[v];
+            int degree = adjacency.getDegree(v);
+            if (degree == 0 || (mix(roundSeed + v) & 1) == 0) continue;
+
+            if (scratch.length < degree) scratch = new int[Math.max(degree, scratch.length * 2)];
+            for (int i = 0; i < degree; i++)
+                scratch[i] = labels[adjacency.neighbors[start + i]];
+            Arrays.sort(scratch, 0, degree);
+
+            // most frequent label, keeping the own label on a tie, else the smallest one
+            int best = labels[v];
+            int bestCount = 0;
+            int ownCount = 0;
+            for (int i = 0; i < degree; ) {
+                int j = i;
+                while (j < degree && scratch[j] == scratch[i])
+                    j++;
+                if (scratch[i] == labels[v]) ownCount = j - i;
+                if (j - i > bestCount) {
+                    best = scratch[i];
+                    bestCount = j - i;
+                }
+                i = j;
+            }
+            if (ownCount == bestCount) best = labels[v];
+            if (best != labels[v]) {
+                next[v] = best;
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Louvain with a fixed seed
+     *
+     * @param graph target graph
+     * @return communities of the graph
+     */
+    public static Communities louvain(CsrGraph graph) {
+        return louvain(graph, 1);
+    }
+
+    /**
+     * Louvain until no move or merge improves modularity
+     *
+     * @param graph target graph
+     * @param seed  seed of the order vertices are visited in
+     * @return communities of the graph
+     */
+    public static Communities louvain(CsrGraph graph, long seed) {
+        int n = graph.getNumVertices();
+        CsrGraph.UndirectedAdjacency adjacency = graph.getUndirectedAdjacency();
+        int[] labels = new int[n];
+        for (int v = 0; v < n; v++)
+            labels[v] = v;
+
+        Level level = new Level(adjacency);
+        SplittableRandom random = new SplittableRandom(seed);
+        while (true) {
+            int[] community = level.moveVertices(random);
+            int count = renumber(community);
+            if (count == level.n) break;
+            for (int v = 0; v < n; v++)
+                labels[v] = community[labels[v]];
+            level = level.aggregate(community, count);
+        }
+        return new Communities(graph, adjacency, labels);
+    }
+
+    /**
+     * Weighted undirected graph of one Louvain level, vertices of a level being
+     * the communities of the level below
+     */
+    private static class Level {
+        private final int n;
+        private final int[] offsets;
+        private final int[] neighbors;
+        private final double[] weights;
+        // weight of the loop on each vertex, the edges inside a merged community
+        private final double[] loops;
+        // weighted degree, loops counted twice
+        private final double[] degrees;
+        // twice the total edge weight
+        private final double totalWeight;
+
+        Level(CsrGraph.UndirectedAdjacency adjacency) {
+            this(adjacency.offsets, adjacency.neighbors, filled(adjacency.neighbors.length),
+                    new double[adjacency.offsets.length - 1]);
+        }
+
+        private static double[] filled(int length) {
+            double[] ones = new double[length];
+            Arrays.fill(ones, 1);
+            return ones;
+        }
+
+        Level(int[] offsets, int[] neighbors, double[] weights, double[] loops) {
+            this.n = offsets.length - 1;
+            this.offsets = offsets;
+            this.neighbors = neighbors;
+            this.weights = weights;
+            this.loops = loops;
+            this.degrees = new double[n];
+            double total = 0;
+            for (int v = 0; v < n; v++) {
+                double degree = 2 * loops[v];
+                for (int e = offsets[v]; e < offsets[v + 1]; e++)
+                    degree += weights[e];
+                degrees[v] = degree;
+                total += degree;
+            }
+            this.totalWeight = total;
+        }
+
+        /**
+         * Move vertices between communities in random order until a pass gains too little
+         *
+         * @return community of every vertex, not numbered densely
+         */
+        int[] moveVertices(SplittableRandom random) {
+            int[] community = new int[n];
+            double[] communityDegree = degrees.clone();
+            for (int v = 0; v < n; v++)
+                community[v] = v;
+            if (totalWeight == 0) return community;
+
+            int[] order = new int[n];
+            for (int v = 0; v < n; v++)
+                order[v] = v;
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+
+            // weight from the current vertex to each neighboring community
+            double[] linkWeight = new double[n];
+            int[] linked = new int[n];
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                double gain = 0;
+                for (int v : order) {
+                    int own = community[v];
+                    int numLinked = 0;
+                    linked[numLinked++] = own;
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        int c = community[neighbors[e]];
+                        if (linkWeight[c] == 0 && c != own) linked[numLinked++] = c;
+                        linkWeight[c] += weights[e];
+                    }
+
+                    // take v out, then put it where it links best relative to the community size
+                    communityDegree[own] -= degrees[v];
+                    int best = own;
+                    double bestGain = linkWeight[own] - communityDegree[own] * degrees[v] / totalWeight;
+                    double ownGain = bestGain;
+                    for (int i = 1; i < numLinked; i++) {
+                        int c = linked[i];
+                        double candidate = linkWeight[c] - communityDegree[c] * degrees[v] / totalWeight;
+                        if (candidate > bestGain) {
+                            best = c;
+                            bestGain = candidate;
+                        }
+                    }
+                    communityDegree[best] += degrees[v];
+                    if (best != own) {
+                        community[v] = best;
+                        gain += bestGain - ownGain;
+                    }
+                    for (int i = 0; i < numLinked; i++)
+                        linkWeight[linked[i]] = 0;
+                }
+                moved = 2 * gain / totalWeight > MIN_GAIN;
+            }
+            return community;
+        }
+
+        /**
+         * Merge every community into one vertex of the next level
+         *
+         * @param community dense community id of every vertex
+         * @param count     number of communities
+         * @return the next level
+         */
+        Level aggregate(int[] community, int count) {
+            int[] memberOffsets = new int[count + 1];
+            for (int v = 0; v < n; v++)
+                memberOffsets[community[v] + 1]++;
+            for (int c = 0; c < count; c++)
+                memberOffsets[c + 1] += memberOffsets[c];
+            int[] grouped = new int[n];
+            int[] position = Arrays.copyOf(memberOffsets, count);
+            for (int v = 0; v < n; v++)
+                grouped[position[community[v]]++] = v;
+
+            int[] nextOffsets = new int[count + 1];
+            int[] nextNeighbors = new int[neighbors.length];
+            double[] nextWeights = new double[neighbors.length];
+            double[] nextLoops = new double[count];
+            double[] linkWeight = new double[count];
+            boolean[] isLinked = new boolean[count];
+            int size = 0;
+            for (int c = 0; c < count; c++) {
+                nextOffsets[c] = size;
+                for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+                    int v = grouped[i];
+                    nextLoops[c] += loops[v];
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        int d = community[neighbors[e]];
+                        if (d == c) {
+                            // seen from both ends
+                            nextLoops[c] += weights[e] / 2;
+                            continue;
+                        }
+                        if (!isLinked[d]) {
+                            isLinked[d] = true;
+                            nextNeighbors[size++] = d;
+                        }
+                        linkWeight[d] += weights[e];
+                    }
+                }
+                for (int e = nextOffsets[c]; e < size; e++) {
+                    int d = nextNeighbors[e];
+                    nextWeights[e] = linkWeight[d];
+                    linkWeight[d] = 0;
+                    isLinked[d] = false;
+                }
+            }
+            nextOffsets[count] = size;
+            return new Level(nextOffsets, Arrays.copyOf(nextNeighbors, size), Arrays.copyOf(nextWeights, size),
+                    nextLoops);
+        }
+    }
+
+    /**
+     * Replace labels by ids 0 .. count - 1, in order of first appearance
+     *
+     * @return number of distinct labels
+     */
+    private static int renumber(int[] labels) {
+        int[] id = new int[labels.length];
+        Arrays.fill(id, -1);
+        int count = 0;
+        for (int v = 0; v < labels.length; v++) {
+            if (id[labels[v]] < 0) id[labels[v]] = count++;
+            labels[v] = id[labels[v]];
+        }
+        return count;
+    }
+
+    /**
+     * Modularity of a partition: the share of edges inside communities minus the share
+     * expected if edges were placed at random keeping degrees
+     */
+    private static double modularity(CsrGraph.UndirectedAdjacency adjacency, int[] communityOf, int numCommunities) {
+        int n = communityOf.length;
+        double totalWeight = adjacency.offsets[n];
+        if (totalWeight == 0) return 0;
+        double[] inside = new double[numCommunities];
+        double[] degree = new double[numCommunities];
+        for (int v = 0; v < n; v++) {
+            int c = communityOf[v];
+            degree[c] += adjacency.getDegree(v);
+            for (int e = adjacency.offsets[v]; e < adjacency.offsets[v + 1]; e++)
+                if (communityOf[adjacency.neighbors[e]] == c) inside[c]++;
+        }
+        double result = 0;
+        for (int c = 0; c < numCommunities; c++)
+            result += inside[c] / totalWeight - (degree[c] / totalWeight) * (degree[c] / totalWeight);
+        return result;
+    }
+
+    /**
+     * Modularity of any assignment of vertices to communities
+     *
+     * @param graph       target graph
+     * @param communityOf community id of every vertex index, ids between 0 and the number of vertices
+     * @return modularity between -1/2 and 1
+     */
+    public static double modularity(CsrGraph graph, int[] communityOf) {
+        int numCommunities = 0;
+        for (int c : communityOf)
+            numCommunities = Math.max(numCommunities, c + 1);
+        return modularity(graph.getUndirectedAdjacency(), communityOf, numCommunities);
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int getNumCommunities() {
+        return numCommunities;
+    }
+
+    /**
+     * Modularity of the communities, higher when more edges fall inside communities
+     */
+    public double getModularity() {
+        return modularity;
+    }
+
+    /**
+     * Community id of a vertex
+     *
+     * @param index index of the vertex in the graph
+     * @return id of the community the vertex belongs to
+     */
+    public int getCommunity(int index) {
+        return communityOf[index];
+    }
+
+    /**
+     * Community ids of all vertices
+     *
+     * @return copy of the array, element i is the community of the vertex with index i
+     */
+    public int[] getCommunityIds() {
+        return communityOf.clone();
+    }
+
+    /**
+     * Vertices of a community
+     *
+     * @param community community id
+     * @return sorted indices of the vertices in the community
+     */
+    public int[] getMembers(int community) {
+        groupMembers();
+        return Arrays.copyOfRange(members, memberOffsets[community], memberOffsets[community + 1]);
+    }
+
+    /**
+     * Vertices of a community
+     *
+     * @param community community id
+     * @return ids of the vertices in the community
+     */
+    public int[] getMemberIds(int community) {
+        int[] result = getMembers(community);
+        for (int i = 0; i < result.length; i++)
+            result[i] = graph.getVertexId(result[i]);
+        return result;
+    }
+
+    /**
+     * Communities as subgraphs. Each subgraph is created when it is read from the list.
+     *
+     * @return read-only list with one induced subgraph per community
+     */
+    public List<Graph> asGraphs() {
+        return new AbstractList<Graph>() {
+            @Override
+            public Graph get(int community) {
+                if (community < 0 || community >= numCommunities)
+                    throw new IndexOutOfBoundsException("Index: " + community + ", Size: " + numCommunities);
+                return graph.getInducedSubgraph(getMembers(community));
+            }
+
+            @Override
+            public int size() {
+                return numCommunities;
+            }
+        };
+    }
+
+    /**
+     * Export a community in the format of {@link Graph#exportGraph()}
+     *
+     * @param community community id
+     * @return vertices of the community and their edges inside it
+     */
+    public HashMap<Integer, HashSet<Integer>> exportCommunity(int community) {
+        return asGraphs().get(community).exportGraph();
+    }
+
+    private synchronized void groupMembers() {
+        if (members != null) return;
+        int[] offsets = new int[numCommunities + 1];
+        for (int community : communityOf)
+            offsets[community + 1]++;
+        for (int c = 0; c < numCommunities; c++)
+            offsets[c + 1] += offsets[c];
+        int[] grouped = new int[communityOf.length];
+        int[] position = Arrays.copyOf(offsets, numCommunities);
+        for (int v = 0; v < communityOf.length; v++)
+            grouped[position[communityOf[v]]++] = v;
+        memberOffsets = offsets;
+        members = grouped;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Communities{communities=%d, modularity=%.4f}", numCommunities, modularity);
+    }
+}
@@ -0,0 +1,88 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class CommunitiesTest {
+
+    // cliques 1..5 and 11..15 joined by the edge 5 -> 11
+    private static CsrGraph twoCliques() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        for (int offset = 0; offset <= 10; offset += 10)
+            for (int a = 1; a <= 5; a++)
+                for (int b = a + 1; b <= 5; b++)
+                    builder.addEdge(offset + a, offset + b);
+        return builder.addEdge(5, 11).build();
+    }
+
+    @Test
+    public void louvainShouldSplitCliques() {
+        Communities communities = Communities.louvain(twoCliques());
+
+        assertEquals(2, communities.getNumCommunities());
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, communities.getMemberIds(0));
+        assertArrayEquals(new int[]{11, 12, 13, 14, 15}, communities.getMemberIds(1));
+        // 10 of 21 edges inside each, degree sums 21 of 42
+        assertEquals(2 * (10.0 / 21 - 0.25), communities.getModularity(), 1e-12);
+    }
+
+    @Test
+    public void labelPropagationShouldSplitCliques() {
+        Communities communities = Communities.labelPropagation(twoCliques());
+
+        assertEquals(2, communities.getNumCommunities());
+        assertEquals(communities.getCommunity(0), communities.getCommunity(4));
+        assertNotEquals(communities.getCommunity(4), communities.getCommunity(5));
+    }
+
+    @Test
+    public void communitiesShouldExportAsSubgraphs() {
+        Communities communities = Communities.louvain(twoCliques());
+        HashMap<Integer, HashSet<Integer>> exported = communities.exportCommunity(1);
+
+        assertEquals(5, exported.size());
+        assertEquals(new HashSet<>(Arrays.asList(12, 13, 14, 15)), exported.get(11));
+        assertTrue(exported.get(15).isEmpty());
+        assertEquals(2, communities.asGraphs().size());
+    }
+
+    @Test
+    public void modularityShouldMatchForAnyAssignment() {
+        CsrGraph graph = twoCliques();
+        Communities communities = Communities.louvain(graph);
+
+        assertEquals(communities.getModularity(), Communities.modularity(graph, communities.getCommunityIds()), 1e-12);
+        assertEquals(0, Communities.modularity(graph, new int[graph.getNumVertices()]), 1e-12);
+    }
+
+    @Test
+    public void bothMethodsShouldFindStructureInRealGraph() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        GraphLoader.loadGraph(builder, "data/facebook_1000.txt");
+        CsrGraph graph = builder.build();
+
+        Communities louvain = Communities.louvain(graph);
+        Communities propagation = Communities.labelPropagation(graph, 3, Communities.DEFAULT_MAX_ROUNDS,
+                ForkJoinPool.commonPool());
+        assertTrue(louvain.getModularity() > 0.3);
+        assertTrue(louvain.getModularity() >= propagation.getModularity());
+        assertTrue(propagation.getModularity() > 0);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertArrayEquals(propagation.getCommunityIds(), Communities.labelPropagation(graph, 3,
+                    Communities.DEFAULT_MAX_ROUNDS, pool).getCommunityIds());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,750 @@
+package graph;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Created by Alex Filatau.
+ * Immutable directed graph with compressed adjacency lists, in the spirit of WebGraph
+ * (Boldi and Vigna): social graphs have many similar friend lists and friends with close ids,
+ * so lists are coded against each other and as small gaps.
+ * <p>
+ * Vertices get dense indices in ascending id order, like in {@link CsrGraph}. The sorted
+ * out-list of every vertex is written to a bit stream as
+ * <ul>
+ * <li>out-degree, gamma coded</li>
+ * <li>reference: distance back to one of the previous {@link #WINDOW} lists it copies from,
+ * 0 for none; the one that makes the code shortest is picked</li>
+ * <li>copy blocks: alternating run lengths of copied and skipped entries of the referenced list</li>
+ * <li>residuals: entries not copied, the first as a signed gap from the vertex itself,
+ * the others as gaps from the previous one, all zeta_3 coded</li>
+ * </ul>
+ * References chain at most {@link #MAX_REFERENCE_CHAIN} lists deep, which bounds the cost of
+ * decoding one list. The start of every list is kept in an offset table for random access;
+ * {@link #forEachAdjacency(AdjacencyVisitor)} walks all lists in order and reuses the lists
+ * it has just decoded instead.
+ * <p>
+ * {@link #save(Path)} writes the graph to a file that {@link #load(Path)} maps into memory,
+ * so offsets and the bit stream are paged in by the OS and don't have to fit on the heap.
+ * Only the vertex ids, 4 bytes per vertex, are read into an array.
+ */
+public class CompressedGraph implements Graph {
+
+    // Number of previous lists a list may copy from
+    static final int WINDOW = 7;
+    // Longest chain of references followed to decode a list
+    static final int MAX_REFERENCE_CHAIN = 3;
+    // Parameter of the zeta code for gaps
+    private static final int ZETA_K = 3;
+
+    private static final int MAGIC = 0x43475246;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    // Mapped files are split into chunks, a single mapping can't exceed 2GB
+    private static final int CHUNK_SHIFT = 27;
+    private static final long CHUNK_WORDS = 1L << CHUNK_SHIFT;
+
+    private final int[] vertexIds;
+    private final long numEdges;
+    // bit position of every list in the stream, n + 1 entries
+    private final Words offsets;
+    private final Words stream;
+    private final long streamWords;
+
+    private CompressedGraph(int[] vertexIds, long numEdges, Words offsets, Words stream, long streamWords) {
+        this.vertexIds = vertexIds;
+        this.numEdges = numEdges;
+        this.offsets = offsets;
+        this.stream = stream;
+        this.streamWords = streamWords;
+    }
+
+    /**
+     * Visitor of whole adjacency lists, see {@link #forEachAdjacency(AdjacencyVisitor)}
+     */
+    public interface AdjacencyVisitor {
+        /**
+         * @param index     index of the vertex
+         * @param neighbors sorted indices of its out-neighbors
+         */
+        void visit(int index, int[] neighbors);
+    }
+
+    /**
+     * Compress a graph
+     *
+     * @param graph source graph
+     * @return compressed copy of the graph
+     */
+    public static CompressedGraph fromGraph(Graph graph) {
+        if (graph instanceof CompressedGraph)
+            return (CompressedGraph) graph;
+        return of(CsrGraph.fromGraph(graph));
+    }
+
+    /**
+     * Compress a CsrGraph, keeping its vertex indices
+     *
+     * @param graph source graph
+     * @return compressed copy of the graph
+     */
+    public static CompressedGraph of(CsrGraph graph) {
+        int n = graph.getNumVertices();
+        BitWriter writer = new BitWriter();
+        long[] offsets = new long[n + 1];
+        int[] chain = new int[n];
+
+        for (int v = 0; v < n; v++) {
+            offsets[v] = writer.position;
+            int from = graph.outOffsets[v];
+            int to = graph.outOffsets[v + 1];
+            int[] list = Arrays.copyOfRange(graph.outTargets, from, to);
+
+            int bestReference = 0;
+            long bestCost = Long.MAX_VALUE;
+            for (int r = 0; r <= WINDOW && r <= v && !(r > 0 && list.length == 0); r++) {
+                if (r > 0 && (chain[v - r] >= MAX_REFERENCE_CHAIN || graph.getOutDegree(v - r) == 0)) continue;
+                int[] reference = r == 0 ? null : Arrays.copyOfRange(graph.outTargets,
+                        graph.outOffsets[v - r], graph.outOffsets[v - r + 1]);
+                long cost = encode(null, v, list, r, reference);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestReference = r;
+                }
+            }
+            int[] reference = bestReference == 0 ? null : Arrays.copyOfRange(graph.outTargets,
+                    graph.outOffsets[v - bestReference], graph.outOffsets[v - bestReference + 1]);
+            encode(writer, v, list, bestReference, reference);
+            chain[v] = bestReference == 0 ? 0 : chain[v - bestReference] + 1;
+        }
+        offsets[n] = writer.position;
+
+        long[] words = Arrays.copyOf(writer.words, (int) ((writer.position + 63) >>> 6));
+        return new CompressedGraph(graph.vertexIds.clone(), graph.getNumEdges(),
+                new Words(offsets), new Words(words), words.length);
+    }
+
+    /**
+     * Write one list, or just count its bits
+     *
+     * @param writer    target stream, null to only count
+     * @param v         index of the vertex
+     * @param list      sorted out-neighbors
+     * @param r         distance back to the referenced list, 0 for none
+     * @param reference sorted referenced list, null if r is 0
+     * @return number of bits of the code
+     */
+    private static long encode(BitWriter writer, int v, int[] list, int r, int[] reference) {
+        long bits = gamma(writer, list.length + 1);
+        if (list.length == 0) return bits;
+        bits += gamma(writer, r + 1);
+
+        int[] residuals = list;
+        if (r > 0) {
+            // runs of copied / skipped entries, the last run is implied by the reference length
+            int[] runs = new int[reference.length + 1];
+            int numRuns = 0;
+            int run = 0;
+            boolean copying = true;
+            residuals = new int[list.length];
+            int numResiduals = 0;
+            int i = 0;
+            for (int target : reference) {
+                while (i < list.length && list[i] < target)
+                    residuals[numResiduals++] = list[i++];
+                boolean copied = i < list.length && list[i] == target;
+                if (copied) i++;
+                if (copied != copying) {
+                    runs[numRuns++] = run;
+                    run = 0;
+                    copying = copied;
+                }
+                run++;
+            }
+            while (i < list.length)
+                residuals[numResiduals++] = list[i++];
+            residuals = Arrays.copyOf(residuals, numResiduals);
+
+            bits += gamma(writer, numRuns + 1);
+            for (int k = 0; k < numRuns; k++)
+                bits += gamma(writer, k == 0 ? runs[k] + 1 : runs[k]);
+        }
+
+        long previous = v;
+        for (int k = 0; k < residuals.length; k++) {
+            long gap = k == 0 ? zigzag(residuals[0] - previous) : residuals[k] - previous - 1;
+            bits += zeta(writer, gap + 1);
+            previous = residuals[k];
+        }
+        return bits;
+    }
+
+    private static long zigzag(long value) {
+        return value >= 0 ? 2 * value : -2 * value - 1;
+    }
+
+    private static long unzigzag(long value) {
+        return (value & 1) == 0 ? value >>> 1 : -((value + 1) >>> 1);
+    }
+
+    // Elias gamma code of x >= 1: floor(log2 x) zeros, then x in binary
+    private static long gamma(BitWriter writer, long x) {
+        int length = 63 - Long.numberOfLeadingZeros(x);
+        if (writer != null)
+            writer.write(x, 2 * length + 1);
+        return 2 * length + 1;
+    }
+
+    // Zeta_k code of x >= 1: h in unary, then x - 2^hk in minimal binary code of [0, 2^(h+1)k - 2^hk)
+    private static long zeta(BitWriter writer, long x) {
+        int h = (63 - Long.numberOfLeadingZeros(x)) / ZETA_K;
+        long left = 1L << (h * ZETA_K);
+        long size = (1L << ((h + 1) * ZETA_K)) - left;
+        int s = 64 - Long.numberOfLeadingZeros(size - 1);
+        long threshold = (1L << s) - size;
+        long y = x - left;
+        int length = y < threshold ? s - 1 : s;
+        if (writer != null) {
+            writer.write(1, h + 1);
+            writer.write(y < threshold ? y : y + threshold, length);
+        }
+        return h + 1 + length;
+    }
+
+    /**
+     * Map a graph written by {@link #save(Path)}
+     *
+     * @param file file to read
+     * @return graph reading offsets and lists straight from the mapped file
+     * @throws IOException if the file can't be read or has a wrong format
+     */
+    public static CompressedGraph load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining())
+                if (channel.read(header) < 0) throw new EOFException("Truncated header in " + file);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION)
+                throw new IOException("Not a compressed graph: " + file);
+            int n = header.getInt();
+            header.getInt();
+            long numEdges = header.getLong();
+            long streamWords = header.getLong();
+
+            int[] vertexIds = new int[n];
+            IntBuffer ids = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, 4L * n).asIntBuffer();
+            ids.get(vertexIds);
+
+            long start = wordsStart(n);
+            long totalWords = n + 1 + streamWords;
+            if (channel.size() < start + 8 * totalWords)
+                throw new EOFException("Truncated graph in " + file);
+            LongBuffer[] chunks = new LongBuffer[(int) ((totalWords + CHUNK_WORDS - 1) / CHUNK_WORDS)];
+            for (int c = 0; c < chunks.length; c++) {
+                long words = Math.min(CHUNK_WORDS, totalWords - c * CHUNK_WORDS);
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, start + 8 * c * CHUNK_WORDS, 8 * words)
+                        .asLongBuffer();
+            }
+            // the mapping stays valid after the channel is closed
+            return new CompressedGraph(vertexIds, numEdges, new Words(chunks, 0), new Words(chunks, n + 1),
+                    streamWords);
+        }
+    }
+
+    // offsets and the stream are stored as longs, aligned after the header and vertex ids
+    private static long wordsStart(int n) {
+        return (HEADER_BYTES + 4L * n + 7) & ~7L;
+    }
+
+    /**
+     * Write the graph to a file for {@link #load(Path)}
+     *
+     * @param file target file, replaced if it exists
+     * @throws IOException if the file can't be written
+     */
+    public void save(Path file) throws IOException {
+        int n = getNumVertices();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile()),
+                1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(0);
+            out.writeLong(numEdges);
+            out.writeLong(streamWords);
+            for (int id : vertexIds)
+                out.writeInt(id);
+            for (long position = HEADER_BYTES + 4L * n; position < wordsStart(n); position += 4)
+                out.writeInt(0);
+            for (int v = 0; v <= n; v++)
+                out.writeLong(offsets.get(v));
+            for (long w = 0; w < streamWords; w++)
+                out.writeLong(stream.get(w));
+        }
+    }
+
+    /**
+     * CompressedGraph can't be changed once built
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addVertex(int num) {
+        throw new UnsupportedOperationException("CompressedGraph is immutable, compress a CsrGraph instead");
+    }
+
+    /**
+     * CompressedGraph can't be changed once built
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addEdge(int from, int to) {
+        throw new UnsupportedOperationException("CompressedGraph is immutable, compress a CsrGraph instead");
+    }
+
+    public int getNumVertices() {
+        return vertexIds.length;
+    }
+
+    public long getNumEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Size of the offsets and the bit stream
+     */
+    public long getSizeInBytes() {
+        return 8 * (getNumVertices() + 1 + streamWords);
+    }
+
+    /**
+     * Average size of an edge in the bit stream
+     */
+    public double getBitsPerEdge() {
+        return numEdges == 0 ? 0 : (double) offsets.get(getNumVertices()) / numEdges;
+    }
+
+    /**
+     * Vertex id for a dense index
+     *
+     * @param index index of the vertex, 0 .. getNumVertices() - 1
+     * @return id the vertex was added with
+     */
+    public int getVertexId(int index) {
+        return vertexIds[index];
+    }
+
+    /**
+     * Dense index of a vertex
+     *
+     * @param vertex vertex id
+     * @return index of the vertex or -1 if it is not in the graph
+     */
+    public int indexOf(int vertex) {
+        int index = Arrays.binarySearch(vertexIds, vertex);
+        return index >= 0 ? index : -1;
+    }
+
+    public int getOutDegree(int index) {
+        return (int) new BitReader(stream, offsets.get(index)).readGamma() - 1;
+    }
+
+    /**
+     * Decode the out-list of a vertex
+     *
+     * @param index index of the vertex
+     * @return new array with sorted indices of the out-neighbors
+     */
+    public int[] getOutNeighbors(int index) {
+        return decode(index, null);
+    }
+
+    /**
+     * Visit indices of all vertices reachable by an edge from the given one, in ascending order
+     *
+     * @param index   index of the source vertex
+     * @param visitor action for every target index
+     */
+    public void forEachOutNeighbor(int index, IntConsumer visitor) {
+        for (int w : getOutNeighbors(index))
+            visitor.accept(w);
+    }
+
+    /**
+     * Decode all lists in index order. Referenced lists are taken from the last ones decoded,
+     * so every list is decoded once.
+     *
+     * @param visitor action for every vertex and its out-list
+     */
+    public void forEachAdjacency(AdjacencyVisitor visitor) {
+        int[][] recent = new int[WINDOW + 1][];
+        for (int v = 0; v < getNumVertices(); v++) {
+            int[] list = decode(v, recent);
+            recent[v % recent.length] = list;
+            visitor.visit(v, list);
+        }
+    }
+
+    /**
+     * Decode a list
+     *
+     * @param v      index of the vertex
+     * @param recent the previous WINDOW lists by index modulo WINDOW + 1, null to decode referenced lists too
+     */
+    private int[] decode(int v, int[][] recent) {
+        BitReader reader = new BitReader(stream, offsets.get(v));
+        int degree = (int) reader.readGamma() - 1;
+        if (degree == 0) return new int[0];
+        int r = (int) reader.readGamma() - 1;
+
+        int[] list = new int[degree];
+        int size = 0;
+        if (r > 0) {
+            int[] reference = recent != null ? recent[(v - r) % recent.length] : decode(v - r, null);
+            int numRuns = (int) reader.readGamma() - 1;
+            int i = 0;
+            boolean copying = true;
+            for (int k = 0; k < numRuns; k++) {
+                int run = (int) reader.readGamma() - (k == 0 ? 1 : 0);
+                if (copying) System.arraycopy(reference, i, list, size, run);
+                if (copying) size += run;
+                i += run;
+                copying = !copying;
+            }
+            if (copying) {
+                System.arraycopy(reference, i, list, size, reference.length - i);
+                size += reference.length - i;
+            }
+        }
+
+        int copied = size;
+        if (copied == degree) return list;
+        int[] residuals = new int[degree - copied];
+        long previous = v;
+        for (int k = 0; k < residuals.length; k++) {
+            long gap = reader.readZeta() - 1;
+            previous = k == 0 ? previous + unzigzag(gap) : previous + gap + 1;
+            residuals[k] = (int) previous;
+        }
+        if (copied == 0) return residuals;
+
+        // merge the copied entries, already in place, with the residuals from the back
+        int i = copied - 1;
+        int j = residuals.length - 1;
+        for (int k = degree - 1; j >= 0; k--)
+            list[k] = i >= 0 && list[i] > residuals[j] ? list[i--] : residuals[j--];
+        return list;
+    }
+
+    /**
+     * Run an absolute spread, where every friend of a triggered vertex triggers in the next step,
+     * straight on the compressed lists
+     *
+     * @param startVertices vertices triggered at step 0
+     * @return step every vertex triggered at, by index, -1 for vertices never reached
+     */
+    public int[] getTriggerSteps(int... startVertices) {
+        int n = getNumVertices();
+        int[] step = new int[n];
+        Arrays.fill(step, -1);
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int vertex : startVertices) {
+            int index = indexOf(vertex);
+            if (index < 0)
+                throw new IllegalArgumentException(String.format("Vertex [%s] is not in graph", vertex));
+            if (step[index] < 0) {
+                step[index] = 0;
+                queue[tail++] = index;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            for (int w : getOutNeighbors(v)) {
+                if (step[w] >= 0) continue;
+                step[w] = step[v] + 1;
+                queue[tail++] = w;
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Egonet of the center: the center, its out-neighbors and all edges between them
+     *
+     * @param center a vertex in center of Egonet
+     * @return new CsrGraph representing Egonet, empty if center is not in the graph
+     */
+    @Override
+    public Graph getEgonet(int center) {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        int index = indexOf(center);
+        if (index < 0) return builder.build();
+
+        builder.addVertex(center);
+        int[] members = getOutNeighbors(index);
+        for (int w : members)
+            builder.addEdge(center, vertexIds[w]);
+        for (int v : members) {
+            // both lists are sorted, so the edges inside the egonet come from a merge
+            int[] friends = getOutNeighbors(v);
+            int i = 0;
+            for (int w : friends) {
+                while (i < members.length && members[i] < w) i++;
+                if ((i < members.length && members[i] == w) || w == index)
+                    builder.addEdge(vertexIds[v], vertexIds[w]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Component id of every vertex, by iterative Tarjan's algorithm over the compressed lists.
+     * Lists of the vertices on the search path are kept decoded.
+     *
+     * @return component ids by vertex index, 0 .. number of components - 1
+     */
+    int[] getComponentIds() {
+        int n = getNumVertices();
+        int[] order = new int[n];
+        int[] low = new int[n];
+        int[] componentOf = new int[n];
+        int[][] lists = new int[n][];
+        int[] edge = new int[n];
+        int[] callStack = new int[n];
+        int[] componentStack = new int[n];
+        int stackSize = 0;
+        int visits = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] != 0) continue;
+            int depth = 0;
+            callStack[0] = root;
+            lists[0] = getOutNeighbors(root);
+            edge[0] = 0;
+            order[root] = low[root] = ++visits;
+            componentStack[stackSize++] = root;
+            // componentOf doubles as the on-stack flag: -1 while the vertex waits on the stack
+            componentOf[root] = -1;
+
+            while (depth >= 0) {
+                int v = callStack[depth];
+                if (edge[depth] < lists[depth].length) {
+                    int w = lists[depth][edge[depth]++];
+                    if (order[w] == 0) {
+                        order[w] = low[w] = ++visits;
+                        componentStack[stackSize++] = w;
+                        componentOf[w] = -1;
+                        callStack[++depth] = w;
+                        lists[depth] = getOutNeighbors(w);
+                        edge[depth] = 0;
+                    } else if (componentOf[w] == -1 && order[w] < low[v]) {
+                        low[v] = order[w];
+                    }
+                    continue;
+                }
+
+                if (low[v] == order[v]) {
+                    int w;
+                    do {
+                        w = componentStack[--stackSize];
+                        componentOf[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+                lists[depth--] = null;
+                if (depth >= 0 && low[v] < low[callStack[depth]])
+                    low[callStack[depth]] = low[v];
+            }
+        }
+        return componentOf;
+    }
+
+    /**
+     * Returns all of the strongly connected components as a list of subgraphs.
+     * Subgraphs are decoded into CsrGraphs only when read from the list.
+     *
+     * @return List of strongly connected graphs
+     */
+    @Override
+    public List<Graph> getSCCs() {
+        int[] componentOf = getComponentIds();
+        int numComponents = 0;
+        for (int c : componentOf)
+            numComponents = Math.max(numComponents, c + 1);
+
+        // group vertex indices by component with a counting pass
+        int[] memberOffsets = new int[numComponents + 1];
+        for (int c : componentOf)
+            memberOffsets[c + 1]++;
+        for (int c = 0; c < numComponents; c++)
+            memberOffsets[c + 1] += memberOffsets[c];
+        int[] members = new int[componentOf.length];
+        int[] position = Arrays.copyOf(memberOffsets, numComponents);
+        for (int v = 0; v < componentOf.length; v++)
+            members[position[componentOf[v]]++] = v;
+
+        return new AbstractList<Graph>() {
+            @Override
+            public Graph get(int component) {
+                CsrGraph.Builder builder = new CsrGraph.Builder();
+                for (int k = memberOffsets[component]; k < memberOffsets[component + 1]; k++) {
+                    int v = members[k];
+                    builder.addVertex(vertexIds[v]);
+                    for (int w : getOutNeighbors(v))
+                        if (componentOf[w] == component)
+                            builder.addEdge(vertexIds[v], vertexIds[w]);
+                }
+                return builder.build();
+            }
+
+            @Override
+            public int size() {
+                return memberOffsets.length - 1;
+            }
+        };
+    }
+
+    /**
+     * Export graph in format consumable for grading.
+     *
+     * @return HashMap of vertices and all their connections
+     */
+    @Override
+    public HashMap<Integer, HashSet<Integer>> exportGraph() {
+        HashMap<Integer, HashSet<Integer>> fullGraph = new HashMap<>();
+        forEachAdjacency((v, neighbors) -> {
+            HashSet<Integer> toVertices = new HashSet<>();
+            for (int w : neighbors)
+                toVertices.add(vertexIds[w]);
+            fullGraph.put(vertexIds[v], toVertices);
+        });
+        return fullGraph;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompressedGraph{vertices=%d, edges=%d, bitsPerEdge=%.2f}",
+                getNumVertices(), numEdges, getBitsPerEdge());
+    }
+
+    /**
+     * Array of longs on the heap or in mapped chunks of CHUNK_WORDS
+     */
+    private static final class Words {
+        private final long[] array;
+        private final LongBuffer[] chunks;
+        private final long base;
+
+        Words(long[] array) {
+            this.array = array;
+            this.chunks = null;
+            this.base = 0;
+        }
+
+        Words(LongBuffer[] chunks, long base) {
+            this.array = null;
+            this.chunks = chunks;
+            this.base = base;
+        }
+
+        long get(long index) {
+            if (array != null) return array[(int) index];
+            long i = base + index;
+            return chunks[(int) (i >>> CHUNK_SHIFT)].get((int) (i & (CHUNK_WORDS - 1)));
+        }
+    }
+
+    /**
+     * Appends bits to a growing array of longs, most significant bit first
+     */
+    private static final class BitWriter {
+        long[] words = new long[1024];
+        long position;
+
+        // Write the lowest length bits of value, length <= 64
+        void write(long value, int length) {
+            if (length == 0) return;
+            int index = (int) (position >>> 6);
+            if (index + 1 >= words.length)
+                words = Arrays.copyOf(words, words.length * 2);
+            int available = 64 - (int) (position & 63);
+            if (length <= available) {
+                words[index] |= value << (available - length);
+            } else {
+                int rest = length - available;
+                words[index] |= value >>> rest;
+                words[index + 1] |= value << (64 - rest);
+            }
+            position += length;
+        }
+    }
+
+    /**
+     * Reads codes written by BitWriter from a position in the stream
+     */
+    private static final class BitReader {
+        private final Words words;
+        private long position;
+
+        BitReader(Words words, long position) {
+            this.words = words;
+            this.position = position;
+        }
+
+        // Read length bits as an unsigned number, length <= 64
+        long read(int length) {
+            if (length == 0) return 0;
+            int offset = (int) (position & 63);
+            long value = words.get(position >>> 6) << offset;
+            int available = 64 - offset;
+            long result = value >>> (64 - length);
+            if (length > available)
+                result |= words.get((position >>> 6) + 1) >>> (64 - (length - available));
+            position += length;
+            return result;
+        }
+
+        // Count zeros up to the next one, skipping the one
+        int readUnary() {
+            int count = 0;
+            while (true) {
+                int offset = (int) (position & 63);
+                long value = words.get(position >>> 6) << offset;
+                if (value != 0) {
+                    int zeros = Long.numberOfLeadingZeros(value);
+                    position += zeros + 1;
+                    return count + zeros;
+                }
+                count += 64 - offset;
+                position += 64 - offset;
+            }
+        }
+
+        long readGamma() {
+            int length = readUnary();
+            return (1L << length) | read(length);
+        }
+
+        long readZeta() {
+            int h = readUnary();
+            long left = 1L << (h * ZETA_K);
+            long size = (1L << ((h + 1) * ZETA_K)) - left;
+            int s = 64 - Long.numberOfLeadingZeros(size - 1);
+            long threshold = (1L << s) - size;
+            long y = read(s - 1);
+            if (y >= threshold)
+                y = ((y << 1) | read(1)) - threshold;
+            return y + left;
+        }
+    }
+}
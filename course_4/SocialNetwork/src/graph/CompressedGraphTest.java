@@ -0,0 +1,135 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class CompressedGraphTest {
+
+    private static CsrGraph facebook() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        GraphLoader.loadGraph(builder, "data/facebook_1000.txt");
+        return builder.build();
+    }
+
+    // lists that overlap with their neighbors, plus far and backward edges
+    private static CsrGraph randomGraph(long seed) {
+        Random random = new Random(seed);
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        for (int v = 0; v < 500; v++) {
+            builder.addVertex(v * 3);
+            for (int k = random.nextInt(12); k > 0; k--)
+                builder.addEdge(v * 3, Math.max(0, v - 20 + random.nextInt(40)) * 3);
+            if (random.nextInt(10) == 0)
+                builder.addEdge(v * 3, random.nextInt(500) * 3);
+            if (v % 50 == 0)
+                builder.addEdge(v * 3, v * 3);
+        }
+        return builder.build();
+    }
+
+    private static void assertSameLists(CsrGraph expected, CompressedGraph actual) {
+        assertEquals(expected.getNumVertices(), actual.getNumVertices());
+        assertEquals(expected.getNumEdges(), actual.getNumEdges());
+        for (int v = 0; v < expected.getNumVertices(); v++) {
+            int[] list = Arrays.copyOfRange(expected.outTargets, expected.outOffsets[v], expected.outOffsets[v + 1]);
+            assertArrayEquals(list, actual.getOutNeighbors(v));
+            assertEquals(list.length, actual.getOutDegree(v));
+        }
+        actual.forEachAdjacency((v, neighbors) -> assertArrayEquals(actual.getOutNeighbors(v), neighbors));
+    }
+
+    @Test
+    public void listsShouldDecodeAsBuilt() {
+        CsrGraph graph = randomGraph(1);
+        CompressedGraph compressed = CompressedGraph.of(graph);
+
+        assertSameLists(graph, compressed);
+        assertEquals(graph.exportGraph(), compressed.exportGraph());
+        assertEquals(-1, compressed.indexOf(1));
+    }
+
+    @Test
+    public void socialGraphShouldTakeFewBitsPerEdge() {
+        CsrGraph graph = facebook();
+        CompressedGraph compressed = CompressedGraph.of(graph);
+
+        assertSameLists(graph, compressed);
+        // CsrGraph spends 64 bits on an edge, out- and in-list
+        assertTrue(compressed.toString(), compressed.getBitsPerEdge() < 16);
+    }
+
+    @Test
+    public void savedGraphShouldLoadMapped() throws IOException {
+        CsrGraph graph = randomGraph(2);
+        Path file = Files.createTempFile("compressed", ".graph");
+        try {
+            CompressedGraph.of(graph).save(file);
+            CompressedGraph loaded = CompressedGraph.load(file);
+
+            assertSameLists(graph, loaded);
+            assertEquals(graph.exportGraph(), loaded.exportGraph());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void loadShouldRejectOtherFiles() throws IOException {
+        Path file = Files.createTempFile("compressed", ".graph");
+        try {
+            Files.write(file, new byte[64]);
+            CompressedGraph.load(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void queriesShouldMatchCsrGraph() {
+        CsrGraph graph = facebook();
+        CompressedGraph compressed = CompressedGraph.of(graph);
+
+        assertEquals(StronglyConnectedComponents.tarjan(graph).getNumComponents(), compressed.getSCCs().size());
+        for (int v = 0; v < graph.getNumVertices(); v += 37) {
+            int center = graph.getVertexId(v);
+            assertEquals(graph.getEgonet(center).exportGraph(), compressed.getEgonet(center).exportGraph());
+        }
+        assertTrue(compressed.getEgonet(-1).exportGraph().isEmpty());
+    }
+
+    @Test
+    public void sccSubgraphsShouldMatchCsrGraph() {
+        CsrGraph graph = randomGraph(3);
+        CompressedGraph compressed = CompressedGraph.of(graph);
+        StronglyConnectedComponents expected = StronglyConnectedComponents.tarjan(graph);
+
+        int[] components = compressed.getComponentIds();
+        for (int v = 0; v < graph.getNumVertices(); v++)
+            for (int w = v + 1; w < graph.getNumVertices(); w += 7)
+                assertEquals(expected.getComponent(v) == expected.getComponent(w), components[v] == components[w]);
+        int largest = components[0];
+        assertEquals(expected.asGraphs().get(expected.getComponent(0)).exportGraph(),
+                compressed.getSCCs().get(largest).exportGraph());
+    }
+
+    @Test
+    public void triggerStepsShouldFollowShortestPaths() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        builder.addEdge(1, 2).addEdge(2, 3).addEdge(1, 3).addEdge(3, 4).addEdge(5, 1);
+        CompressedGraph compressed = CompressedGraph.of(builder.build());
+
+        assertArrayEquals(new int[]{0, 1, 1, 2, -1}, compressed.getTriggerSteps(1));
+        assertArrayEquals(new int[]{1, 2, 0, 1, 0}, compressed.getTriggerSteps(5, 3));
+    }
+}
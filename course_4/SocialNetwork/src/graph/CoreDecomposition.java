@@ -0,0 +1,115 @@
+package graph;
+
+/**
+ * Created by Alex Filatau.
+ * k-core decomposition, ignoring edge directions: the core number of a vertex is the
+ * largest k such that it belongs to a subgraph where every vertex has at least k neighbors.
+ * <p>
+ * Computed in linear time by Batagelj and Zaversnik's algorithm: vertices are kept sorted
+ * by remaining degree in bins, and the vertex of lowest degree is repeatedly removed,
+ * moving each of its neighbors one bin down.
+ */
+public class CoreDecomposition extends CentralityScores {
+    private final int[] cores;
+    private final int maxCore;
+
+    private CoreDecomposition(CsrGraph graph, int[] cores, int maxCore) {
+        super(graph, toScores(cores));
+        this.cores = cores;
+        this.maxCore = maxCore;
+    }
+
+    private static double[] toScores(int[] cores) {
+        double[] scores = new double[cores.length];
+        for (int v = 0; v < cores.length; v++)
+            scores[v] = cores[v];
+        return scores;
+    }
+
+    /**
+     * Core numbers of all vertices
+     *
+     * @param graph target graph
+     * @return the decomposition
+     */
+    public static CoreDecomposition compute(CsrGraph graph) {
+        int n = graph.getNumVertices();
+        CsrGraph.UndirectedAdjacency adjacency = graph.getUndirectedAdjacency();
+        int[] degree = new int[n];
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++) {
+            degree[v] = adjacency.getDegree(v);
+            maxDegree = Math.max(maxDegree, degree[v]);
+        }
+
+        // counting sort by degree: bin[d] is where vertices of degree d start in sorted
+        int[] bin = new int[maxDegree + 1];
+        for (int v = 0; v < n; v++)
+            bin[degree[v]]++;
+        int start = 0;
+        for (int d = 0; d <= maxDegree; d++) {
+            int count = bin[d];
+            bin[d] = start;
+            start += count;
+        }
+        int[] sorted = new int[n];
+        int[] position = new int[n];
+        for (int v = 0; v < n; v++) {
+            position[v] = bin[degree[v]]++;
+            sorted[position[v]] = v;
+        }
+        for (int d = maxDegree; d > 0; d--)
+            bin[d] = bin[d - 1];
+        bin[0] = 0;
+
+        int maxCore = 0;
+        for (int i = 0; i < n; i++) {
+            int v = sorted[i];
+            maxCore = Math.max(maxCore, degree[v]);
+            for (int e = adjacency.offsets[v]; e < adjacency.offsets[v + 1]; e++) {
+                int u = adjacency.neighbors[e];
+                if (degree[u] <= degree[v]) continue;
+                // swap u with the first vertex of its bin, then shrink the bin past it
+                int du = degree[u];
+                int first = bin[du];
+                int w = sorted[first];
+                if (w != u) {
+                    sorted[position[u]] = w;
+                    position[w] = position[u];
+                    sorted[first] = u;
+                    position[u] = first;
+                }
+                bin[du]++;
+                degree[u]--;
+            }
+        }
+        // remaining degree at removal time is the core number
+        return new CoreDecomposition(graph, degree, maxCore);
+    }
+
+    /**
+     * Core number of a vertex
+     *
+     * @param vertex vertex id
+     * @return largest k of a k-core holding the vertex
+     */
+    public int getCoreNumber(int vertex) {
+        return (int) getScore(vertex);
+    }
+
+    /**
+     * Core numbers of all vertices
+     *
+     * @return copy of the core numbers, element i belongs to the vertex with index i in the graph
+     */
+    public int[] getCoreNumbers() {
+        return cores.clone();
+    }
+
+    /**
+     * @return largest core number of any vertex, the degeneracy of the graph
+     */
+    public int getMaxCore() {
+        return maxCore;
+    }
+}
@@ -0,0 +1,63 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class CoreDecompositionTest {
+    @Test
+    public void cliqueWithTailShouldHaveTwoCores() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        // 4-clique of 1..4, one direction per pair, and a path 4 - 5 - 6
+        for (int a = 1; a <= 4; a++)
+            for (int b = a + 1; b <= 4; b++)
+                builder.addEdge(a, b);
+        builder.addEdge(4, 5).addEdge(6, 5).addVertex(7);
+        CoreDecomposition cores = CoreDecomposition.compute(builder.build());
+
+        for (int vertex = 1; vertex <= 4; vertex++)
+            assertEquals(3, cores.getCoreNumber(vertex));
+        assertEquals(1, cores.getCoreNumber(5));
+        assertEquals(1, cores.getCoreNumber(6));
+        assertEquals(0, cores.getCoreNumber(7));
+        assertEquals(3, cores.getMaxCore());
+        assertEquals(Arrays.asList(1, 2, 3, 4), cores.getTopVertices(4));
+    }
+
+    @Test
+    public void shouldMatchRepeatedPeeling() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        GraphLoader.loadGraph(builder, "data/facebook_1000.txt");
+        CsrGraph graph = builder.build();
+        CsrGraph.UndirectedAdjacency adjacency = graph.getUndirectedAdjacency();
+        int n = graph.getNumVertices();
+        int[] cores = CoreDecomposition.compute(graph).getCoreNumbers();
+
+        // a vertex is in the k-core if it survives removing all vertices of degree below k
+        for (int k = 1; k <= Arrays.stream(cores).max().getAsInt() + 1; k++) {
+            boolean[] removed = new boolean[n];
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int v = 0; v < n; v++) {
+                    if (removed[v]) continue;
+                    int degree = 0;
+                    for (int e = adjacency.offsets[v]; e < adjacency.offsets[v + 1]; e++)
+                        if (!removed[adjacency.neighbors[e]]) degree++;
+                    if (degree < k) {
+                        removed[v] = true;
+                        changed = true;
+                    }
+                }
+            }
+            for (int v = 0; v < n; v++)
+                assertEquals(cores[v] >= k, !removed[v]);
+        }
+    }
+}
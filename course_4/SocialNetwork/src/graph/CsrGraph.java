@@ -0,0 +1,385 @@
+package graph;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Created by Alex Filatau.
+ * Immutable directed graph stored in compressed sparse row (CSR) form.
+ * <p>
+ * Vertex ids are remapped to dense indices 0 .. n-1 in ascending id order.
+ * Out-edges of the vertex with index v are outTargets[outOffsets[v] .. outOffsets[v + 1]),
+ * in-edges are inSources[inOffsets[v] .. inOffsets[v + 1]), both sorted by index and
+ * without duplicates. Whole graph takes 4 * (3n + 2m) bytes instead of the boxed
+ * sets and hash nodes of {@link CapGraph}.
+ * <p>
+ * Use {@link Builder} to create one, or {@link #fromGraph(Graph)} to copy an existing graph.
+ */
+public class CsrGraph implements Graph {
+
+    final int[] vertexIds;
+    final int[] outOffsets;
+    final int[] outTargets;
+    final int[] inOffsets;
+    final int[] inSources;
+
+    private CsrGraph(int[] vertexIds, int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inSources) {
+        this.vertexIds = vertexIds;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+    }
+
+    /**
+     * Build CSR arrays from sorted unique vertex ids and out-adjacency already in CSR form,
+     * deriving the in-adjacency by a counting pass.
+     */
+    private static CsrGraph withInEdges(int[] vertexIds, int[] outOffsets, int[] outTargets) {
+        int n = vertexIds.length;
+        int[] inOffsets = new int[n + 1];
+        for (int target : outTargets)
+            inOffsets[target + 1]++;
+        for (int v = 0; v < n; v++)
+            inOffsets[v + 1] += inOffsets[v];
+
+        // sources are visited in ascending order, so every in-list comes out sorted
+        int[] inSources = new int[outTargets.length];
+        int[] position = Arrays.copyOf(inOffsets, n);
+        for (int v = 0; v < n; v++)
+            for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++)
+                inSources[position[outTargets[e]]++] = v;
+
+        return new CsrGraph(vertexIds, outOffsets, outTargets, inOffsets, inSources);
+    }
+
+    /**
+     * Copy any graph into CSR form
+     *
+     * @param graph source graph
+     * @return immutable copy of the graph
+     */
+    public static CsrGraph fromGraph(Graph graph) {
+        if (graph instanceof CsrGraph)
+            return (CsrGraph) graph;
+
+        Builder builder = new Builder();
+        graph.exportGraph().forEach((from, toVertices) -> {
+            builder.addVertex(from);
+            toVertices.forEach(to -> builder.addEdge(from, to));
+        });
+        return builder.build();
+    }
+
+    /**
+     * CsrGraph can't be changed once built
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addVertex(int num) {
+        throw new UnsupportedOperationException("CsrGraph is immutable, use CsrGraph.Builder");
+    }
+
+    /**
+     * CsrGraph can't be changed once built
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addEdge(int from, int to) {
+        throw new UnsupportedOperationException("CsrGraph is immutable, use CsrGraph.Builder");
+    }
+
+    public int getNumVertices() {
+        return vertexIds.length;
+    }
+
+    public int getNumEdges() {
+        return outTargets.length;
+    }
+
+    /**
+     * Vertex id for a dense index
+     *
+     * @param index index of the vertex, 0 .. getNumVertices() - 1
+     * @return id the vertex was added with
+     */
+    public int getVertexId(int index) {
+        return vertexIds[index];
+    }
+
+    /**
+     * Dense index of a vertex
+     *
+     * @param vertex vertex id
+     * @return index of the vertex or -1 if it is not in the graph
+     */
+    public int indexOf(int vertex) {
+        int index = Arrays.binarySearch(vertexIds, vertex);
+        return index >= 0 ? index : -1;
+    }
+
+    public boolean containsVertex(int vertex) {
+        return indexOf(vertex) >= 0;
+    }
+
+    public int getOutDegree(int index) {
+        return outOffsets[index + 1] - outOffsets[index];
+    }
+
+    public int getInDegree(int index) {
+        return inOffsets[index + 1] - inOffsets[index];
+    }
+
+    /**
+     * Visit indices of all vertices reachable by an edge from the given one, in ascending order
+     *
+     * @param index   index of the source vertex
+     * @param visitor action for every target index
+     */
+    public void forEachOutNeighbor(int index, IntConsumer visitor) {
+        for (int e = outOffsets[index]; e < outOffsets[index + 1]; e++)
+            visitor.accept(outTargets[e]);
+    }
+
+    /**
+     * Visit indices of all vertices with an edge to the given one, in ascending order
+     *
+     * @param index   index of the target vertex
+     * @param visitor action for every source index
+     */
+    public void forEachInNeighbor(int index, IntConsumer visitor) {
+        for (int e = inOffsets[index]; e < inOffsets[index + 1]; e++)
+            visitor.accept(inSources[e]);
+    }
+
+    /**
+     * Egonet of the center: the center, its out-neighbors and all edges between them
+     *
+     * @param center a vertex in center of Egonet
+     * @return new CsrGraph representing Egonet, empty if center is not in the graph
+     */
+    @Override
+    public Graph getEgonet(int center) {
+        int index = indexOf(center);
+        if (index < 0)
+            return new Builder().build();
+
+        int from = outOffsets[index];
+        int to = outOffsets[index + 1];
+        int[] members = new int[to - from + 1];
+        System.arraycopy(outTargets, from, members, 0, to - from);
+        members[to - from] = index;
+        Arrays.sort(members);
+        return getInducedSubgraph(dedupe(members, members.length));
+    }
+
+    /**
+     * Returns all of the strongly connected components as a list of subgraphs.
+     * Subgraphs are only built when read from the list, see {@link StronglyConnectedComponents}.
+     *
+     * @return List of strongly connected graphs
+     */
+    @Override
+    public List<Graph> getSCCs() {
+        return StronglyConnectedComponents.of(this).asGraphs();
+    }
+
+    /**
+     * Subgraph with the given vertices and all edges between them
+     *
+     * @param indices sorted unique indices of the vertices to keep
+     * @return new CsrGraph with the original vertex ids
+     */
+    CsrGraph getInducedSubgraph(int[] indices) {
+        int k = indices.length;
+        int[] ids = new int[k];
+        int[] offsets = new int[k + 1];
+        int[] targets = new int[16];
+        int size = 0;
+        for (int i = 0; i < k; i++) {
+            int v = indices[i];
+            ids[i] = vertexIds[v];
+            for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+                int position = Arrays.binarySearch(indices, outTargets[e]);
+                if (position < 0) continue;
+                if (size == targets.length)
+                    targets = Arrays.copyOf(targets, size * 2);
+                targets[size++] = position;
+            }
+            offsets[i + 1] = size;
+        }
+        return withInEdges(ids, offsets, Arrays.copyOf(targets, size));
+    }
+
+    /**
+     * Export graph in format consumable for grading.
+     *
+     * @return HashMap of vertices and all their connections
+     */
+    @Override
+    public HashMap<Integer, HashSet<Integer>> exportGraph() {
+        HashMap<Integer, HashSet<Integer>> fullGraph = new HashMap<>();
+        for (int v = 0; v < getNumVertices(); v++) {
+            HashSet<Integer> toVertices = new HashSet<>();
+            forEachOutNeighbor(v, w -> toVertices.add(vertexIds[w]));
+            fullGraph.put(vertexIds[v], toVertices);
+        }
+        return fullGraph;
+    }
+
+    /**
+     * Neighbors of every vertex ignoring edge directions
+     *
+     * @return new adjacency lists, see {@link UndirectedAdjacency}
+     */
+    UndirectedAdjacency getUndirectedAdjacency() {
+        return new UndirectedAdjacency(this);
+    }
+
+    @Override
+    public String toString() {
+        return "CsrGraph{vertices=" + getNumVertices() + ", edges=" + getNumEdges() + "}";
+    }
+
+    /**
+     * Drop repeated values from a sorted array prefix
+     *
+     * @return new array with the distinct values of values[0 .. size)
+     */
+    private static int[] dedupe(int[] values, int size) {
+        int unique = 0;
+        for (int i = 0; i < size; i++)
+            if (unique == 0 || values[i] != values[unique - 1])
+                values[unique++] = values[i];
+        return Arrays.copyOf(values, unique);
+    }
+
+    /**
+     * Undirected view of a CsrGraph without self-loops: neighbors of v are the sorted merge
+     * of its out- and in-list, without repeats, at neighbors[offsets[v] .. offsets[v + 1])
+     */
+    static final class UndirectedAdjacency {
+        final int[] offsets;
+        final int[] neighbors;
+
+        private UndirectedAdjacency(CsrGraph graph) {
+            int n = graph.getNumVertices();
+            offsets = new int[n + 1];
+            int[] merged = new int[2 * graph.getNumEdges()];
+            int size = 0;
+            for (int v = 0; v < n; v++) {
+                offsets[v] = size;
+                int i = graph.outOffsets[v];
+                int j = graph.inOffsets[v];
+                int iEnd = graph.outOffsets[v + 1];
+                int jEnd = graph.inOffsets[v + 1];
+                while (i < iEnd || j < jEnd) {
+                    int w;
+                    if (j == jEnd || (i < iEnd && graph.outTargets[i] <= graph.inSources[j]))
+                        w = graph.outTargets[i++];
+                    else
+                        w = graph.inSources[j++];
+                    if (w != v && (size == offsets[v] || merged[size - 1] != w))
+                        merged[size++] = w;
+                }
+            }
+            offsets[n] = size;
+            neighbors = size == merged.length ? merged : Arrays.copyOf(merged, size);
+        }
+
+        int getDegree(int v) {
+            return offsets[v + 1] - offsets[v];
+        }
+    }
+
+    /**
+     * Collects vertices and edges in flat int arrays and turns them into a CsrGraph.
+     * Vertices are added implicitly by their edges; duplicate vertices and edges are ignored.
+     */
+    public static class Builder {
+        private int[] vertices = new int[16];
+        private int numVertices;
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int numEdges;
+
+        public Builder addVertex(int vertex) {
+            if (numVertices == vertices.length)
+                vertices = Arrays.copyOf(vertices, numVertices * 2);
+            vertices[numVertices++] = vertex;
+            return this;
+        }
+
+        public Builder addEdge(int fromVertex, int toVertex) {
+            ensureEdgeCapacity(numEdges + 1);
+            from[numEdges] = fromVertex;
+            to[numEdges] = toVertex;
+            numEdges++;
+            return this;
+        }
+
+        /**
+         * Add count edges at once, edge i going from fromVertices[i] to toVertices[i]
+         */
+        public Builder addEdges(int[] fromVertices, int[] toVertices, int count) {
+            ensureEdgeCapacity(numEdges + count);
+            System.arraycopy(fromVertices, 0, from, numEdges, count);
+            System.arraycopy(toVertices, 0, to, numEdges, count);
+            numEdges += count;
+            return this;
+        }
+
+        private void ensureEdgeCapacity(int capacity) {
+            if (capacity > from.length) {
+                int length = Math.max(capacity, from.length * 2);
+                from = Arrays.copyOf(from, length);
+                to = Arrays.copyOf(to, length);
+            }
+        }
+
+        /**
+         * Create the graph. The builder may be reused afterwards, the graph doesn't share its arrays.
+         *
+         * @return new immutable graph with all vertices and edges added so far
+         */
+        public CsrGraph build() {
+            int[] ids = new int[numVertices + 2 * numEdges];
+            System.arraycopy(vertices, 0, ids, 0, numVertices);
+            System.arraycopy(from, 0, ids, numVertices, numEdges);
+            System.arraycopy(to, 0, ids, numVertices + numEdges, numEdges);
+            Arrays.sort(ids);
+            ids = dedupe(ids, ids.length);
+            int n = ids.length;
+
+            // bucket edges by source index, then sort and dedupe every bucket
+            int[] sources = new int[numEdges];
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < numEdges; e++) {
+                sources[e] = Arrays.binarySearch(ids, from[e]);
+                offsets[sources[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++)
+                offsets[v + 1] += offsets[v];
+            int[] targets = new int[numEdges];
+            int[] position = Arrays.copyOf(offsets, n);
+            for (int e = 0; e < numEdges; e++)
+                targets[position[sources[e]]++] = Arrays.binarySearch(ids, to[e]);
+
+            int size = 0;
+            for (int v = 0; v < n; v++) {
+                int start = offsets[v];
+                int end = offsets[v + 1];
+                Arrays.sort(targets, start, end);
+                offsets[v] = size;
+                for (int e = start; e < end; e++)
+                    if (e == start || targets[e] != targets[e - 1])
+                        targets[size++] = targets[e];
+            }
+            offsets[n] = size;
+
+            return withInEdges(ids, offsets, size == numEdges ? targets : Arrays.copyOf(targets, size));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class CsrGraphTest {
+    private static final String GRAPH_FILE = "data/facebook_1000.txt";
+
+    @Test
+    public void exportShouldMatchCapGraph() {
+        CapGraph expected = new CapGraph();
+        GraphLoader.loadGraph(expected, GRAPH_FILE);
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        GraphLoader.loadGraph(builder, GRAPH_FILE);
+
+        assertEquals(expected.exportGraph(), builder.build().exportGraph());
+    }
+
+    @Test
+    public void duplicateEdgesAndVerticesShouldBeIgnored() {
+        CsrGraph graph = new CsrGraph.Builder()
+                .addVertex(7).addVertex(3)
+                .addEdge(3, 7).addEdge(3, 7).addEdge(7, 7)
+                .build();
+
+        assertEquals(2, graph.getNumVertices());
+        assertEquals(2, graph.getNumEdges());
+        assertEquals(0, graph.indexOf(3));
+        assertEquals(-1, graph.indexOf(5));
+        assertEquals(2, graph.getInDegree(graph.indexOf(7)));
+    }
+
+    @Test
+    public void egonetShouldMatchCapGraph() {
+        CapGraph expected = new CapGraph();
+        GraphLoader.loadGraph(expected, "data/small_test_graph.txt");
+        CsrGraph graph = CsrGraph.fromGraph(expected);
+
+        for (int vertex : expected.getVertices())
+            assertEquals(expected.getEgonet(vertex).exportGraph(), graph.getEgonet(vertex).exportGraph());
+        assertTrue(graph.getEgonet(1000).exportGraph().isEmpty());
+    }
+
+    @Test
+    public void sccsShouldMatchCapGraph() {
+        CapGraph expected = new CapGraph();
+        GraphLoader.loadGraph(expected, "data/small_test_graph.txt");
+        CsrGraph graph = CsrGraph.fromGraph(expected);
+
+        assertEquals(componentSet(expected.getSCCs()), componentSet(graph.getSCCs()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void graphShouldBeImmutable() {
+        new CsrGraph.Builder().addEdge(1, 2).build().addEdge(2, 1);
+    }
+
+    private static Set<Object> componentSet(List<Graph> components) {
+        Set<Object> result = new HashSet<>();
+        components.forEach(component -> result.add(component.exportGraph()));
+        return result;
+    }
+}
@@ -0,0 +1,267 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Created by Alex Filatau.
+ * Vertices bucketed by degree (a bucket queue), over dense vertex indices 0..size-1.
+ * <p>
+ * Every non-empty degree has a doubly linked bucket of its vertices, in the order they
+ * reached that degree, and non-empty degrees are themselves linked in a ring through
+ * degree 0, so:
+ * <ul>
+ * <li>{@link #increment(int)} and {@link #decrement(int)} move a vertex between neighbouring
+ * buckets in constant time</li>
+ * <li>{@link #getTop(int)} walks buckets from the highest degree down, in time proportional
+ * to the number of vertices returned</li>
+ * </ul>
+ * Vertices with degree 0 are not in any bucket.
+ */
+public class DegreeIndex {
+    // marks the end of a bucket
+    private static final int NONE = -1;
+
+    private int size;
+    // per vertex: degree and neighbours in its bucket
+    private int[] degree;
+    private int[] next;
+    private int[] previous;
+    // per degree: first and last vertex of the bucket, neighbouring non-empty degrees
+    private int[] head;
+    private int[] tail;
+    private int[] higher;
+    private int[] lower;
+
+    public DegreeIndex() {
+        this(16);
+    }
+
+    /**
+     * @param capacity number of vertices that fit without resizing
+     */
+    public DegreeIndex(int capacity) {
+        capacity = Math.max(1, capacity);
+        degree = new int[capacity];
+        next = new int[capacity];
+        previous = new int[capacity];
+        head = new int[16];
+        tail = new int[16];
+        higher = new int[16];
+        lower = new int[16];
+        Arrays.fill(head, NONE);
+        Arrays.fill(tail, NONE);
+    }
+
+    /**
+     * Index vertices with known degrees in one pass, e.g. after loading a graph.
+     * Vertices of the same degree are ordered by index.
+     *
+     * @param degrees degree of every vertex
+     * @return index holding degrees.length vertices
+     */
+    public static DegreeIndex of(int[] degrees) {
+        DegreeIndex index = new DegreeIndex(degrees.length);
+        int maxDegree = 0;
+        for (int d : degrees) {
+            if (d < 0) throw new IllegalArgumentException(String.format("Degree [%s] is negative", d));
+            maxDegree = Math.max(maxDegree, d);
+        }
+        index.ensureDegree(maxDegree);
+        index.size = degrees.length;
+        int previousDegree = 0;
+        for (int v = 0; v < degrees.length; v++) {
+            int d = degrees[v];
+            index.degree[v] = d;
+            if (d > 0) index.append(v, d);
+        }
+        // ring of non-empty degrees, ascending from 0
+        for (int d = 1; d <= maxDegree; d++) {
+            if (index.head[d] == NONE) continue;
+            index.higher[previousDegree] = d;
+            index.lower[d] = previousDegree;
+            previousDegree = d;
+        }
+        index.higher[previousDegree] = 0;
+        index.lower[0] = previousDegree;
+        return index;
+    }
+
+    /**
+     * Index of the out-degrees of a graph
+     *
+     * @param graph graph to index, vertex indices are those of the graph
+     * @return index of all vertices of the graph
+     */
+    public static DegreeIndex of(CsrGraph graph) {
+        int[] degrees = new int[graph.getNumVertices()];
+        for (int v = 0; v < degrees.length; v++)
+            degrees[v] = graph.getOutDegree(v);
+        return of(degrees);
+    }
+
+    /**
+     * Add a vertex with degree 0
+     *
+     * @return index of the new vertex
+     */
+    public int addVertex() {
+        if (size == degree.length) {
+            degree = Arrays.copyOf(degree, size * 2);
+            next = Arrays.copyOf(next, size * 2);
+            previous = Arrays.copyOf(previous, size * 2);
+        }
+        degree[size] = 0;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getDegree(int vertex) {
+        checkVertex(vertex);
+        return degree[vertex];
+    }
+
+    /**
+     * @return highest degree of any vertex, 0 if there are no edges
+     */
+    public int getMaxDegree() {
+        return lower[0];
+    }
+
+    /**
+     * Increase degree of the vertex by one, moving it to the end of the next bucket
+     */
+    public void increment(int vertex) {
+        checkVertex(vertex);
+        int d = degree[vertex];
+        ensureDegree(d + 1);
+        // bucket d is non-empty (or the ring's degree 0), so d + 1 goes right above it
+        if (head[d + 1] == NONE)
+            linkDegree(d + 1, d, higher[d]);
+        if (d > 0) remove(vertex, d);
+        degree[vertex] = d + 1;
+        append(vertex, d + 1);
+    }
+
+    /**
+     * Decrease degree of the vertex by one, moving it to the end of the previous bucket
+     *
+     * @throws IllegalStateException if the degree is 0 already
+     */
+    public void decrement(int vertex) {
+        checkVertex(vertex);
+        int d = degree[vertex];
+        if (d == 0)
+            throw new IllegalStateException(String.format("Vertex [%s] has no edges", vertex));
+        if (d > 1 && head[d - 1] == NONE)
+            linkDegree(d - 1, lower[d], d);
+        remove(vertex, d);
+        degree[vertex] = d - 1;
+        if (d > 1) append(vertex, d - 1);
+    }
+
+    /**
+     * Vertices with the highest degrees, by degree descending, then by the time they reached it
+     *
+     * @param count number of vertices to return at most
+     * @return indices of the vertices
+     */
+    public int[] getTop(int count) {
+        int[] result = new int[Math.max(0, Math.min(count, size))];
+        int found = 0;
+        for (int d = lower[0]; d != 0 && found < result.length; d = lower[d])
+            for (int v = head[d]; v != NONE && found < result.length; v = next[v])
+                result[found++] = v;
+        return found == result.length ? result : Arrays.copyOf(result, found);
+    }
+
+    /**
+     * Vertices with the given degree, in the order they reached it
+     *
+     * @param d degree, at least 1
+     * @return indices of the vertices
+     */
+    public int[] getBucket(int d) {
+        if (d < 1 || d >= head.length) return new int[0];
+        int count = 0;
+        for (int v = head[d]; v != NONE; v = next[v])
+            count++;
+        int[] result = new int[count];
+        int i = 0;
+        for (int v = head[d]; v != NONE; v = next[v])
+            result[i++] = v;
+        return result;
+    }
+
+    /**
+     * Non-empty degrees from the highest
+     *
+     * @return degrees with at least one vertex
+     */
+    public int[] getDegrees() {
+        int count = 0;
+        for (int d = lower[0]; d != 0; d = lower[d])
+            count++;
+        int[] result = new int[count];
+        int i = 0;
+        for (int d = lower[0]; d != 0; d = lower[d])
+            result[i++] = d;
+        return result;
+    }
+
+    private void checkVertex(int vertex) {
+        if (vertex < 0 || vertex >= size)
+            throw new IllegalArgumentException(String.format("Vertex [%s] is not in graph", vertex));
+    }
+
+    private void ensureDegree(int d) {
+        if (d < head.length) return;
+        int length = Math.max(d + 1, head.length * 2);
+        int old = head.length;
+        head = Arrays.copyOf(head, length);
+        tail = Arrays.copyOf(tail, length);
+        higher = Arrays.copyOf(higher, length);
+        lower = Arrays.copyOf(lower, length);
+        Arrays.fill(head, old, length, NONE);
+        Arrays.fill(tail, old, length, NONE);
+    }
+
+    private void linkDegree(int d, int below, int above) {
+        lower[d] = below;
+        higher[d] = above;
+        higher[below] = d;
+        lower[above] = d;
+    }
+
+    private void append(int vertex, int d) {
+        next[vertex] = NONE;
+        previous[vertex] = tail[d];
+        if (tail[d] == NONE) head[d] = vertex;
+        else next[tail[d]] = vertex;
+        tail[d] = vertex;
+    }
+
+    private void remove(int vertex, int d) {
+        if (previous[vertex] == NONE) head[d] = next[vertex];
+        else next[previous[vertex]] = next[vertex];
+        if (next[vertex] == NONE) tail[d] = previous[vertex];
+        else previous[next[vertex]] = previous[vertex];
+        if (head[d] == NONE) {
+            // bucket emptied, drop its degree from the ring
+            higher[lower[d]] = higher[d];
+            lower[higher[d]] = lower[d];
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int d = lower[0]; d != 0; d = lower[d]) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(d).append('=').append(Arrays.toString(getBucket(d)));
+        }
+        return sb.append('}').toString();
+    }
+}
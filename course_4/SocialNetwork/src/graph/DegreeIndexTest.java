@@ -0,0 +1,84 @@
+package graph;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class DegreeIndexTest {
+    @Test
+    public void topShouldFollowDegreeThenArrivalOrder() {
+        DegreeIndex index = new DegreeIndex(2);
+        for (int i = 0; i < 5; i++)
+            index.addVertex();
+        index.increment(3);
+        index.increment(1);
+        index.increment(1);
+        index.increment(4);
+        index.increment(3);
+
+        assertArrayEquals(new int[]{1, 3, 4}, index.getTop(10));
+        assertArrayEquals(new int[]{1, 3}, index.getTop(2));
+        assertEquals(2, index.getMaxDegree());
+        assertEquals("{2=[1, 3], 1=[4]}", index.toString());
+    }
+
+    @Test
+    public void decrementShouldMoveVertexDown() {
+        DegreeIndex index = DegreeIndex.of(new int[]{0, 3, 1, 3});
+        index.decrement(1);
+        index.decrement(1);
+
+        assertArrayEquals(new int[]{3, 2, 1}, index.getTop(3));
+        assertArrayEquals(new int[]{3, 1}, index.getDegrees());
+        index.decrement(3);
+        index.decrement(3);
+        index.decrement(3);
+        index.decrement(1);
+        assertArrayEquals(new int[]{2}, index.getTop(3));
+        assertEquals(1, index.getMaxDegree());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotDecrementBelowZero() {
+        DegreeIndex.of(new int[]{0}).decrement(0);
+    }
+
+    @Test
+    public void randomUpdatesShouldKeepBucketsConsistent() {
+        int n = 200;
+        DegreeIndex index = new DegreeIndex();
+        int[] degrees = new int[n];
+        for (int i = 0; i < n; i++)
+            index.addVertex();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int run = 0; run < 20_000; run++) {
+            int v = random.nextInt(n);
+            if (degrees[v] > 0 && random.nextInt(3) == 0) {
+                index.decrement(v);
+                degrees[v]--;
+            } else {
+                index.increment(v);
+                degrees[v]++;
+            }
+        }
+
+        int[] top = index.getTop(n);
+        int previous = Integer.MAX_VALUE;
+        int nonZero = 0;
+        for (int v = 0; v < n; v++) {
+            assertEquals(degrees[v], index.getDegree(v));
+            if (degrees[v] > 0) nonZero++;
+        }
+        assertEquals(nonZero, top.length);
+        for (int v : top) {
+            assertTrue(degrees[v] <= previous);
+            previous = degrees[v];
+        }
+        assertEquals(degrees[top[0]], index.getMaxDegree());
+    }
+}
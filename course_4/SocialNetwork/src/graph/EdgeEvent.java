@@ -0,0 +1,47 @@
+package graph;
+
+/**
+ * Created by Alex Filatau.
+ * Addition or removal of a directed edge, one element of the event stream of a {@link StreamingGraph}
+ */
+public final class EdgeEvent {
+    public enum Type {
+        ADD,
+        REMOVE
+    }
+
+    private final Type type;
+    private final int from;
+    private final int to;
+
+    private EdgeEvent(Type type, int from, int to) {
+        this.type = type;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static EdgeEvent add(int from, int to) {
+        return new EdgeEvent(Type.ADD, from, to);
+    }
+
+    public static EdgeEvent remove(int from, int to) {
+        return new EdgeEvent(Type.REMOVE, from, to);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s -> %s", type, from, to);
+    }
+}
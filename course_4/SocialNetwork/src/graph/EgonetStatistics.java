@@ -0,0 +1,316 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * Per-vertex egonet statistics of a whole {@link CsrGraph}, computed in one pass instead of
+ * building an egonet subgraph for every vertex:
+ * <ul>
+ * <li>egonet edges - number of directed edges in {@link Graph#getEgonet(int)} of the vertex</li>
+ * <li>triangles - number of triangles through the vertex, ignoring edge directions</li>
+ * <li>clustering coefficient - triangles divided by the number of pairs of neighbors</li>
+ * </ul>
+ * Work is split into vertex ranges of about the same number of edges and run in parallel.
+ */
+public class EgonetStatistics {
+
+    // Number of ranges per worker thread, more than one so uneven ranges even out
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final CsrGraph graph;
+    private final int[] egonetEdges;
+    private final int[] triangles;
+    private final int[] undirectedDegrees;
+
+    private EgonetStatistics(CsrGraph graph, int[] egonetEdges, int[] triangles, int[] undirectedDegrees) {
+        this.graph = graph;
+        this.egonetEdges = egonetEdges;
+        this.triangles = triangles;
+        this.undirectedDegrees = undirectedDegrees;
+    }
+
+    /**
+     * Compute statistics for every vertex on the common fork/join pool
+     *
+     * @param graph target graph
+     * @return statistics of all vertices
+     */
+    public static EgonetStatistics compute(CsrGraph graph) {
+        return compute(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute statistics for every vertex
+     *
+     * @param graph target graph
+     * @param pool  pool to run on
+     * @return statistics of all vertices
+     */
+    public static EgonetStatistics compute(CsrGraph graph, ForkJoinPool pool) {
+        int[] egonetEdges = new int[graph.getNumVertices()];
+        int[] ranges = splitByEdges(graph.outOffsets, pool.getParallelism() * RANGES_PER_THREAD);
+        pool.submit(() -> IntStream.range(0, ranges.length - 1).parallel()
+                .forEach(r -> countEgonetEdges(graph, ranges[r], ranges[r + 1], egonetEdges))).join();
+
+        Undirected undirected = new Undirected(graph);
+        int[] triangles = undirected.countTriangles(pool);
+        return new EgonetStatistics(graph, egonetEdges, triangles, undirected.degrees);
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Number of edges in the egonet of a vertex
+     *
+     * @param vertex vertex id
+     * @return edges between the vertex and its out-neighbors, including the edges to them
+     */
+    public int getEgonetEdges(int vertex) {
+        return egonetEdges[indexOf(vertex)];
+    }
+
+    /**
+     * Number of triangles a vertex is part of, treating edges as undirected
+     *
+     * @param vertex vertex id
+     * @return triangle count
+     */
+    public int getTriangles(int vertex) {
+        return triangles[indexOf(vertex)];
+    }
+
+    /**
+     * Local clustering coefficient of a vertex, treating edges as undirected
+     *
+     * @param vertex vertex id
+     * @return share of pairs of neighbors that are connected, 0 with less than 2 neighbors
+     */
+    public double getClusteringCoefficient(int vertex) {
+        return clustering(indexOf(vertex));
+    }
+
+    /**
+     * Egonet edge counts of all vertices
+     *
+     * @return copy of the counts, element i belongs to the vertex with index i in the graph
+     */
+    public int[] getEgonetEdgeCounts() {
+        return egonetEdges.clone();
+    }
+
+    /**
+     * Triangle counts of all vertices
+     *
+     * @return copy of the counts, element i belongs to the vertex with index i in the graph
+     */
+    public int[] getTriangleCounts() {
+        return triangles.clone();
+    }
+
+    /**
+     * Clustering coefficients of all vertices
+     *
+     * @return element i belongs to the vertex with index i in the graph
+     */
+    public double[] getClusteringCoefficients() {
+        double[] result = new double[triangles.length];
+        for (int v = 0; v < result.length; v++)
+            result[v] = clustering(v);
+        return result;
+    }
+
+    /**
+     * Average local clustering coefficient over all vertices
+     *
+     * @return the average, 0 for an empty graph
+     */
+    public double getAverageClusteringCoefficient() {
+        return Arrays.stream(getClusteringCoefficients()).average().orElse(0);
+    }
+
+    private double clustering(int index) {
+        long degree = undirectedDegrees[index];
+        return degree < 2 ? 0 : 2.0 * triangles[index] / (degree * (degree - 1));
+    }
+
+    private int indexOf(int vertex) {
+        int index = graph.indexOf(vertex);
+        if (index < 0)
+            throw new IllegalArgumentException(String.format("Vertex [%s] is not in graph", vertex));
+        return index;
+    }
+
+    /**
+     * Egonet of v holds v and its out-neighbors N(v). Its edges are the d(v) edges from v plus,
+     * for every other member u, the edges from u into N(v) and the edge back to v.
+     */
+    private static void countEgonetEdges(CsrGraph graph, int from, int to, int[] egonetEdges) {
+        int[] offsets = graph.outOffsets;
+        int[] targets = graph.outTargets;
+        for (int v = from; v < to; v++) {
+            int start = offsets[v];
+            int end = offsets[v + 1];
+            boolean selfLoop = Arrays.binarySearch(targets, start, end, v) >= 0;
+            int count = end - start;
+            for (int e = start; e < end; e++) {
+                int u = targets[e];
+                if (u == v) continue;
+                count += intersectionSize(targets, start, end, targets, offsets[u], offsets[u + 1]);
+                if (!selfLoop && Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v) >= 0)
+                    count++;
+            }
+            egonetEdges[v] = count;
+        }
+    }
+
+    /**
+     * Number of values in both sorted ranges. Merges ranges of similar length and
+     * binary searches the shorter one in the longer one otherwise, so a hub costs
+     * little more than a vertex with few edges.
+     */
+    static int intersectionSize(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        int aLength = aTo - aFrom;
+        int bLength = bTo - bFrom;
+        if (aLength > bLength)
+            return intersectionSize(b, bFrom, bTo, a, aFrom, aTo);
+        if (aLength == 0)
+            return 0;
+
+        int count = 0;
+        if ((long) aLength * 32 < bLength) {
+            int low = bFrom;
+            for (int i = aFrom; i < aTo && low < bTo; i++) {
+                int position = Arrays.binarySearch(b, low, bTo, a[i]);
+                if (position >= 0) {
+                    count++;
+                    low = position + 1;
+                } else {
+                    low = -(position + 1);
+                }
+            }
+            return count;
+        }
+
+        int i = aFrom;
+        int j = bFrom;
+        while (i < aTo && j < bTo) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Split vertices into ranges holding about the same number of edges
+     *
+     * @return range boundaries, range r is [ranges[r], ranges[r + 1])
+     */
+    static int[] splitByEdges(int[] offsets, int numRanges) {
+        int n = offsets.length - 1;
+        numRanges = Math.max(1, Math.min(numRanges, n));
+        int[] ranges = new int[numRanges + 1];
+        long total = offsets[n] + (long) n;
+        int v = 0;
+        for (int r = 1; r < numRanges; r++) {
+            // every vertex counts as one edge, so ranges of isolated vertices are split too
+            long target = total * r / numRanges;
+            while (v < n && offsets[v] + (long) v < target)
+                v++;
+            ranges[r] = v;
+        }
+        ranges[numRanges] = n;
+        return ranges;
+    }
+
+    /**
+     * Undirected view of the graph without self-loops, with every edge also oriented
+     * from the endpoint of lower degree to the one of higher degree. Each triangle is then
+     * found exactly once, from its lowest vertex, and forward lists stay short even for hubs.
+     */
+    private static class Undirected {
+        private final int n;
+        private final int[] degrees;
+        private final int[] forwardOffsets;
+        private final int[] forward;
+
+        Undirected(CsrGraph graph) {
+            n = graph.getNumVertices();
+            CsrGraph.UndirectedAdjacency adjacency = graph.getUndirectedAdjacency();
+            int[] offsets = adjacency.offsets;
+            int[] neighbors = adjacency.neighbors;
+            int size = offsets[n];
+
+            degrees = new int[n];
+            for (int v = 0; v < n; v++)
+                degrees[v] = adjacency.getDegree(v);
+
+            forwardOffsets = new int[n + 1];
+            forward = new int[size / 2];
+            int count = 0;
+            for (int v = 0; v < n; v++) {
+                forwardOffsets[v] = count;
+                for (int e = offsets[v]; e < offsets[v + 1]; e++)
+                    if (isBefore(v, neighbors[e]))
+                        forward[count++] = neighbors[e];
+            }
+            forwardOffsets[n] = count;
+        }
+
+        private boolean isBefore(int v, int w) {
+            return degrees[v] < degrees[w] || (degrees[v] == degrees[w] && v < w);
+        }
+
+        /**
+         * Count triangles of every vertex. Each range credits the three vertices of the
+         * triangles it finds in its own array, the arrays are summed at the end.
+         */
+        int[] countTriangles(ForkJoinPool pool) {
+            int[] ranges = splitByEdges(forwardOffsets, pool.getParallelism());
+            int[][] counts = new int[ranges.length - 1][];
+            pool.submit(() -> IntStream.range(0, ranges.length - 1).parallel()
+                    .forEach(r -> counts[r] = countTriangles(ranges[r], ranges[r + 1]))).join();
+
+            int[] result = counts[0];
+            for (int r = 1; r < counts.length; r++)
+                for (int v = 0; v < n; v++)
+                    result[v] += counts[r][v];
+            return result;
+        }
+
+        private int[] countTriangles(int from, int to) {
+            int[] count = new int[n];
+            for (int v = from; v < to; v++) {
+                int vStart = forwardOffsets[v];
+                int vEnd = forwardOffsets[v + 1];
+                for (int e = vStart; e < vEnd; e++) {
+                    int u = forward[e];
+                    int i = vStart;
+                    int j = forwardOffsets[u];
+                    int jEnd = forwardOffsets[u + 1];
+                    while (i < vEnd && j < jEnd) {
+                        if (forward[i] < forward[j]) i++;
+                        else if (forward[i] > forward[j]) j++;
+                        else {
+                            count[v]++;
+                            count[u]++;
+                            count[forward[i]]++;
+                            i++;
+                            j++;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+    }
+}
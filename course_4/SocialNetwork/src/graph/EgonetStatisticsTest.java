@@ -0,0 +1,67 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class EgonetStatisticsTest {
+    @Test
+    public void triangleShouldBeCountedOncePerVertex() {
+        CsrGraph graph = new CsrGraph.Builder()
+                .addEdge(1, 2).addEdge(2, 3).addEdge(3, 1).addEdge(1, 3)
+                .addEdge(3, 4)
+                .build();
+        EgonetStatistics statistics = EgonetStatistics.compute(graph);
+
+        assertEquals(1, statistics.getTriangles(1));
+        assertEquals(1, statistics.getTriangles(3));
+        assertEquals(0, statistics.getTriangles(4));
+        assertEquals(1.0, statistics.getClusteringCoefficient(2), 1e-9);
+        assertEquals(1.0 / 3, statistics.getClusteringCoefficient(3), 1e-9);
+        assertEquals(0.0, statistics.getClusteringCoefficient(4), 1e-9);
+    }
+
+    @Test
+    public void egonetEdgesShouldMatchEgonetSubgraphs() {
+        CapGraph capGraph = new CapGraph();
+        GraphLoader.loadGraph(capGraph, "data/facebook_1000.txt");
+        ForkJoinPool pool = new ForkJoinPool(3);
+        EgonetStatistics statistics;
+        try {
+            statistics = EgonetStatistics.compute(CsrGraph.fromGraph(capGraph), pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int vertex : capGraph.getVertices()) {
+            int edges = capGraph.getEgonet(vertex).exportGraph().values().stream().mapToInt(neighbors -> neighbors.size()).sum();
+            assertEquals("egonet of " + vertex, edges, statistics.getEgonetEdges(vertex));
+        }
+    }
+
+    @Test
+    public void egonetOfVertexWithoutOutEdgesShouldBeJustTheVertex() {
+        CapGraph graph = new CapGraph();
+        graph.addEdge(1, 2);
+
+        assertEquals(1, graph.getEgonet(2).exportGraph().size());
+        assertEquals(0, EgonetStatistics.compute(CsrGraph.fromGraph(graph)).getEgonetEdges(2));
+    }
+
+    @Test
+    public void intersectionShouldHandleVeryDifferentLengths() {
+        int[] small = {3, 500, 999, 2000};
+        int[] large = new int[1000];
+        for (int i = 0; i < large.length; i++)
+            large[i] = i;
+
+        assertEquals(3, EgonetStatistics.intersectionSize(small, 0, small.length, large, 0, large.length));
+        assertEquals(2, EgonetStatistics.intersectionSize(large, 0, 600, small, 0, small.length));
+    }
+}
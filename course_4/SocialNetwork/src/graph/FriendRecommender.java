@@ -0,0 +1,381 @@
+package graph;
+
+import util.GraphLoader;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * "People you may know": for a vertex, the best non-neighbors among friends of friends,
+ * ranked by one of the classic link prediction scores. Friendship ignores edge directions.
+ * <p>
+ * A query collects the friends of friends, then scores every candidate by intersecting
+ * the sorted neighbor lists of the two vertices, galloping through the longer list when
+ * one is much shorter, and keeps the best k in a small heap. Every query has its own state,
+ * sized by the friends of friends rather than the graph, so queries may run concurrently.
+ * <p>
+ * Optional MinHash sketches ({@link #useSketches(int, int, long)}) replace the intersection
+ * for pairs of hubs, whose lists are both long, with an estimate of their Jaccard similarity.
+ */
+public class FriendRecommender {
+
+    // Gallop through the longer list once it is this many times longer than the shorter one
+    private static final int GALLOP_RATIO = 16;
+
+    /**
+     * Score of a candidate v for vertex u, N(x) being the neighbors of x
+     */
+    public enum Measure {
+        // |N(u) & N(v)|
+        COMMON_NEIGHBORS,
+        // sum of 1 / log(degree) over common neighbors, rare friends in common count more
+        ADAMIC_ADAR,
+        // |N(u) & N(v)| / |N(u) | N(v)|
+        JACCARD
+    }
+
+    /**
+     * A recommended vertex with its score
+     */
+    public static final class Recommendation {
+        private final int vertex;
+        private final double score;
+        private final int commonNeighbors;
+
+        Recommendation(int vertex, double score, int commonNeighbors) {
+            this.vertex = vertex;
+            this.score = score;
+            this.commonNeighbors = commonNeighbors;
+        }
+
+        public int getVertex() {
+            return vertex;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Number of friends in common, estimated for pairs scored by sketches
+         */
+        public int getCommonNeighbors() {
+            return commonNeighbors;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d (%.3f)", vertex, score);
+        }
+    }
+
+    private final CsrGraph graph;
+    private final CsrGraph.UndirectedAdjacency adjacency;
+
+    // MinHash signatures of hubs, numHashes entries per sketched vertex
+    private int sketchMinDegree = Integer.MAX_VALUE;
+    private int numHashes;
+    private int[] sketchOf;
+    private int[] sketches;
+
+    /**
+     * Recommender for a graph, friend lists are built once here
+     *
+     * @param graph target graph
+     */
+    public FriendRecommender(CsrGraph graph) {
+        this.graph = graph;
+        this.adjacency = graph.getUndirectedAdjacency();
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Build MinHash sketches of all vertices with at least minDegree friends, in parallel.
+     * Pairs of such vertices are then scored from sketches, except by ADAMIC_ADAR which
+     * needs the common friends themselves.
+     *
+     * @param numHashes number of hash functions, the estimate's error is about 1 / sqrt(numHashes)
+     * @param minDegree friends a vertex needs to get a sketch
+     * @param seed      seed of the hash functions
+     * @return this recommender
+     */
+    public FriendRecommender useSketches(int numHashes, int minDegree, long seed) {
+        if (numHashes < 1)
+            throw new IllegalArgumentException(String.format("Number of hashes [%s] must be positive", numHashes));
+        int n = graph.getNumVertices();
+        int[] index = new int[n];
+        int count = 0;
+        for (int v = 0; v < n; v++)
+            index[v] = adjacency.getDegree(v) >= minDegree ? count++ : -1;
+
+        int[] signatures = new int[count * numHashes];
+        long[] salts = new SplittableRandom(seed).longs(numHashes).toArray();
+        IntStream.range(0, n).parallel().filter(v -> index[v] >= 0).forEach(v -> {
+            int base = index[v] * numHashes;
+            Arrays.fill(signatures, base, base + numHashes, Integer.MAX_VALUE);
+            for (int e = adjacency.offsets[v]; e < adjacency.offsets[v + 1]; e++) {
+                int w = adjacency.neighbors[e];
+                for (int h = 0; h < numHashes; h++)
+                    signatures[base + h] = Math.min(signatures[base + h], hash(w, salts[h]));
+            }
+        });
+
+        this.numHashes = numHashes;
+        this.sketchOf = index;
+        this.sketches = signatures;
+        this.sketchMinDegree = minDegree;
+        return this;
+    }
+
+    // Non-negative hash of a vertex index, one function per salt
+    private static int hash(int value, long salt) {
+        long z = value + salt;
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) ((z ^ (z >>> 33)) >>> 33);
+    }
+
+    /**
+     * Best friends of friends of a vertex, that are not its friends yet
+     *
+     * @param vertex  vertex id
+     * @param count   number of recommendations to return (at most)
+     * @param measure score to rank candidates by
+     * @return recommendations sorted descending by score, equal scores by vertex id
+     */
+    public List<Recommendation> recommend(int vertex, int count, Measure measure) {
+        int u = graph.indexOf(vertex);
+        if (u < 0)
+            throw new IllegalArgumentException(String.format("Vertex [%s] is not in graph", vertex));
+        if (count < 1) return Collections.emptyList();
+
+        int[] candidates = candidates(u);
+        // never more recommendations than candidates, whatever count was asked for
+        Query query = new Query(adjacency, Math.min(count, candidates.length));
+        for (int v : candidates)
+            score(query, u, v, measure);
+        return query.result(graph);
+    }
+
+    /**
+     * Friends of friends of u that are neither u nor its friends, sorted without repeats
+     */
+    private int[] candidates(int u) {
+        int[] offsets = adjacency.offsets;
+        int[] neighbors = adjacency.neighbors;
+        int size = 0;
+        for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+            int w = neighbors[e];
+            size += offsets[w + 1] - offsets[w];
+        }
+        int[] candidates = new int[size];
+        size = 0;
+        for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+            int w = neighbors[e];
+            System.arraycopy(neighbors, offsets[w], candidates, size, offsets[w + 1] - offsets[w]);
+            size += offsets[w + 1] - offsets[w];
+        }
+        Arrays.sort(candidates);
+
+        // friend lists are sorted too, walk along u's while squeezing repeats out
+        int friend = offsets[u];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int v = candidates[i];
+            if (v == u || (kept > 0 && candidates[kept - 1] == v)) continue;
+            while (friend < offsets[u + 1] && neighbors[friend] < v) friend++;
+            if (friend < offsets[u + 1] && neighbors[friend] == v) continue;
+            candidates[kept++] = v;
+        }
+        return Arrays.copyOf(candidates, kept);
+    }
+
+    private void score(Query query, int u, int v, Measure measure) {
+        int du = adjacency.getDegree(u);
+        int dv = adjacency.getDegree(v);
+        int common;
+        double score;
+        if (measure != Measure.ADAMIC_ADAR && du >= sketchMinDegree && dv >= sketchMinDegree) {
+            double jaccard = estimateJaccard(u, v);
+            common = (int) Math.round(jaccard * (du + dv) / (1 + jaccard));
+            score = measure == Measure.JACCARD ? jaccard : common;
+        } else {
+            common = query.intersect(u, v, measure == Measure.ADAMIC_ADAR);
+            score = measure == Measure.ADAMIC_ADAR ? query.adamicAdar
+                    : measure == Measure.JACCARD ? (double) common / (du + dv - common) : common;
+        }
+        query.offer(v, score, common);
+    }
+
+    private double estimateJaccard(int u, int v) {
+        int a = sketchOf[u] * numHashes;
+        int b = sketchOf[v] * numHashes;
+        int equal = 0;
+        for (int h = 0; h < numHashes; h++)
+            if (sketches[a + h] == sketches[b + h]) equal++;
+        return (double) equal / numHashes;
+    }
+
+    /**
+     * State of one query: the best candidates so far in a min-heap, weakest on top
+     */
+    private static final class Query {
+        private final CsrGraph.UndirectedAdjacency adjacency;
+        private final int count;
+        private final int[] heapVertices;
+        private final double[] heapScores;
+        private final int[] heapCommon;
+        private int heapSize;
+        // Adamic-Adar score of the last weighted intersection
+        private double adamicAdar;
+
+        Query(CsrGraph.UndirectedAdjacency adjacency, int count) {
+            this.adjacency = adjacency;
+            this.count = count;
+            heapVertices = new int[count];
+            heapScores = new double[count];
+            heapCommon = new int[count];
+        }
+
+        void offer(int v, double score, int common) {
+            if (heapSize < count) {
+                push(v, score, common);
+            } else if (better(v, score, heapVertices[0], heapScores[0])) {
+                pop();
+                push(v, score, common);
+            }
+        }
+
+        List<Recommendation> result(CsrGraph graph) {
+            Recommendation[] result = new Recommendation[heapSize];
+            for (int i = heapSize - 1; i >= 0; i--) {
+                result[i] = new Recommendation(graph.getVertexId(heapVertices[0]), heapScores[0], heapCommon[0]);
+                pop();
+            }
+            return Arrays.asList(result);
+        }
+
+        /**
+         * Number of common neighbors of u and v by merging their sorted lists,
+         * galloping through the longer one if it is much longer
+         *
+         * @param weighted also sum up the Adamic-Adar score
+         */
+        private int intersect(int u, int v, boolean weighted) {
+            int[] offsets = adjacency.offsets;
+            int[] neighbors = adjacency.neighbors;
+            int i = offsets[u], iEnd = offsets[u + 1];
+            int j = offsets[v], jEnd = offsets[v + 1];
+            if (iEnd - i > jEnd - j) {
+                int t = i; i = j; j = t;
+                t = iEnd; iEnd = jEnd; jEnd = t;
+            }
+            boolean gallop = (jEnd - j) > GALLOP_RATIO * (iEnd - i);
+            int common = 0;
+            double weight = 0;
+            while (i < iEnd && j < jEnd) {
+                int a = neighbors[i];
+                int b = neighbors[j];
+                if (a == b) {
+                    common++;
+                    if (weighted) weight += 1 / Math.log(adjacency.getDegree(a));
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else if (gallop) {
+                    j = gallop(neighbors, j, jEnd, a);
+                } else {
+                    j++;
+                }
+            }
+            adamicAdar = weight;
+            return common;
+        }
+
+        private boolean better(int v, double score, int w, double other) {
+            return score > other || (score == other && v < w);
+        }
+
+        private void push(int v, double score, int common) {
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!better(heapVertices[parent], heapScores[parent], v, score)) break;
+                move(parent, i);
+                i = parent;
+            }
+            heapVertices[i] = v;
+            heapScores[i] = score;
+            heapCommon[i] = common;
+        }
+
+        private void pop() {
+            heapSize--;
+            int v = heapVertices[heapSize];
+            double score = heapScores[heapSize];
+            int common = heapCommon[heapSize];
+            int i = 0;
+            while (2 * i + 1 < heapSize) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && better(heapVertices[child], heapScores[child],
+                        heapVertices[child + 1], heapScores[child + 1]))
+                    child++;
+                if (!better(v, score, heapVertices[child], heapScores[child])) break;
+                move(child, i);
+                i = child;
+            }
+            heapVertices[i] = v;
+            heapScores[i] = score;
+            heapCommon[i] = common;
+        }
+
+        private void move(int from, int to) {
+            heapVertices[to] = heapVertices[from];
+            heapScores[to] = heapScores[from];
+            heapCommon[to] = heapCommon[from];
+        }
+    }
+
+    /**
+     * First position in [from, to) of a sorted array with a value not below key,
+     * by doubling steps, then binary search
+     */
+    static int gallop(int[] values, int from, int to, int key) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < to && values[high] < key) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, to);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < key) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    public static void main(String[] args) {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        GraphLoader.loadGraph(builder, "data/facebook_2000.txt");
+        FriendRecommender recommender = new FriendRecommender(builder.build());
+        CsrGraph graph = recommender.getGraph();
+
+        for (Measure measure : Measure.values()) {
+            long start = System.nanoTime();
+            for (int v = 0; v < graph.getNumVertices(); v++)
+                recommender.recommend(graph.getVertexId(v), 10, measure);
+            System.out.printf("%s: %.1f us per query, for %d: %s%n", measure,
+                    (System.nanoTime() - start) / 1e3 / graph.getNumVertices(), graph.getVertexId(0),
+                    recommender.recommend(graph.getVertexId(0), 5, measure));
+        }
+    }
+}
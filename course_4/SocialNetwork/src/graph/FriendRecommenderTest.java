@@ -0,0 +1,128 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class FriendRecommenderTest {
+
+    // 1 is friends with 2, 3, 4; 5 knows 2, 3 and 4, 6 knows 2 only, 7 knows 4 and hub 8
+    private static CsrGraph smallGraph() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        int[][] edges = {{1, 2}, {1, 3}, {1, 4}, {5, 2}, {5, 3}, {5, 4}, {6, 2}, {7, 4}, {7, 8}};
+        for (int[] edge : edges)
+            builder.addEdge(edge[0], edge[1]).addEdge(edge[1], edge[0]);
+        return builder.build();
+    }
+
+    private static List<Integer> vertices(List<FriendRecommender.Recommendation> recommendations) {
+        List<Integer> result = new ArrayList<>();
+        for (FriendRecommender.Recommendation recommendation : recommendations)
+            result.add(recommendation.getVertex());
+        return result;
+    }
+
+    @Test
+    public void commonNeighborsShouldRankFriendsOfFriends() {
+        FriendRecommender recommender = new FriendRecommender(smallGraph());
+        List<FriendRecommender.Recommendation> result =
+                recommender.recommend(1, 10, FriendRecommender.Measure.COMMON_NEIGHBORS);
+
+        assertEquals(Arrays.asList(5, 6, 7), vertices(result));
+        assertEquals(3, result.get(0).getScore(), 0);
+        assertEquals(3, result.get(0).getCommonNeighbors());
+        assertEquals(Arrays.asList(5), vertices(recommender.recommend(1, 1, FriendRecommender.Measure.COMMON_NEIGHBORS)));
+        assertTrue(recommender.recommend(1, 0, FriendRecommender.Measure.COMMON_NEIGHBORS).isEmpty());
+    }
+
+    @Test
+    public void jaccardAndAdamicAdarShouldMatchDefinitions() {
+        FriendRecommender recommender = new FriendRecommender(smallGraph());
+
+        List<FriendRecommender.Recommendation> jaccard = recommender.recommend(1, 3, FriendRecommender.Measure.JACCARD);
+        assertEquals(Arrays.asList(5, 6, 7), vertices(jaccard));
+        assertEquals(1.0, jaccard.get(0).getScore(), 1e-12);
+        // 6 shares 2 of {2, 3, 4}, 7 shares 4 of {2, 3, 4, 8}
+        assertEquals(1.0 / 3, jaccard.get(1).getScore(), 1e-12);
+        assertEquals(1.0 / 4, jaccard.get(2).getScore(), 1e-12);
+
+        List<FriendRecommender.Recommendation> adamicAdar =
+                recommender.recommend(1, 3, FriendRecommender.Measure.ADAMIC_ADAR);
+        assertEquals(2 / Math.log(3) + 1 / Math.log(2), adamicAdar.get(0).getScore(), 1e-12);
+        // 2 has friends 1, 5, 6 and 4 has friends 1, 5, 7: tie broken by id
+        assertEquals(Arrays.asList(5, 6, 7), vertices(adamicAdar));
+    }
+
+    @Test
+    public void askingForMoreThanCandidatesShouldGiveAllOfThem() {
+        FriendRecommender recommender = new FriendRecommender(smallGraph());
+
+        assertEquals(Arrays.asList(5, 6, 7),
+                vertices(recommender.recommend(1, Integer.MAX_VALUE, FriendRecommender.Measure.COMMON_NEIGHBORS)));
+        assertEquals(Arrays.asList(4), vertices(recommender.recommend(8, 100, FriendRecommender.Measure.JACCARD)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingVertexShouldFail() {
+        new FriendRecommender(smallGraph()).recommend(42, 1, FriendRecommender.Measure.JACCARD);
+    }
+
+    @Test
+    public void recommendationsShouldMatchBruteForce() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        GraphLoader.loadGraph(builder, "data/facebook_1000.txt");
+        CsrGraph graph = builder.build();
+        FriendRecommender recommender = new FriendRecommender(graph);
+        HashMap<Integer, HashSet<Integer>> friends = graph.exportGraph();
+
+        for (int v = 0; v < graph.getNumVertices(); v += 11) {
+            int u = graph.getVertexId(v);
+            Set<Integer> own = friends.get(u);
+            Map<Integer, Integer> common = new HashMap<>();
+            for (int w : own)
+                for (int x : friends.get(w))
+                    if (x != u && !own.contains(x)) common.merge(x, 1, Integer::sum);
+            List<Integer> expected = new ArrayList<>(common.keySet());
+            expected.sort((a, b) -> common.get(a).equals(common.get(b)) ? Integer.compare(a, b) : common.get(b) - common.get(a));
+
+            List<FriendRecommender.Recommendation> actual =
+                    recommender.recommend(u, 5, FriendRecommender.Measure.COMMON_NEIGHBORS);
+            assertEquals(expected.subList(0, Math.min(5, expected.size())), vertices(actual));
+        }
+    }
+
+    @Test
+    public void sketchesShouldEstimateHubSimilarity() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        // hubs 1 and 2 share friends 100..179, each has 20 more of its own
+        for (int f = 100; f < 180; f++)
+            builder.addEdge(1, f).addEdge(f, 1).addEdge(2, f).addEdge(f, 2);
+        for (int f = 200; f < 220; f++)
+            builder.addEdge(1, f).addEdge(f, 1).addEdge(2, f + 100).addEdge(f + 100, 2);
+        FriendRecommender recommender = new FriendRecommender(builder.build()).useSketches(256, 50, 3);
+
+        FriendRecommender.Recommendation top = recommender.recommend(1, 1, FriendRecommender.Measure.JACCARD).get(0);
+        assertEquals(2, top.getVertex());
+        assertEquals(80.0 / 120, top.getScore(), 0.1);
+        assertEquals(80, top.getCommonNeighbors(), 10);
+        // Adamic-Adar still intersects the lists
+        assertEquals(80 / Math.log(2),
+                recommender.recommend(1, 1, FriendRecommender.Measure.ADAMIC_ADAR).get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    public void gallopShouldFindFirstNotBelow() {
+        int[] values = {1, 3, 5, 7, 9, 11, 13};
+
+        assertEquals(0, FriendRecommender.gallop(values, 0, values.length, 0));
+        assertEquals(3, FriendRecommender.gallop(values, 0, values.length, 7));
+        assertEquals(4, FriendRecommender.gallop(values, 2, values.length, 8));
+        assertEquals(7, FriendRecommender.gallop(values, 0, values.length, 14));
+    }
+}
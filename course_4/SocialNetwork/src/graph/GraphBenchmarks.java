@@ -0,0 +1,115 @@
+package graph;
+
+import util.Benchmark;
+import util.EdgeList;
+import util.GraphLoader;
+import util.PowerLawGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Created by Alex Filatau.
+ * Performance suite of the social graph module, run with {@link util.Benchmark}:
+ * loading, SCCs, egonets of vertices of high, middle and low degree, top vertices by centrality
+ * and whole SpreadRunner runs.
+ * <p>
+ * Arguments are the graphs to run on: edge list files, or powerlaw:N:M for a generated graph of
+ * N vertices with M edges per vertex (see {@link PowerLawGenerator}). Without arguments the
+ * bundled facebook_1000, facebook_2000 and twitter_higgs are used. Run with enough heap for the
+ * biggest graph, for example -Xmx4g.
+ */
+public class GraphBenchmarks {
+    // Sensors placed by centrality for SpreadRunner runs
+    private static final int SENSORS = 10;
+    // Vertices asked for from getTopVerticesByCentrality
+    private static final int TOP_VERTICES = 100;
+
+    private final Benchmark heavy = new Benchmark().setWarmupIterations(2).setIterations(5);
+    private final Benchmark light = new Benchmark().setWarmupIterations(5).setIterations(10);
+
+    /**
+     * Run all benchmarks on one graph
+     *
+     * @param name     name of the graph in the results
+     * @param filename edge list to load it from
+     * @return results in the order they ran
+     */
+    public List<Benchmark.Result> run(String name, String filename) {
+        List<Benchmark.Result> results = new ArrayList<>();
+        results.add(heavy.run(name + " load", () -> {
+            SocialGraph loaded = new SocialGraph();
+            GraphLoader.loadGraph(loaded, filename);
+            return loaded;
+        }));
+
+        SocialGraph graph = new SocialGraph();
+        GraphLoader.loadGraph(graph, filename);
+        int numVertices = graph.getVertices().size();
+        if (numVertices == 0) return results;
+        results.add(heavy.run(name + " getSCCs", () -> graph.getSCCs().size()));
+
+        List<Integer> byDegree = graph.getTopVerticesByCentrality(numVertices);
+        int[] positions = {0, numVertices / 100, numVertices / 2};
+        String[] labels = {"top", "p99", "median"};
+        for (int i = 0; i < positions.length; i++) {
+            int center = byDegree.get(positions[i]);
+            int degree = graph.getCentrality(center);
+            // short egonets are timed in batches
+            Benchmark egonets = new Benchmark().setWarmupIterations(5).setIterations(10)
+                    .setOperationsPerIteration(Math.max(1, 10_000 / (1 + degree * degree)));
+            results.add(egonets.run(String.format("%s getEgonet %s (degree %d)", name, labels[i], degree),
+                    () -> graph.getEgonet(center)));
+        }
+
+        results.add(light.run(name + " getTopVerticesByCentrality",
+                () -> graph.getTopVerticesByCentrality(TOP_VERTICES)));
+
+        SplittableRandom random = new SplittableRandom(1);
+        List<Integer> origins = graph.getRandomVertices(Math.min(numVertices, 1000), random);
+        AbsoluteSocialSpread spread = new AbsoluteSocialSpread(graph);
+        SpreadRunner runner = new SpreadRunner(graph, spread);
+        int[] next = {0};
+        results.add(light.run(name + " SpreadRunner.run", () -> {
+            runner.reset();
+            runner.setSpreadPoint(origins.get(next[0]++ % origins.size()));
+            runner.setSensorsCentralityByCount(Math.min(SENSORS, numVertices));
+            runner.run();
+            return spread.getCurrentStepNumber();
+        }));
+        return results;
+    }
+
+    /**
+     * Generate a power-law graph into a temporary binary edges file
+     *
+     * @param spec powerlaw:N:M
+     * @return the file, deleted on exit
+     */
+    static String generate(String spec) throws IOException {
+        String[] parts = spec.split(":");
+        if (parts.length != 3)
+            throw new IllegalArgumentException(String.format("Graph [%s] is not powerlaw:N:M", spec));
+        EdgeList edges = PowerLawGenerator.generate(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), 1);
+        File file = File.createTempFile("powerlaw", ".edges");
+        file.deleteOnExit();
+        GraphLoader.saveEdges(edges, file.getPath());
+        return file.getPath();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0)
+            args = new String[]{"data/facebook_1000.txt", "data/facebook_2000.txt", "data/twitter_higgs.txt"};
+
+        GraphBenchmarks benchmarks = new GraphBenchmarks();
+        for (String graph : args) {
+            String filename = graph.startsWith("powerlaw:") ? generate(graph) : graph;
+            String name = graph.startsWith("powerlaw:") ? graph : new File(graph).getName();
+            for (Benchmark.Result result : benchmarks.run(name, filename))
+                System.out.println(result);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package graph;
+
+/**
+ * Created by Alex Filatau.
+ * Independent Cascade model: a vertex triggered in the last step gets one chance
+ * to trigger each of its non-triggered friends, succeeding with a fixed probability.
+ */
+public class IndependentCascadeSpread extends RandomSocialSpread {
+
+    private final double probability;
+
+    /**
+     * @param graph       target Graph
+     * @param probability chance that a friendship passes the spread on
+     */
+    public IndependentCascadeSpread(SocialGraph graph, double probability) {
+        super(graph);
+        this.probability = checkProbability(probability);
+    }
+
+    /**
+     * @param graph       target Graph
+     * @param probability chance that a friendship passes the spread on
+     * @param seed        seed of the random generator
+     */
+    public IndependentCascadeSpread(SocialGraph graph, double probability, long seed) {
+        super(graph, seed);
+        this.probability = checkProbability(probability);
+    }
+
+    private static double checkProbability(double probability) {
+        if (!(probability >= 0 && probability <= 1))
+            throw new IllegalArgumentException(String.format("Probability [%s] is not between 0 and 1", probability));
+        return probability;
+    }
+
+    public double getProbability() {
+        return probability;
+    }
+
+    /**
+     * Each edge from the frontier is tried once: in push mode every edge is tried,
+     * in pull mode trying stops at the first success, when the rest can't matter anymore
+     */
+    @Override
+    protected boolean tryActivate(int source, int target) {
+        return random.nextDouble() < probability;
+    }
+}
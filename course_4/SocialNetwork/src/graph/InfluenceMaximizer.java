@@ -0,0 +1,394 @@
+package graph;
+
+import util.GraphLoader;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * Picks starting points for a spread so that it reaches as many vertices as possible.
+ * <p>
+ * Two methods:
+ * <ul>
+ * <li>{@link #selectByCelf} - greedy selection with CELF++ lazy evaluation (Goyal et al.), every
+ * marginal gain estimated by Monte Carlo simulations. Accurate, but only practical for
+ * small graphs or a short list of candidates.</li>
+ * <li>{@link #selectByRis} - reverse influence sampling (Borgs et al.): sample the sets of vertices
+ * that would have triggered a random vertex, then greedily cover as many sets as possible.
+ * Sets are stored back to back in one int array, bounded by {@link #setMaxSampleEntries(long)}.</li>
+ * </ul>
+ */
+public class InfluenceMaximizer {
+
+    /**
+     * Spread model the seeds are chosen for
+     */
+    public enum Model {
+        INDEPENDENT_CASCADE,
+        LINEAR_THRESHOLD
+    }
+
+    // Default bound of vertex entries over all sampled sets, 4 bytes each
+    static final long DEFAULT_MAX_SAMPLE_ENTRIES = 64L << 20;
+    // Sampling tasks per worker thread
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final SocialGraph graph;
+    private final Model model;
+    private final double probability;
+    private long maxSampleEntries = DEFAULT_MAX_SAMPLE_ENTRIES;
+
+    /**
+     * @param graph       target graph
+     * @param model       spread model
+     * @param probability edge probability of the Independent Cascade model, ignored for Linear Threshold
+     */
+    public InfluenceMaximizer(SocialGraph graph, Model model, double probability) {
+        this.graph = graph;
+        this.model = model;
+        this.probability = probability;
+        if (model == Model.INDEPENDENT_CASCADE && !(probability >= 0 && probability <= 1))
+            throw new IllegalArgumentException(String.format("Probability [%s] is not between 0 and 1", probability));
+    }
+
+    /**
+     * Bound the memory of reverse influence sampling; sampling stops early once
+     * this many vertex entries are stored
+     *
+     * @param maxSampleEntries number of int entries over all sets, fitting in one array
+     */
+    public void setMaxSampleEntries(long maxSampleEntries) {
+        if (maxSampleEntries < 1 || maxSampleEntries > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException(String.format("Sample entries [%s] don't fit in an array", maxSampleEntries));
+        this.maxSampleEntries = maxSampleEntries;
+    }
+
+    private Function<SocialGraph, RandomSocialSpread> spreadFactory() {
+        if (model == Model.INDEPENDENT_CASCADE)
+            return g -> new IndependentCascadeSpread(g, probability);
+        return LinearThresholdSpread::new;
+    }
+
+    /**
+     * CELF++ greedy selection over all vertices of the graph
+     *
+     * @param k           number of seeds
+     * @param simulations Monte Carlo simulations per spread estimate
+     * @param seed        seed of the simulations
+     * @return chosen seeds
+     */
+    public SeedSelection selectByCelf(int k, int simulations, long seed) {
+        return selectByCelf(k, graph.getVertices(), simulations, seed);
+    }
+
+    /**
+     * CELF++ greedy selection among the given candidates.
+     * <p>
+     * Every candidate keeps its marginal gain over the seeds chosen so far and, ahead of time, its
+     * gain over those seeds plus the best candidate of the current round. If that candidate is
+     * picked next, the second gain is already up to date and no simulation is needed.
+     * All estimates use the same seed, so differences between them aren't just noise.
+     *
+     * @param k           number of seeds
+     * @param candidates  vertices to choose from
+     * @param simulations Monte Carlo simulations per spread estimate
+     * @param seed        seed of the simulations
+     * @return chosen seeds
+     */
+    public SeedSelection selectByCelf(int k, Collection<Integer> candidates, int simulations, long seed) {
+        MonteCarloSpreadRunner runner = new MonteCarloSpreadRunner(graph, spreadFactory());
+        List<Integer> seeds = new ArrayList<>();
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        Candidate currentBest = null;
+        double currentBestSpread = 0;
+
+        for (int vertex : candidates) {
+            Candidate candidate = new Candidate(vertex);
+            candidate.gain = spread(runner, Collections.singletonList(vertex), simulations, seed);
+            if (currentBest != null) {
+                candidate.previousBest = currentBest.vertex;
+                candidate.gainWithPreviousBest =
+                        spread(runner, Arrays.asList(currentBest.vertex, vertex), simulations, seed) - currentBestSpread;
+            }
+            if (currentBest == null || candidate.gain > currentBest.gain) {
+                currentBest = candidate;
+                currentBestSpread = candidate.gain;
+            }
+            queue.add(candidate);
+        }
+
+        double spread = 0;
+        Integer lastSeed = null;
+        currentBest = null;
+        while (seeds.size() < k && !queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            if (candidate.round == seeds.size()) {
+                seeds.add(candidate.vertex);
+                spread += candidate.gain;
+                lastSeed = candidate.vertex;
+                currentBest = null;
+                continue;
+            }
+
+            if (candidate.round == seeds.size() - 1 && lastSeed != null && lastSeed.equals(candidate.previousBest)) {
+                candidate.gain = candidate.gainWithPreviousBest;
+            } else {
+                List<Integer> withCandidate = new ArrayList<>(seeds);
+                withCandidate.add(candidate.vertex);
+                candidate.gain = spread(runner, withCandidate, simulations, seed) - spread;
+                if (currentBest != null) {
+                    candidate.previousBest = currentBest.vertex;
+                    withCandidate.add(currentBest.vertex);
+                    candidate.gainWithPreviousBest = spread(runner, withCandidate, simulations, seed)
+                            - spread - currentBest.gain;
+                }
+            }
+            candidate.round = seeds.size();
+            if (currentBest == null || candidate.gain > currentBest.gain)
+                currentBest = candidate;
+            queue.add(candidate);
+        }
+        return new SeedSelection(seeds, spread, simulations);
+    }
+
+    private static double spread(MonteCarloSpreadRunner runner, List<Integer> seeds, int simulations, long seed) {
+        return runner.run(seeds, simulations, seed).getMeanSpread();
+    }
+
+    /**
+     * Marginal gain bookkeeping of one CELF++ candidate, ordered by gain, best first
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        final int vertex;
+        double gain;
+        Integer previousBest;
+        double gainWithPreviousBest;
+        // number of seeds the gain was computed against
+        int round;
+
+        Candidate(int vertex) {
+            this.vertex = vertex;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Double.compare(other.gain, gain);
+        }
+    }
+
+    /**
+     * Reverse influence sampling: sample reverse reachable sets from random vertices in parallel,
+     * then greedily pick the vertices covering most sets. The share of covered sets times the
+     * number of vertices estimates the spread of the seeds.
+     *
+     * @param k       number of seeds
+     * @param samples number of reverse reachable sets, fewer if the memory bound is hit first
+     * @param seed    seed of the sampling
+     * @return chosen seeds
+     */
+    public SeedSelection selectByRis(int k, int samples, long seed) {
+        CsrGraph snapshot = graph.getSnapshot();
+        int n = snapshot.getNumVertices();
+        if (n == 0) return new SeedSelection(new ArrayList<>(), 0, 0);
+
+        // fixed tasks with seeds generated upfront, so results don't depend on scheduling
+        int tasks = Math.max(1, Math.min(samples, Runtime.getRuntime().availableProcessors() * TASKS_PER_THREAD));
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long[] taskSeeds = new long[tasks];
+        for (int t = 0; t < tasks; t++)
+            taskSeeds[t] = seeds.nextLong();
+        ReverseSamples[] parts = new ReverseSamples[tasks];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            int count = (int) ((long) samples * (t + 1) / tasks - (long) samples * t / tasks);
+            long entries = maxSampleEntries * (t + 1) / tasks - maxSampleEntries * t / tasks;
+            // a sampler per task, so its O(n) buffers are dropped with the task
+            parts[t] = new ReverseSampler(snapshot).sample(count, entries, new SplittableRandom(taskSeeds[t]));
+        });
+        ReverseSamples sets = ReverseSamples.concat(parts);
+
+        List<Integer> chosen = new ArrayList<>();
+        int covered = sets.cover(k, chosen);
+        List<Integer> result = new ArrayList<>();
+        for (int index : chosen)
+            result.add(snapshot.getVertexId(index));
+        double spread = sets.size() == 0 ? 0 : (double) n * covered / sets.size();
+        return new SeedSelection(result, spread, sets.size());
+    }
+
+    /**
+     * Reverse reachable sets stored back to back: set s holds vertices[offsets[s] .. offsets[s + 1])
+     */
+    private static class ReverseSamples {
+        private final int n;
+        private final int[] offsets;
+        private final int[] vertices;
+        private final int numSets;
+
+        ReverseSamples(int n, int[] offsets, int[] vertices, int numSets) {
+            this.n = n;
+            this.offsets = offsets;
+            this.vertices = vertices;
+            this.numSets = numSets;
+        }
+
+        int size() {
+            return numSets;
+        }
+
+        static ReverseSamples concat(ReverseSamples[] parts) {
+            int numSets = 0;
+            int entries = 0;
+            for (ReverseSamples part : parts) {
+                numSets += part.numSets;
+                entries += part.offsets[part.numSets];
+            }
+            int[] offsets = new int[numSets + 1];
+            int[] vertices = new int[entries];
+            int s = 0;
+            int position = 0;
+            for (ReverseSamples part : parts) {
+                int length = part.offsets[part.numSets];
+                System.arraycopy(part.vertices, 0, vertices, position, length);
+                for (int i = 0; i < part.numSets; i++)
+                    offsets[s++] = position + part.offsets[i];
+                position += length;
+            }
+            offsets[numSets] = position;
+            return new ReverseSamples(parts[0].n, offsets, vertices, numSets);
+        }
+
+        /**
+         * Greedy maximum coverage: repeatedly pick the vertex in most uncovered sets
+         *
+         * @param k      number of vertices to pick
+         * @param chosen receives indices of the picked vertices
+         * @return number of sets covered
+         */
+        int cover(int k, List<Integer> chosen) {
+            // sets containing each vertex, inverted from the flat storage
+            int[] count = new int[n];
+            int entries = offsets[numSets];
+            for (int i = 0; i < entries; i++)
+                count[vertices[i]]++;
+            int[] setOffsets = new int[n + 1];
+            for (int v = 0; v < n; v++)
+                setOffsets[v + 1] = setOffsets[v] + count[v];
+            int[] setsOf = new int[entries];
+            int[] position = Arrays.copyOf(setOffsets, n);
+            for (int s = 0; s < numSets; s++)
+                for (int i = offsets[s]; i < offsets[s + 1]; i++)
+                    setsOf[position[vertices[i]]++] = s;
+
+            boolean[] isCovered = new boolean[numSets];
+            boolean[] isChosen = new boolean[n];
+            int covered = 0;
+            while (chosen.size() < Math.min(k, n)) {
+                int best = -1;
+                for (int v = 0; v < n; v++)
+                    if (!isChosen[v] && (best < 0 || count[v] > count[best]))
+                        best = v;
+                isChosen[best] = true;
+                chosen.add(best);
+                for (int i = setOffsets[best]; i < setOffsets[best + 1]; i++) {
+                    int s = setsOf[i];
+                    if (isCovered[s]) continue;
+                    isCovered[s] = true;
+                    covered++;
+                    for (int j = offsets[s]; j < offsets[s + 1]; j++)
+                        count[vertices[j]]--;
+                }
+            }
+            return covered;
+        }
+    }
+
+    /**
+     * Samples reverse reachable sets with scratch arrays reused between sets
+     */
+    private class ReverseSampler {
+        private final CsrGraph snapshot;
+        private final int[] visited;
+        private int stamp;
+        // sets being sampled by the current call
+        private int[] vertices;
+        private int size;
+        private long maxEntries;
+
+        ReverseSampler(CsrGraph snapshot) {
+            this.snapshot = snapshot;
+            this.visited = new int[snapshot.getNumVertices()];
+        }
+
+        ReverseSamples sample(int count, long maxEntries, SplittableRandom random) {
+            int n = snapshot.getNumVertices();
+            int[] offsets = new int[count + 1];
+            this.vertices = new int[(int) Math.max(1, Math.min(count * 4L, maxEntries))];
+            this.size = 0;
+            this.maxEntries = maxEntries;
+            int s = 0;
+            while (s < count) {
+                offsets[s] = size;
+                if (!sampleSet(random.nextInt(n), random)) {
+                    // the set didn't fit, keep the complete ones only
+                    size = offsets[s];
+                    break;
+                }
+                s++;
+            }
+            offsets[s] = size;
+            ReverseSamples result = new ReverseSamples(n, offsets, vertices, s);
+            vertices = null;
+            return result;
+        }
+
+        // Breadth-first search along live in-edges, the set itself serving as the queue
+        private boolean sampleSet(int root, SplittableRandom random) {
+            stamp++;
+            if (!add(root)) return false;
+            for (int head = size - 1; head < size; head++) {
+                int v = vertices[head];
+                int from = snapshot.inOffsets[v];
+                int to = snapshot.inOffsets[v + 1];
+                if (from == to) continue;
+                if (model == Model.LINEAR_THRESHOLD) {
+                    // live-edge form of the model: every vertex listens to one random in-neighbor
+                    int u = snapshot.inSources[from + random.nextInt(to - from)];
+                    if (visited[u] != stamp && !add(u)) return false;
+                    continue;
+                }
+                for (int e = from; e < to; e++) {
+                    int u = snapshot.inSources[e];
+                    if (visited[u] != stamp && random.nextDouble() < probability && !add(u)) return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean add(int vertex) {
+            if (size == vertices.length) {
+                if (size >= maxEntries) return false;
+                vertices = Arrays.copyOf(vertices, (int) Math.min(Math.min(size * 2L, maxEntries), Integer.MAX_VALUE - 8));
+            }
+            visited[vertex] = stamp;
+            vertices[size++] = vertex;
+            return true;
+        }
+    }
+
+    public static void main(String[] args) {
+        SocialGraph graph = new SocialGraph();
+        GraphLoader.loadGraph(graph, "data/twitter_higgs.txt");
+
+        long start = System.nanoTime();
+        InfluenceMaximizer maximizer = new InfluenceMaximizer(graph, Model.INDEPENDENT_CASCADE, 0.1);
+        SeedSelection selection = maximizer.selectByRis(50, 1_000_000, 42);
+        System.out.println("RIS: " + selection);
+        System.out.println(String.format("Done in %d ms", (System.nanoTime() - start) / 1_000_000));
+
+        MonteCarloResult check = new MonteCarloSpreadRunner(graph, g -> new IndependentCascadeSpread(g, 0.1))
+                .run(selection.getSeeds(), 1000, 7);
+        System.out.println("Simulated spread of the seeds: " + check);
+    }
+}
@@ -0,0 +1,77 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class InfluenceMaximizerTest {
+
+    // star of 1 with 10 friends, star of 20 with 3 friends, and 30 -> 31
+    private static SocialGraph stars() {
+        SocialGraph graph = new SocialGraph();
+        for (int i = 2; i <= 11; i++)
+            graph.addEdge(1, i);
+        for (int i = 21; i <= 23; i++)
+            graph.addEdge(20, i);
+        graph.addEdge(30, 31);
+        return graph;
+    }
+
+    @Test
+    public void celfShouldPickCentersOfBiggestStars() {
+        InfluenceMaximizer maximizer = new InfluenceMaximizer(stars(), InfluenceMaximizer.Model.INDEPENDENT_CASCADE, 1);
+        SeedSelection selection = maximizer.selectByCelf(2, 10, 1);
+
+        assertEquals(Arrays.asList(1, 20), selection.getSeeds());
+        assertEquals(15, selection.getEstimatedSpread(), 1e-9);
+    }
+
+    @Test
+    public void risShouldPickCentersOfBiggestStars() {
+        InfluenceMaximizer maximizer = new InfluenceMaximizer(stars(), InfluenceMaximizer.Model.INDEPENDENT_CASCADE, 1);
+        SeedSelection selection = maximizer.selectByRis(2, 20_000, 1);
+
+        assertEquals(Arrays.asList(1, 20), selection.getSeeds());
+        assertEquals(20_000, selection.getSamples());
+        assertEquals(15, selection.getEstimatedSpread(), 0.5);
+    }
+
+    @Test
+    public void risEstimateShouldMatchSimulation() {
+        SocialGraph graph = new SocialGraph();
+        GraphLoader.loadGraph(graph, "data/facebook_1000.txt");
+        for (InfluenceMaximizer.Model model : InfluenceMaximizer.Model.values()) {
+            SeedSelection selection = new InfluenceMaximizer(graph, model, 0.05).selectByRis(5, 100_000, 3);
+            MonteCarloSpreadRunner runner = new MonteCarloSpreadRunner(graph,
+                    model == InfluenceMaximizer.Model.INDEPENDENT_CASCADE
+                            ? g -> new IndependentCascadeSpread(g, 0.05) : LinearThresholdSpread::new);
+            double simulated = runner.run(selection.getSeeds(), 5000, 5).getMeanSpread();
+
+            assertEquals(5, new HashSet<>(selection.getSeeds()).size());
+            assertEquals(model.toString(), simulated, selection.getEstimatedSpread(), simulated * 0.1);
+        }
+    }
+
+    @Test
+    public void risShouldStopSamplingAtMemoryBound() {
+        InfluenceMaximizer maximizer = new InfluenceMaximizer(stars(), InfluenceMaximizer.Model.INDEPENDENT_CASCADE, 1);
+        maximizer.setMaxSampleEntries(100);
+        SeedSelection selection = maximizer.selectByRis(1, 10_000, 1);
+
+        assertTrue(selection.getSamples() > 0);
+        assertTrue(selection.getSamples() < 100);
+        assertEquals(Integer.valueOf(1), selection.getSeeds().get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectProbabilityAboveOne() {
+        new InfluenceMaximizer(stars(), InfluenceMaximizer.Model.INDEPENDENT_CASCADE, 1.5);
+    }
+}
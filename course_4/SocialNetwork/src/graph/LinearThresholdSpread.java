@@ -0,0 +1,66 @@
+package graph;
+
+/**
+ * Created by Alex Filatau.
+ * Linear Threshold model: every vertex picks a random threshold between 0 and 1 and gets
+ * triggered once the share of its triggered followed-by friends (in-neighbors, all with
+ * the same weight) reaches it.
+ * <p>
+ * Thresholds are drawn when a vertex is first reached in a run, so a run only costs
+ * as much as the part of the graph it touches.
+ */
+public class LinearThresholdSpread extends RandomSocialSpread {
+
+    private CsrGraph snapshot;
+    // per vertex, valid while run[v] == currentRun: triggered in-neighbors and how many are needed
+    private int[] triggeredFriends;
+    private int[] requiredFriends;
+    private int[] run;
+    private int currentRun;
+
+    /**
+     * @param graph target Graph
+     */
+    public LinearThresholdSpread(SocialGraph graph) {
+        super(graph);
+    }
+
+    /**
+     * @param graph target Graph
+     * @param seed  seed of the random generator
+     */
+    public LinearThresholdSpread(SocialGraph graph, long seed) {
+        super(graph, seed);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        currentRun++;
+    }
+
+    /**
+     * New vertices get new arrays; counts of the running spread start again from the next step
+     */
+    @Override
+    protected void snapshotChanged(CsrGraph snapshot) {
+        int n = snapshot.getNumVertices();
+        this.snapshot = snapshot;
+        triggeredFriends = new int[n];
+        requiredFriends = new int[n];
+        run = new int[n];
+        currentRun = 1;
+    }
+
+    @Override
+    protected boolean tryActivate(int source, int target) {
+        if (run[target] != currentRun) {
+            run[target] = currentRun;
+            triggeredFriends[target] = 0;
+            // threshold in (0, 1] as a number of in-neighbors, at least one
+            double threshold = 1 - random.nextDouble();
+            requiredFriends[target] = Math.max(1, (int) Math.ceil(threshold * snapshot.getInDegree(target)));
+        }
+        return ++triggeredFriends[target] >= requiredFriends[target];
+    }
+}
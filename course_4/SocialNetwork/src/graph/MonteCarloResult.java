@@ -0,0 +1,89 @@
+package graph;
+
+/**
+ * Created by Alex Filatau.
+ * Aggregated outcome of many simulated spreads from the same starting points
+ */
+public class MonteCarloResult {
+    private final int simulations;
+    private final double meanSpread;
+    private final double variance;
+    private final int minSpread;
+    private final int maxSpread;
+    private final double[] meanCurve;
+
+    MonteCarloResult(int[] finalSizes, int[][] curves) {
+        this.simulations = finalSizes.length;
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        double sum = 0;
+        for (int size : finalSizes) {
+            sum += size;
+            min = Math.min(min, size);
+            max = Math.max(max, size);
+        }
+        this.meanSpread = simulations == 0 ? 0 : sum / simulations;
+        double squares = 0;
+        for (int size : finalSizes)
+            squares += (size - meanSpread) * (size - meanSpread);
+        this.variance = simulations < 2 ? 0 : squares / (simulations - 1);
+        this.minSpread = simulations == 0 ? 0 : min;
+        this.maxSpread = max;
+
+        // runs that stopped early keep their final size for the later steps
+        int length = 0;
+        for (int[] curve : curves)
+            length = Math.max(length, curve.length);
+        this.meanCurve = new double[length];
+        for (int[] curve : curves)
+            for (int step = 0; step < length; step++)
+                meanCurve[step] += curve[Math.min(step, curve.length - 1)];
+        for (int step = 0; step < length; step++)
+            meanCurve[step] /= simulations;
+    }
+
+    public int getSimulations() {
+        return simulations;
+    }
+
+    /**
+     * Expected number of triggered vertices once the spread stops
+     */
+    public double getMeanSpread() {
+        return meanSpread;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * Standard error of the mean spread, shrinks with the square root of the number of simulations
+     */
+    public double getStandardError() {
+        return simulations == 0 ? 0 : Math.sqrt(variance / simulations);
+    }
+
+    public int getMinSpread() {
+        return minSpread;
+    }
+
+    public int getMaxSpread() {
+        return maxSpread;
+    }
+
+    /**
+     * Expected number of triggered vertices after each step
+     *
+     * @return element s is the mean after s steps, element 0 is the number of starting points
+     */
+    public double[] getMeanCurve() {
+        return meanCurve.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MonteCarloResult{simulations=%d, meanSpread=%.2f, standardError=%.2f, min=%d, max=%d, steps=%d}",
+                simulations, meanSpread, getStandardError(), minSpread, maxSpread, meanCurve.length - 1);
+    }
+}
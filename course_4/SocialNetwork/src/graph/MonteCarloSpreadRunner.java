@@ -0,0 +1,112 @@
+package graph;
+
+import util.GraphLoader;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * Runs many simulations of a probabilistic spread from the same starting points in parallel
+ * and aggregates the results.
+ * <p>
+ * Every simulation gets its own seed, generated upfront from the seed of the whole run,
+ * so results don't depend on how simulations are spread over threads. Simulations are split
+ * into a few tasks per thread; every task creates one spread with the factory and reuses its
+ * state for all of its simulations, and the spread is dropped when the task is done.
+ */
+public class MonteCarloSpreadRunner {
+    // Tasks per thread of the common pool, so uneven simulations still balance
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final SocialGraph graph;
+    private final Function<SocialGraph, ? extends RandomSocialSpread> spreadFactory;
+
+    /**
+     * @param graph         target graph
+     * @param spreadFactory creates a spread on the graph, for example {@code g -> new IndependentCascadeSpread(g, 0.1)}
+     */
+    public MonteCarloSpreadRunner(SocialGraph graph, Function<SocialGraph, ? extends RandomSocialSpread> spreadFactory) {
+        this.graph = graph;
+        this.spreadFactory = spreadFactory;
+    }
+
+    /**
+     * Run simulations until every spread stops
+     *
+     * @param startingPoints vertices triggered before the first step
+     * @param simulations    number of simulations
+     * @param seed           seed of the whole run
+     * @return aggregated results
+     */
+    public MonteCarloResult run(Collection<Integer> startingPoints, int simulations, long seed) {
+        return run(startingPoints, simulations, seed, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Run simulations for at most the given number of steps each
+     *
+     * @param startingPoints vertices triggered before the first step
+     * @param simulations    number of simulations
+     * @param seed           seed of the whole run
+     * @param maxSteps       steps after which a simulation is stopped
+     * @return aggregated results
+     */
+    public MonteCarloResult run(Collection<Integer> startingPoints, int simulations, long seed, int maxSteps) {
+        if (startingPoints.isEmpty())
+            throw new IllegalStateException("Nothing to spread - not initialized");
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long[] simulationSeeds = new long[simulations];
+        for (int i = 0; i < simulations; i++)
+            simulationSeeds[i] = seeds.nextLong();
+
+        // build the snapshot once, before threads start asking for it
+        graph.getSnapshot();
+        int[] finalSizes = new int[simulations];
+        int[][] curves = new int[simulations][];
+        int tasks = Math.max(1, Math.min(simulations, ForkJoinPool.getCommonPoolParallelism() * TASKS_PER_THREAD));
+
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            RandomSocialSpread spread = spreadFactory.apply(graph);
+            for (int i = (int) ((long) simulations * t / tasks); i < (long) simulations * (t + 1) / tasks; i++) {
+                spread.reset();
+                spread.setSeed(simulationSeeds[i]);
+                for (int vertex : startingPoints)
+                    spread.setStartingPoint(vertex);
+
+                int[] curve = new int[16];
+                int steps = 0;
+                curve[0] = spread.getNumberOfTriggeredVertices();
+                while (steps < maxSteps && spread.step()) {
+                    if (++steps == curve.length)
+                        curve = Arrays.copyOf(curve, steps * 2);
+                    curve[steps] = spread.getNumberOfTriggeredVertices();
+                }
+                curves[i] = Arrays.copyOf(curve, steps + 1);
+                finalSizes[i] = curve[steps];
+            }
+        });
+
+        return new MonteCarloResult(finalSizes, curves);
+    }
+
+    public static void main(String[] args) {
+        SocialGraph graph = new SocialGraph();
+        GraphLoader.loadGraph(graph, "data/facebook_2000.txt");
+        Collection<Integer> startingPoints = graph.getTopVerticesByCentrality(5);
+
+        long start = System.nanoTime();
+        MonteCarloResult cascade = new MonteCarloSpreadRunner(graph, g -> new IndependentCascadeSpread(g, 0.05))
+                .run(startingPoints, 10_000, 42);
+        System.out.println("Independent cascade from " + startingPoints + ": " + cascade);
+        MonteCarloResult threshold = new MonteCarloSpreadRunner(graph, LinearThresholdSpread::new)
+                .run(startingPoints, 10_000, 42);
+        System.out.println("Linear threshold from " + startingPoints + ": " + threshold);
+        System.out.println(String.format("Done in %d ms", (System.nanoTime() - start) / 1_000_000));
+    }
+}
@@ -0,0 +1,97 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class MonteCarloSpreadRunnerTest {
+    @Test
+    public void cascadeAlongChainShouldHalveEachStep() {
+        SocialGraph graph = new SocialGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        MonteCarloResult result = new MonteCarloSpreadRunner(graph, g -> new IndependentCascadeSpread(g, 0.5))
+                .run(Collections.singletonList(1), 40_000, 7);
+
+        // 1 + 1/2 + 1/4
+        assertEquals(1.75, result.getMeanSpread(), 0.02);
+        assertEquals(1, result.getMinSpread());
+        assertEquals(3, result.getMaxSpread());
+        double[] curve = result.getMeanCurve();
+        assertEquals(1.0, curve[0], 1e-9);
+        assertEquals(1.5, curve[1], 0.02);
+    }
+
+    @Test
+    public void sameSeedShouldGiveSameResults() {
+        SocialGraph graph = new SocialGraph();
+        GraphLoader.loadGraph(graph, "data/facebook_1000.txt");
+        List<Integer> startingPoints = graph.getTopVerticesByCentrality(3);
+        MonteCarloSpreadRunner runner = new MonteCarloSpreadRunner(graph, LinearThresholdSpread::new);
+
+        MonteCarloResult first = runner.run(startingPoints, 500, 123);
+        MonteCarloResult second = runner.run(startingPoints, 500, 123);
+        assertEquals(first.getMeanSpread(), second.getMeanSpread(), 0);
+        assertArrayEquals(first.getMeanCurve(), second.getMeanCurve(), 0);
+    }
+
+    @Test
+    public void thresholdShouldTriggerVertexWithAllFriendsTriggered() {
+        SocialGraph graph = new SocialGraph();
+        graph.addEdge(1, 3);
+        graph.addEdge(2, 3);
+        graph.addEdge(3, 4);
+        graph.addEdge(5, 4);
+        LinearThresholdSpread spread = new LinearThresholdSpread(graph, 1);
+
+        for (int run = 0; run < 100; run++) {
+            spread.reset();
+            spread.setSeed(run);
+            spread.setStartingPoint(1);
+            spread.setStartingPoint(2);
+            assertTrue(spread.step());
+            assertTrue(spread.isVertexTriggered(3));
+        }
+    }
+
+    @Test
+    public void cascadeWithProbabilityOneShouldMatchAbsoluteSpread() {
+        SocialGraph graph = new SocialGraph();
+        GraphLoader.loadGraph(graph, "data/facebook_1000.txt");
+        int start = graph.getTopVerticesByCentrality(1).get(0);
+        AbsoluteSocialSpread absolute = new AbsoluteSocialSpread(graph);
+        IndependentCascadeSpread cascade = new IndependentCascadeSpread(graph, 1.0, 5);
+        absolute.setStartingPoint(start);
+        cascade.setStartingPoint(start);
+
+        while (absolute.step())
+            assertTrue(cascade.step());
+        assertFalse(cascade.step());
+        assertEquals(absolute.getAllTriggeredVertices(), cascade.getAllTriggeredVertices());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void probabilityShouldBeBetween0And1() {
+        new IndependentCascadeSpread(new SocialGraph(), 1.5);
+    }
+
+    @Test
+    public void runShouldStopAfterMaxSteps() {
+        SocialGraph graph = new SocialGraph();
+        for (int v = 0; v < 10; v++)
+            graph.addEdge(v, v + 1);
+        MonteCarloResult result = new MonteCarloSpreadRunner(graph, g -> new IndependentCascadeSpread(g, 1.0))
+                .run(Arrays.asList(0), 10, 1, 3);
+
+        assertEquals(4.0, result.getMeanSpread(), 0);
+        assertEquals(4, result.getMeanCurve().length);
+    }
+}
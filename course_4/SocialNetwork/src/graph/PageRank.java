@@ -0,0 +1,106 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * PageRank of every vertex by power iteration on the CSR arrays of a graph.
+ * <p>
+ * Each iteration first spreads every vertex's rank over its out-edges, then every vertex
+ * pulls the shares of its in-neighbors, so no two threads write the same element. Rank of
+ * vertices without out-edges is spread over all vertices. Vertices are split into ranges
+ * of about the same number of in-edges, processed in parallel.
+ */
+public class PageRank extends CentralityScores {
+    public static final double DEFAULT_DAMPING = 0.85;
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    // Number of ranges per worker thread, more than one so uneven ranges even out
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final int iterations;
+
+    private PageRank(CsrGraph graph, double[] ranks, int iterations) {
+        super(graph, ranks);
+        this.iterations = iterations;
+    }
+
+    /**
+     * PageRank with the default damping and tolerance on the common fork/join pool
+     *
+     * @param graph target graph
+     * @return ranks of all vertices, adding up to 1
+     */
+    public static PageRank compute(CsrGraph graph) {
+        return compute(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * PageRank with given parameters
+     *
+     * @param graph         target graph
+     * @param damping       probability to follow an edge rather than jump to a random vertex
+     * @param tolerance     stop once ranks change by less than this in total (L1 norm)
+     * @param maxIterations stop after this many iterations anyway
+     * @param pool          pool to run on
+     * @return ranks of all vertices, adding up to 1
+     */
+    public static PageRank compute(CsrGraph graph, double damping, double tolerance, int maxIterations, ForkJoinPool pool) {
+        if (!(damping >= 0 && damping <= 1))
+            throw new IllegalArgumentException(String.format("Damping [%s] is not between 0 and 1", damping));
+        int n = graph.getNumVertices();
+        if (n == 0) return new PageRank(graph, new double[0], 0);
+
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        double[] share = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+        int[] ranges = EgonetStatistics.splitByEdges(graph.inOffsets, pool.getParallelism() * RANGES_PER_THREAD);
+        int iteration = 0;
+        while (iteration < maxIterations) {
+            iteration++;
+            double[] current = rank;
+            double[] target = next;
+            double dangling = pool.submit(() -> IntStream.range(0, n).parallel().mapToDouble(u -> {
+                int degree = graph.getOutDegree(u);
+                share[u] = degree == 0 ? 0 : current[u] / degree;
+                return degree == 0 ? current[u] : 0;
+            }).sum()).join();
+
+            double base = (1 - damping) / n + damping * dangling / n;
+            double change = pool.submit(() -> IntStream.range(0, ranges.length - 1).parallel()
+                    .mapToDouble(r -> pull(graph, share, current, target, base, damping, ranges[r], ranges[r + 1]))
+                    .sum()).join();
+
+            double[] swap = rank;
+            rank = next;
+            next = swap;
+            if (change < tolerance) break;
+        }
+        return new PageRank(graph, rank, iteration);
+    }
+
+    // Compute next ranks of vertices [from, to), return how much they changed
+    private static double pull(CsrGraph graph, double[] share, double[] rank, double[] next,
+                               double base, double damping, int from, int to) {
+        double change = 0;
+        for (int v = from; v < to; v++) {
+            double sum = 0;
+            for (int e = graph.inOffsets[v]; e < graph.inOffsets[v + 1]; e++)
+                sum += share[graph.inSources[e]];
+            next[v] = base + damping * sum;
+            change += Math.abs(next[v] - rank[v]);
+        }
+        return change;
+    }
+
+    /**
+     * @return number of iterations run before the ranks converged
+     */
+    public int getIterations() {
+        return iterations;
+    }
+}
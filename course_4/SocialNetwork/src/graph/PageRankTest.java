@@ -0,0 +1,53 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class PageRankTest {
+    @Test
+    public void cycleShouldHaveEqualRanks() {
+        CsrGraph graph = new CsrGraph.Builder().addEdge(1, 2).addEdge(2, 3).addEdge(3, 1).build();
+        PageRank ranks = PageRank.compute(graph);
+
+        for (int vertex = 1; vertex <= 3; vertex++)
+            assertEquals(1.0 / 3, ranks.getScore(vertex), 1e-9);
+    }
+
+    @Test
+    public void ranksShouldMatchClosedForm() {
+        // 1 and 2 point to 3, 3 has no out-edges so its rank is spread over all
+        CsrGraph graph = new CsrGraph.Builder().addEdge(1, 3).addEdge(2, 3).build();
+        PageRank ranks = PageRank.compute(graph, 0.85, 1e-12, 1000, ForkJoinPool.commonPool());
+
+        // r1 = r2 = 0.05 + 0.85 * r3 / 3, r3 = r1 + 1.7 * r1, r1 + r2 + r3 = 1
+        double r1 = 1 / 4.7;
+        assertEquals(r1, ranks.getScore(1), 1e-9);
+        assertEquals(r1, ranks.getScore(2), 1e-9);
+        assertEquals(2.7 * r1, ranks.getScore(3), 1e-9);
+        assertEquals(Arrays.asList(3, 1), ranks.getTopVertices(2));
+    }
+
+    @Test
+    public void ranksShouldAddUpToOne() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        GraphLoader.loadGraph(builder, "data/facebook_1000.txt");
+        CsrGraph graph = builder.build();
+        PageRank ranks = PageRank.compute(graph);
+
+        assertEquals(1, Arrays.stream(ranks.getScores()).sum(), 1e-9);
+        assertTrue(ranks.getIterations() < PageRank.DEFAULT_MAX_ITERATIONS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMissingVertex() {
+        PageRank.compute(new CsrGraph.Builder().addEdge(1, 2).build()).getScore(3);
+    }
+}
@@ -0,0 +1,446 @@
+package graph;
+
+import util.GraphLoader;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * Distance statistics of a {@link CsrGraph}, following edge directions: the hop plot N(t),
+ * number of ordered pairs (u, v) with v reachable from u in at most t steps (N(0) counts
+ * every vertex with itself), and what follows from it - diameter, effective diameter
+ * and average path length over reachable pairs of distinct vertices.
+ * <p>
+ * Two ways to compute it:
+ * <ul>
+ * <li>{@link #exact} - multi-source BFS (MS-BFS, Then et al.): 64 sources share one pass,
+ * every vertex holding a 64-bit mask of the sources that have reached it;
+ * passes run in parallel</li>
+ * <li>{@link #approximate} - HyperANF (Boldi, Rosa and Vigna): every vertex keeps a HyperLogLog
+ * counter of the vertices it reaches in t steps, step t + 1 merges the counters of its
+ * out-neighbors; ranges of vertices are merged in parallel</li>
+ * </ul>
+ */
+public class PathStatistics {
+
+    // Graphs with more vertices get HyperANF from of()
+    static final int EXACT_MAX_VERTICES = 50_000;
+    // log2 of HyperLogLog registers per counter used by of(), about 9% relative error per counter
+    static final int DEFAULT_LOG2_REGISTERS = 7;
+
+    // Number of vertex ranges per worker thread, more than one so uneven ranges even out
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final double[] hopPlot;
+    private final boolean exact;
+
+    private PathStatistics(double[] hopPlot, boolean exact) {
+        this.hopPlot = hopPlot;
+        this.exact = exact;
+    }
+
+    /**
+     * Receives progress of a computation, possibly from several threads, one call at a time
+     */
+    public interface ProgressListener {
+        /**
+         * @param iteration BFS level or HyperANF step finished, 0 for MS-BFS passes
+         * @param done      sources (MS-BFS) or vertices of the step (HyperANF) done so far
+         * @param total     number of them
+         */
+        void onProgress(int iteration, long done, long total);
+    }
+
+    private static final ProgressListener SILENT = (iteration, done, total) -> {
+    };
+
+    /**
+     * Exact statistics for small graphs, HyperANF for big ones, on the common fork/join pool
+     *
+     * @param graph target graph
+     * @return statistics of the graph
+     */
+    public static PathStatistics of(CsrGraph graph) {
+        if (graph.getNumVertices() <= EXACT_MAX_VERTICES)
+            return exact(graph, ForkJoinPool.commonPool(), SILENT);
+        return approximate(graph, DEFAULT_LOG2_REGISTERS, 1, ForkJoinPool.commonPool(), SILENT);
+    }
+
+    /**
+     * Exact statistics by BFS from every vertex, 64 sources per pass
+     *
+     * @param graph    target graph
+     * @param pool     pool to run passes on
+     * @param progress listener called after every pass
+     * @return statistics of the graph
+     */
+    public static PathStatistics exact(CsrGraph graph, ForkJoinPool pool, ProgressListener progress) {
+        int n = graph.getNumVertices();
+        int passes = (n + 63) >>> 6;
+        AtomicLong done = new AtomicLong();
+        // a few tasks per thread, each with its own search state for all of its passes
+        int tasks = Math.max(1, Math.min(passes, pool.getParallelism() * RANGES_PER_THREAD));
+
+        long[] pairs = pool.submit(() -> IntStream.range(0, tasks).parallel().mapToObj(task -> {
+            MultiSourceBfs search = new MultiSourceBfs(graph);
+            long[] reached = new long[0];
+            for (int pass = (int) ((long) passes * task / tasks); pass < (long) passes * (task + 1) / tasks; pass++) {
+                int from = pass << 6;
+                reached = add(reached, search.run(from, Math.min(n, from + 64)));
+                long sources = done.addAndGet(Math.min(n, from + 64) - from);
+                synchronized (progress) {
+                    progress.onProgress(0, sources, n);
+                }
+            }
+            return reached;
+        }).reduce(new long[0], PathStatistics::add)).join();
+
+        double[] hopPlot = new double[pairs.length];
+        double total = 0;
+        for (int t = 0; t < pairs.length; t++)
+            hopPlot[t] = total += pairs[t];
+        return new PathStatistics(hopPlot, true);
+    }
+
+    private static long[] add(long[] a, long[] b) {
+        long[] sum = Arrays.copyOf(a.length >= b.length ? a : b, Math.max(a.length, b.length));
+        long[] other = a.length >= b.length ? b : a;
+        for (int t = 0; t < other.length; t++)
+            sum[t] += other[t];
+        return sum;
+    }
+
+    /**
+     * BFS state of one pass: bit i of a mask stands for source from + i
+     */
+    private static final class MultiSourceBfs {
+        private final CsrGraph graph;
+        private final long[] seen;
+        private final long[] frontier;
+        private final long[] next;
+        private int[] active;
+        private int[] nextActive;
+
+        MultiSourceBfs(CsrGraph graph) {
+            int n = graph.getNumVertices();
+            this.graph = graph;
+            seen = new long[n];
+            frontier = new long[n];
+            next = new long[n];
+            active = new int[n];
+            nextActive = new int[n];
+        }
+
+        /**
+         * BFS from sources [from, to), at most 64 of them
+         *
+         * @return number of (source, vertex) pairs at every distance
+         */
+        long[] run(int from, int to) {
+            int[] offsets = graph.outOffsets;
+            int[] targets = graph.outTargets;
+            long[] pairs = new long[16];
+            int numActive = 0;
+            for (int s = from; s < to; s++) {
+                seen[s] = frontier[s] = 1L << (s - from);
+                active[numActive++] = s;
+            }
+            pairs[0] = to - from;
+
+            int level = 0;
+            while (numActive > 0) {
+                level++;
+                int numNext = 0;
+                for (int i = 0; i < numActive; i++) {
+                    int v = active[i];
+                    long sources = frontier[v];
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        int w = targets[e];
+                        long added = sources & ~seen[w];
+                        if (added == 0) continue;
+                        if (next[w] == 0) nextActive[numNext++] = w;
+                        next[w] |= added;
+                        seen[w] |= added;
+                    }
+                }
+
+                long reached = 0;
+                for (int i = 0; i < numActive; i++)
+                    frontier[active[i]] = 0;
+                for (int i = 0; i < numNext; i++) {
+                    int w = nextActive[i];
+                    frontier[w] = next[w];
+                    reached += Long.bitCount(next[w]);
+                    next[w] = 0;
+                }
+                if (level == pairs.length)
+                    pairs = Arrays.copyOf(pairs, level * 2);
+                pairs[level] = reached;
+
+                int[] swap = active;
+                active = nextActive;
+                nextActive = swap;
+                numActive = numNext;
+            }
+            Arrays.fill(seen, 0);
+            // the last level reached nothing
+            return Arrays.copyOf(pairs, level);
+        }
+    }
+
+    /**
+     * Approximate statistics by HyperANF
+     *
+     * @param graph         target graph
+     * @param log2Registers log2 of HyperLogLog registers per vertex, 4 .. 16; relative error
+     *                      of one counter is about 1.04 / sqrt(2^log2Registers)
+     * @param seed          seed of the vertex hash
+     * @param pool          pool to run steps on
+     * @param progress      listener called after every range of vertices
+     * @return statistics of the graph
+     */
+    public static PathStatistics approximate(CsrGraph graph, int log2Registers, long seed, ForkJoinPool pool,
+                                             ProgressListener progress) {
+        return approximate(graph, log2Registers, seed, pool, progress, Registers.LOG2_CHUNK_BYTES);
+    }
+
+    /**
+     * HyperANF with registers in chunks of 2^log2ChunkBytes bytes
+     */
+    static PathStatistics approximate(CsrGraph graph, int log2Registers, long seed, ForkJoinPool pool,
+                                      ProgressListener progress, int log2ChunkBytes) {
+        if (log2Registers < 4 || log2Registers > 16)
+            throw new IllegalArgumentException(String.format("Registers [2^%s] are not between 2^4 and 2^16", log2Registers));
+        int n = graph.getNumVertices();
+        int m = 1 << log2Registers;
+        Registers registers = new Registers(n, log2Registers, log2ChunkBytes);
+        Registers nextRegisters = new Registers(n, log2Registers, log2ChunkBytes);
+        double[] estimates = new double[n];
+        boolean[] changed = new boolean[n];
+        boolean[] nextChanged = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            long hash = mix(v * 0x9E3779B97F4A7C15L + seed);
+            int register = (int) (hash >>> (64 - log2Registers));
+            byte[] chunk = registers.chunk(v);
+            chunk[registers.base(v) + register] = (byte) (Long.numberOfLeadingZeros(hash << log2Registers | 1L << (log2Registers - 1)) + 1);
+            estimates[v] = estimate(chunk, registers.base(v), m);
+            changed[v] = true;
+        }
+
+        int[] ranges = EgonetStatistics.splitByEdges(graph.outOffsets, pool.getParallelism() * RANGES_PER_THREAD);
+        double[] hopPlot = new double[16];
+        hopPlot[0] = sum(estimates);
+        int t = 0;
+        while (true) {
+            int step = t + 1;
+            Registers current = registers;
+            Registers target = nextRegisters;
+            boolean[] currentChanged = changed;
+            boolean[] targetChanged = nextChanged;
+            AtomicLong done = new AtomicLong();
+            boolean any = pool.submit(() -> IntStream.range(0, ranges.length - 1).parallel().mapToObj(r -> {
+                boolean rangeChanged = merge(graph, current, target, estimates, currentChanged, targetChanged,
+                        m, ranges[r], ranges[r + 1]);
+                long vertices = done.addAndGet(ranges[r + 1] - ranges[r]);
+                synchronized (progress) {
+                    progress.onProgress(step, vertices, n);
+                }
+                return rangeChanged;
+            }).reduce(false, Boolean::logicalOr)).join();
+            if (!any) break;
+
+            t++;
+            if (t == hopPlot.length)
+                hopPlot = Arrays.copyOf(hopPlot, t * 2);
+            // counters only grow, so keep the plot monotone against estimation noise
+            hopPlot[t] = Math.max(hopPlot[t - 1], sum(estimates));
+            registers = nextRegisters;
+            nextRegisters = current;
+            changed = nextChanged;
+            nextChanged = currentChanged;
+        }
+        return new PathStatistics(Arrays.copyOf(hopPlot, t + 1), false);
+    }
+
+    // One HyperANF step for vertices [from, to), return whether any counter changed
+    private static boolean merge(CsrGraph graph, Registers current, Registers next, double[] estimates,
+                                 boolean[] changed, boolean[] nextChanged, int m, int from, int to) {
+        boolean any = false;
+        for (int v = from; v < to; v++) {
+            int base = current.base(v);
+            byte[] own = next.chunk(v);
+            System.arraycopy(current.chunk(v), base, own, base, m);
+            boolean grown = false;
+            for (int e = graph.outOffsets[v]; e < graph.outOffsets[v + 1]; e++) {
+                int w = graph.outTargets[e];
+                // a counter that didn't change last step has nothing new to give
+                if (!changed[w]) continue;
+                byte[] friend = current.chunk(w);
+                int other = current.base(w);
+                for (int j = 0; j < m; j++) {
+                    if (friend[other + j] > own[base + j]) {
+                        own[base + j] = friend[other + j];
+                        grown = true;
+                    }
+                }
+            }
+            nextChanged[v] = grown;
+            if (grown) {
+                estimates[v] = estimate(own, base, m);
+                any = true;
+            }
+        }
+        return any;
+    }
+
+    /**
+     * HyperLogLog registers of all vertices, 2^log2Registers bytes each, in chunks of whole
+     * vertices, so n * 2^log2Registers may exceed the size of one array
+     */
+    private static final class Registers {
+        // Largest chunk, 1 GB
+        static final int LOG2_CHUNK_BYTES = 30;
+
+        private final int log2Registers;
+        // log2 of vertices per chunk
+        private final int shift;
+        private final byte[][] chunks;
+
+        Registers(int n, int log2Registers, int log2ChunkBytes) {
+            this.log2Registers = log2Registers;
+            this.shift = Math.max(0, log2ChunkBytes - log2Registers);
+            int perChunk = 1 << shift;
+            chunks = new byte[(int) (((long) n + perChunk - 1) >>> shift)][];
+            for (int c = 0; c < chunks.length; c++)
+                chunks[c] = new byte[Math.min(perChunk, n - (c << shift)) << log2Registers];
+        }
+
+        byte[] chunk(int v) {
+            return chunks[v >>> shift];
+        }
+
+        // position of the first register of a vertex in its chunk
+        int base(int v) {
+            return (v & ((1 << shift) - 1)) << log2Registers;
+        }
+    }
+
+    // HyperLogLog estimate with linear counting for small cardinalities
+    private static double estimate(byte[] registers, int base, int m) {
+        double sum = 0;
+        int zeros = 0;
+        for (int j = 0; j < m; j++) {
+            sum += Math.scalb(1.0, -registers[base + j]);
+            if (registers[base + j] == 0) zeros++;
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0)
+            estimate = m * Math.log((double) m / zeros);
+        return estimate;
+    }
+
+    private static double sum(double[] values) {
+        double sum = 0;
+        for (double value : values)
+            sum += value;
+        return sum;
+    }
+
+    // Finalizer of MurmurHash3, spreads consecutive indices over all bits
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * True if the statistics come from BFS, false for HyperANF estimates
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Number of ordered pairs (u, v) with a path of at most t edges from u to v, pairs (v, v) included
+     *
+     * @return copy of the plot, element t is N(t), up to the diameter
+     */
+    public double[] getHopPlot() {
+        return hopPlot.clone();
+    }
+
+    /**
+     * Number of ordered pairs of distinct vertices with a path between them
+     */
+    public double getReachablePairs() {
+        return hopPlot[hopPlot.length - 1] - hopPlot[0];
+    }
+
+    /**
+     * Longest shortest path. HyperANF stops once no counter changes, which gives a lower bound.
+     */
+    public int getDiameter() {
+        return hopPlot.length - 1;
+    }
+
+    /**
+     * Number of steps within which 90% of reachable pairs are connected, interpolated between steps
+     */
+    public double getEffectiveDiameter() {
+        return getEffectiveDiameter(0.9);
+    }
+
+    /**
+     * Number of steps within which the given share of reachable pairs are connected,
+     * interpolated between steps
+     *
+     * @param fraction share of pairs, 0 .. 1
+     * @return interpolated number of steps
+     */
+    public double getEffectiveDiameter(double fraction) {
+        if (!(fraction >= 0 && fraction <= 1))
+            throw new IllegalArgumentException(String.format("Fraction [%s] is not between 0 and 1", fraction));
+        double target = fraction * getReachablePairs();
+        for (int t = 1; t < hopPlot.length; t++) {
+            double within = hopPlot[t] - hopPlot[0];
+            if (within >= target) {
+                double previous = hopPlot[t - 1] - hopPlot[0];
+                return t - 1 + (target - previous) / (within - previous);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Average length of a shortest path over reachable pairs of distinct vertices
+     */
+    public double getAveragePathLength() {
+        double pairs = getReachablePairs();
+        if (pairs == 0) return 0;
+        double sum = 0;
+        for (int t = 1; t < hopPlot.length; t++)
+            sum += t * (hopPlot[t] - hopPlot[t - 1]);
+        return sum / pairs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PathStatistics{%s, diameter=%d, effectiveDiameter=%.2f, averagePathLength=%.3f}",
+                exact ? "exact" : "approximate", getDiameter(), getEffectiveDiameter(), getAveragePathLength());
+    }
+
+    public static void main(String[] args) {
+        for (String file : new String[]{"data/facebook_2000.txt", "data/twitter_higgs.txt"}) {
+            CsrGraph.Builder builder = new CsrGraph.Builder();
+            GraphLoader.loadGraph(builder, file);
+            CsrGraph graph = builder.build();
+            long start = System.nanoTime();
+            PathStatistics statistics = PathStatistics.of(graph);
+            System.out.printf("%s: %s in %.2fs%n", file, statistics, (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
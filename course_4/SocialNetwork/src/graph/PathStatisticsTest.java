@@ -0,0 +1,109 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class PathStatisticsTest {
+
+    private static final PathStatistics.ProgressListener SILENT = (iteration, done, total) -> {
+    };
+
+    private static CsrGraph facebook() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        GraphLoader.loadGraph(builder, "data/facebook_1000.txt");
+        return builder.build();
+    }
+
+    @Test
+    public void pathShouldHaveExactStatistics() {
+        CsrGraph graph = new CsrGraph.Builder().addEdge(1, 2).addEdge(2, 3).addEdge(3, 4).build();
+        PathStatistics statistics = PathStatistics.of(graph);
+
+        assertTrue(statistics.isExact());
+        assertArrayEquals(new double[]{4, 7, 9, 10}, statistics.getHopPlot(), 0);
+        assertEquals(3, statistics.getDiameter());
+        assertEquals(6, statistics.getReachablePairs(), 0);
+        assertEquals(10.0 / 6, statistics.getAveragePathLength(), 1e-12);
+        // 5.4 of 6 pairs: 5 within 2 steps, the last one at 3
+        assertEquals(2.4, statistics.getEffectiveDiameter(), 1e-12);
+    }
+
+    @Test
+    public void exactShouldMatchBfsFromEveryVertex() {
+        CsrGraph graph = facebook();
+        long[] pairs = new long[graph.getNumVertices()];
+        for (int s = 0; s < graph.getNumVertices(); s++) {
+            int[] distance = new int[graph.getNumVertices()];
+            Arrays.fill(distance, -1);
+            distance[s] = 0;
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(s);
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                pairs[distance[v]]++;
+                graph.forEachOutNeighbor(v, w -> {
+                    if (distance[w] < 0) {
+                        distance[w] = distance[v] + 1;
+                        queue.add(w);
+                    }
+                });
+            }
+        }
+
+        AtomicLong reported = new AtomicLong();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        double[] hopPlot;
+        try {
+            hopPlot = PathStatistics.exact(graph, pool, (iteration, done, total) -> reported.set(done)).getHopPlot();
+        } finally {
+            pool.shutdown();
+        }
+        long within = 0;
+        for (int t = 0; t < hopPlot.length; t++)
+            assertEquals(within += pairs[t], hopPlot[t], 0);
+        assertEquals(0, pairs[hopPlot.length]);
+        assertEquals(graph.getNumVertices(), reported.get());
+    }
+
+    @Test
+    public void hyperAnfShouldBeCloseToExact() {
+        CsrGraph graph = facebook();
+        PathStatistics exact = PathStatistics.exact(graph, ForkJoinPool.commonPool(), SILENT);
+        PathStatistics approximate = PathStatistics.approximate(graph, 10, 7, ForkJoinPool.commonPool(), SILENT);
+
+        assertFalse(approximate.isExact());
+        assertEquals(exact.getReachablePairs(), approximate.getReachablePairs(), 0.05 * exact.getReachablePairs());
+        assertEquals(exact.getAveragePathLength(), approximate.getAveragePathLength(), 0.1 * exact.getAveragePathLength());
+        assertEquals(exact.getDiameter(), approximate.getDiameter(), 1);
+    }
+
+    @Test
+    public void hyperAnfShouldStopWithoutEdges() {
+        CsrGraph graph = new CsrGraph.Builder().addVertex(1).addVertex(2).build();
+        PathStatistics statistics = PathStatistics.approximate(graph, 4, 1, ForkJoinPool.commonPool(), SILENT);
+
+        assertEquals(0, statistics.getDiameter());
+        assertEquals(0, statistics.getAveragePathLength(), 0);
+        assertEquals(2, statistics.getHopPlot()[0], 0.1);
+    }
+
+    @Test
+    public void hyperAnfShouldNotDependOnRegisterChunks() {
+        CsrGraph graph = facebook();
+        PathStatistics whole = PathStatistics.approximate(graph, 7, 3, ForkJoinPool.commonPool(), SILENT);
+        // 8 vertices per chunk
+        PathStatistics chunked = PathStatistics.approximate(graph, 7, 3, ForkJoinPool.commonPool(), SILENT, 10);
+
+        assertArrayEquals(whole.getHopPlot(), chunked.getHopPlot(), 0);
+    }
+}
@@ -0,0 +1,51 @@
+package graph;
+
+import java.util.SplittableRandom;
+
+/**
+ * Created by Alex Filatau.
+ * Probabilistic spread on the bitset engine. Random decisions come from a single
+ * {@link SplittableRandom}, so steps run sequentially and a run is fully
+ * determined by its seed.
+ */
+public abstract class RandomSocialSpread extends BitsetSocialSpread {
+
+    protected SplittableRandom random;
+
+    /**
+     * Spread with a seed of its own
+     *
+     * @param graph target Graph
+     */
+    public RandomSocialSpread(SocialGraph graph) {
+        this(graph, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Spread repeating the same random decisions for the same seed
+     *
+     * @param graph target Graph
+     * @param seed  seed of the random generator
+     */
+    public RandomSocialSpread(SocialGraph graph, long seed) {
+        super(graph);
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Restart the random generator, usually right after reset() for a new run
+     *
+     * @param seed seed of the random generator
+     */
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Random generator is not thread safe, so steps are never run in parallel
+     */
+    @Override
+    protected boolean isParallel() {
+        return false;
+    }
+}
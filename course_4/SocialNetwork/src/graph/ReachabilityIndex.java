@@ -0,0 +1,359 @@
+package graph;
+
+import util.IntIndexMap;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * Answers "can u reach v?" without a traversal per question, using the condensation of the graph:
+ * every strongly connected component becomes one node of a DAG, and u reaches v when they
+ * share a component or u's component reaches v's in the DAG.
+ * <p>
+ * Every component gets labels that rule most pairs out at once:
+ * <ul>
+ * <li>topological level - length of the longest DAG path leading to it; edges go from lower
+ * to higher levels, so a component never reaches one on its own level or below</li>
+ * <li>GRAIL intervals (Yildirim et al.) - a randomized DFS over the DAG numbers components in
+ * post order and gives each the interval [lowest number below it, own number]; whatever a
+ * component reaches has an interval inside its own. A few DFS runs with different child
+ * orders give a few intervals, built in parallel</li>
+ * <li>DFS tree interval of the first run - v inside u's DFS subtree proves u reaches v</li>
+ * </ul>
+ * Pairs the labels can't decide go to a DFS from u's component that skips every component
+ * whose labels already rule out reaching v's. Its state lives for one query and grows with the
+ * components it visits, so queries may run concurrently.
+ */
+public class ReachabilityIndex {
+    static final int DEFAULT_LABELS = 5;
+    private static final long DEFAULT_SEED = 1;
+
+    private final CsrGraph graph;
+    private final StronglyConnectedComponents components;
+    private final int numComponents;
+    private final int numLabels;
+    // condensation DAG, edges between distinct components without repeats
+    private final int[] dagOffsets;
+    private final int[] dagTargets;
+    private final int[] levels;
+    // per component numLabels pairs of (lowest post order number below, own post order number)
+    private final int[] intervals;
+    // pre order numbers of the first DFS, with its post order numbers they give the DFS tree
+    private final int[] preorder;
+
+    private ReachabilityIndex(StronglyConnectedComponents components, int numLabels, long seed, ForkJoinPool pool) {
+        this.graph = components.getGraph();
+        this.components = components;
+        this.numComponents = components.getNumComponents();
+        this.numLabels = numLabels;
+        this.dagOffsets = new int[numComponents + 1];
+        this.dagTargets = condense(pool);
+        this.levels = topologicalLevels();
+        this.intervals = new int[numComponents * numLabels * 2];
+        this.preorder = new int[numComponents];
+
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] seeds = new long[numLabels];
+        for (int i = 0; i < numLabels; i++)
+            seeds[i] = random.nextLong();
+        pool.submit(() -> IntStream.range(0, numLabels).parallel().forEach(i -> label(i, seeds[i]))).join();
+    }
+
+    /**
+     * Index of a graph with the default number of labels, built on the common fork/join pool
+     *
+     * @param graph target graph
+     * @return reachability index of the graph
+     */
+    public static ReachabilityIndex of(CsrGraph graph) {
+        return of(StronglyConnectedComponents.of(graph));
+    }
+
+    /**
+     * Index over components computed before, so they aren't searched for again
+     *
+     * @param components strongly connected components of the target graph
+     * @return reachability index of their graph
+     */
+    public static ReachabilityIndex of(StronglyConnectedComponents components) {
+        return build(components, DEFAULT_LABELS, DEFAULT_SEED, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Build an index
+     *
+     * @param components strongly connected components of the target graph
+     * @param numLabels  number of GRAIL intervals per component, more rule out more pairs
+     *                   at the cost of memory and build time
+     * @param seed       seed of the randomized DFS runs
+     * @param pool       pool the DFS runs are spread over
+     * @return reachability index of the graph
+     */
+    public static ReachabilityIndex build(StronglyConnectedComponents components, int numLabels, long seed,
+                                          ForkJoinPool pool) {
+        if (numLabels < 1)
+            throw new IllegalArgumentException(String.format("Labels [%s] must be positive", numLabels));
+        return new ReachabilityIndex(components, numLabels, seed, pool);
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public StronglyConnectedComponents getComponents() {
+        return components;
+    }
+
+    public int getNumLabels() {
+        return numLabels;
+    }
+
+    /**
+     * Number of edges between distinct components
+     */
+    public int getNumDagEdges() {
+        return dagTargets.length;
+    }
+
+    /**
+     * Topological level of a vertex's component
+     *
+     * @param vertex vertex id
+     * @return length of the longest path of components leading to it, 0 if nothing leads to it
+     */
+    public int getLevel(int vertex) {
+        return levels[components.getComponent(indexOf(vertex))];
+    }
+
+    /**
+     * Check if there is a path from one vertex to another. Every vertex reaches itself.
+     *
+     * @param from source vertex id
+     * @param to   target vertex id
+     * @return True if from reaches to
+     */
+    public boolean canReach(int from, int to) {
+        int source = components.getComponent(indexOf(from));
+        int target = components.getComponent(indexOf(to));
+        if (source == target) return true;
+        if (!mayReach(source, target)) return false;
+        if (inTree(source, target)) return true;
+        return search(source, target);
+    }
+
+    private int indexOf(int vertex) {
+        int index = graph.indexOf(vertex);
+        if (index < 0)
+            throw new IllegalArgumentException(String.format("Vertex [%s] is not in graph", vertex));
+        return index;
+    }
+
+    // False if the labels prove source doesn't reach target
+    private boolean mayReach(int source, int target) {
+        if (levels[source] >= levels[target]) return false;
+        int s = source * numLabels * 2;
+        int t = target * numLabels * 2;
+        for (int i = 0; i < numLabels * 2; i += 2) {
+            if (intervals[s + i] > intervals[t + i] || intervals[t + i + 1] > intervals[s + i + 1])
+                return false;
+        }
+        return true;
+    }
+
+    // True if target is in the subtree of source in the first DFS
+    private boolean inTree(int source, int target) {
+        return preorder[source] <= preorder[target]
+                && intervals[target * numLabels * 2 + 1] <= intervals[source * numLabels * 2 + 1];
+    }
+
+    /**
+     * Build the condensation DAG: out-edges of every component to other components, sorted and
+     * without repeats, into dagOffsets
+     *
+     * @param pool pool to sort the lists on
+     * @return targets of the DAG edges
+     */
+    private int[] condense(ForkJoinPool pool) {
+        int n = graph.getNumVertices();
+        int[] componentOf = components.getComponentIds();
+        for (int v = 0; v < n; v++)
+            for (int e = graph.outOffsets[v]; e < graph.outOffsets[v + 1]; e++)
+                if (componentOf[graph.outTargets[e]] != componentOf[v])
+                    dagOffsets[componentOf[v] + 1]++;
+        for (int c = 0; c < numComponents; c++)
+            dagOffsets[c + 1] += dagOffsets[c];
+        int[] targets = new int[dagOffsets[numComponents]];
+        int[] position = Arrays.copyOf(dagOffsets, numComponents);
+        for (int v = 0; v < n; v++)
+            for (int e = graph.outOffsets[v]; e < graph.outOffsets[v + 1]; e++) {
+                int c = componentOf[graph.outTargets[e]];
+                if (c != componentOf[v])
+                    targets[position[componentOf[v]]++] = c;
+            }
+
+        // sort the lists in parallel, then squeeze repeats out in place
+        pool.submit(() -> IntStream.range(0, numComponents).parallel()
+                .forEach(c -> Arrays.sort(targets, dagOffsets[c], dagOffsets[c + 1]))).join();
+        int size = 0;
+        for (int c = 0; c < numComponents; c++) {
+            int start = dagOffsets[c];
+            dagOffsets[c] = size;
+            for (int e = start; e < dagOffsets[c + 1]; e++)
+                if (e == start || targets[e] != targets[e - 1])
+                    targets[size++] = targets[e];
+        }
+        dagOffsets[numComponents] = size;
+        return Arrays.copyOf(targets, size);
+    }
+
+    // Longest path to every component, in Kahn's topological order
+    private int[] topologicalLevels() {
+        int[] inDegree = new int[numComponents];
+        for (int target : dagTargets)
+            inDegree[target]++;
+        int[] queue = new int[numComponents];
+        int tail = 0;
+        for (int c = 0; c < numComponents; c++)
+            if (inDegree[c] == 0) queue[tail++] = c;
+        int[] result = new int[numComponents];
+        for (int head = 0; head < tail; head++) {
+            int c = queue[head];
+            for (int e = dagOffsets[c]; e < dagOffsets[c + 1]; e++) {
+                int w = dagTargets[e];
+                result[w] = Math.max(result[w], result[c] + 1);
+                if (--inDegree[w] == 0) queue[tail++] = w;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * One GRAIL labeling: DFS from the sources in random order, visiting the children of every
+     * component from a random position on, numbering components in post order
+     *
+     * @param label index of the labeling
+     * @param seed  seed of its random orders
+     */
+    private void label(int label, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] roots = new int[numComponents];
+        int numRoots = 0;
+        for (int c = 0; c < numComponents; c++)
+            if (levels[c] == 0) roots[numRoots++] = c;
+        for (int i = numRoots - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = roots[i];
+            roots[i] = roots[j];
+            roots[j] = swap;
+        }
+
+        boolean[] visited = new boolean[numComponents];
+        int[] stack = new int[numComponents];
+        // children visited so far and the position the children start from
+        int[] cursor = new int[numComponents];
+        int[] start = new int[numComponents];
+        int nextPre = 0;
+        int nextPost = 0;
+        for (int r = 0; r < numRoots; r++) {
+            int top = 0;
+            stack[top++] = roots[r];
+            visited[roots[r]] = true;
+            enter(roots[r], label, random, start, nextPre++);
+            while (top > 0) {
+                int c = stack[top - 1];
+                int degree = dagOffsets[c + 1] - dagOffsets[c];
+                int low = intervals[(c * numLabels + label) * 2];
+                boolean descended = false;
+                while (cursor[c] < degree) {
+                    int i = start[c] + cursor[c]++;
+                    int w = dagTargets[dagOffsets[c] + (i < degree ? i : i - degree)];
+                    if (!visited[w]) {
+                        visited[w] = true;
+                        enter(w, label, random, start, nextPre++);
+                        stack[top++] = w;
+                        descended = true;
+                        break;
+                    }
+                    low = Math.min(low, intervals[(w * numLabels + label) * 2]);
+                }
+                intervals[(c * numLabels + label) * 2] = low;
+                if (descended) continue;
+
+                // all children done, their lows are in already
+                int slot = (c * numLabels + label) * 2;
+                intervals[slot + 1] = nextPost++;
+                intervals[slot] = Math.min(intervals[slot], intervals[slot + 1]);
+                top--;
+                if (top > 0) {
+                    int parent = (stack[top - 1] * numLabels + label) * 2;
+                    intervals[parent] = Math.min(intervals[parent], intervals[slot]);
+                }
+            }
+        }
+    }
+
+    private void enter(int c, int label, SplittableRandom random, int[] start, int pre) {
+        int degree = dagOffsets[c + 1] - dagOffsets[c];
+        start[c] = degree == 0 ? 0 : random.nextInt(degree);
+        intervals[(c * numLabels + label) * 2] = Integer.MAX_VALUE;
+        if (label == 0) preorder[c] = pre;
+    }
+
+    // DFS over the components the labels can't rule out
+    private boolean search(int source, int target) {
+        Search search = new Search();
+        search.visit(source);
+        search.push(source);
+        while (!search.isEmpty()) {
+            int c = search.pop();
+            for (int e = dagOffsets[c]; e < dagOffsets[c + 1]; e++) {
+                int w = dagTargets[e];
+                if (w == target) return true;
+                if (!search.visit(w)) continue;
+                if (!mayReach(w, target)) continue;
+                if (inTree(w, target)) return true;
+                search.push(w);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * State of one DFS: visited components and the stack, both sized by what it visits
+     */
+    private static final class Search {
+        private final IntIndexMap visited = new IntIndexMap();
+        private int[] stack = new int[16];
+        private int size;
+
+        void push(int c) {
+            if (size == stack.length)
+                stack = Arrays.copyOf(stack, size * 2);
+            stack[size++] = c;
+        }
+
+        int pop() {
+            return stack[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        // True the first time a component is seen
+        boolean visit(int c) {
+            if (visited.containsKey(c)) return false;
+            visited.put(c, 0);
+            return true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReachabilityIndex{vertices=%d, components=%d, dagEdges=%d, labels=%d}",
+                graph.getNumVertices(), numComponents, dagTargets.length, numLabels);
+    }
+}
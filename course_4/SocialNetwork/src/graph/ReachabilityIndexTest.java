@@ -0,0 +1,106 @@
+package graph;
+
+import org.junit.Test;
+import util.EdgeList;
+import util.PowerLawGenerator;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class ReachabilityIndexTest {
+
+    // cycle 1 -> 2 -> 3 -> 1 leads to 4 -> 5, 6 -> 5 on the side, 7 alone
+    private static CsrGraph smallGraph() {
+        return new CsrGraph.Builder()
+                .addEdge(1, 2).addEdge(2, 3).addEdge(3, 1).addEdge(3, 4).addEdge(4, 5).addEdge(6, 5)
+                .addVertex(7)
+                .build();
+    }
+
+    @Test
+    public void smallGraphShouldAnswerThroughCondensation() {
+        ReachabilityIndex index = ReachabilityIndex.of(smallGraph());
+
+        assertTrue(index.canReach(2, 1));
+        assertTrue(index.canReach(1, 5));
+        assertTrue(index.canReach(7, 7));
+        assertFalse(index.canReach(5, 1));
+        assertFalse(index.canReach(6, 4));
+        assertFalse(index.canReach(1, 6));
+        assertFalse(index.canReach(7, 5));
+        assertEquals(3, index.getNumDagEdges());
+        assertEquals(0, index.getLevel(2));
+        assertEquals(2, index.getLevel(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingVertexShouldFail() {
+        ReachabilityIndex.of(smallGraph()).canReach(1, 42);
+    }
+
+    @Test
+    public void indexShouldMatchBreadthFirstSearch() {
+        // edges of a power-law graph only go back to older vertices, a few random ones
+        // go forward and close cycles
+        EdgeList edges = PowerLawGenerator.generate(3000, 2, 0.0, 7);
+        CsrGraph.Builder builder = new CsrGraph.Builder().addEdges(edges.getFrom(), edges.getTo(), edges.size());
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 40; i++) {
+            int from = random.nextInt(3000);
+            builder.addEdge(from, from + random.nextInt(3000 - from));
+        }
+        CsrGraph graph = builder.build();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ReachabilityIndex[] indexes = {
+                ReachabilityIndex.of(graph),
+                ReachabilityIndex.build(StronglyConnectedComponents.forwardBackward(graph, pool, 2), 1, 5, pool)
+        };
+        pool.shutdown();
+
+        int n = graph.getNumVertices();
+        for (int source = 0; source < n; source += 37) {
+            boolean[] reached = new boolean[n];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            reached[source] = true;
+            queue.add(source);
+            while (!queue.isEmpty())
+                graph.forEachOutNeighbor(queue.poll(), w -> {
+                    if (!reached[w]) {
+                        reached[w] = true;
+                        queue.add(w);
+                    }
+                });
+            for (int target = 0; target < n; target++)
+                for (ReachabilityIndex index : indexes)
+                    assertEquals(source + " -> " + target, reached[target],
+                            index.canReach(graph.getVertexId(source), graph.getVertexId(target)));
+        }
+    }
+
+    @Test
+    public void graphShouldKeepIndexWhileEdgesAddNoPaths() {
+        CapGraph graph = new CapGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        ReachabilityIndex index = graph.getReachabilityIndex();
+        assertFalse(graph.canReach(3, 1));
+
+        graph.addEdge(1, 3);
+        assertSame(index, graph.getReachabilityIndex());
+        graph.addEdge(3, 1);
+        assertNotSame(index, graph.getReachabilityIndex());
+        assertTrue(graph.canReach(3, 2));
+
+        index = graph.getReachabilityIndex();
+        graph.addVertex(4);
+        assertNotSame(index, graph.getReachabilityIndex());
+        assertFalse(graph.canReach(4, 1));
+    }
+}
@@ -0,0 +1,46 @@
+package graph;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Created by Alex Filatau.
+ * Starting points chosen for a spread, with the spread they are expected to reach
+ */
+public class SeedSelection {
+    private final List<Integer> seeds;
+    private final double estimatedSpread;
+    private final int samples;
+
+    SeedSelection(List<Integer> seeds, double estimatedSpread, int samples) {
+        this.seeds = Collections.unmodifiableList(seeds);
+        this.estimatedSpread = estimatedSpread;
+        this.samples = samples;
+    }
+
+    /**
+     * Chosen vertices, in the order they were picked
+     */
+    public List<Integer> getSeeds() {
+        return seeds;
+    }
+
+    /**
+     * Expected number of vertices triggered from all seeds
+     */
+    public double getEstimatedSpread() {
+        return estimatedSpread;
+    }
+
+    /**
+     * Number of Monte Carlo simulations per estimate, or of reverse reachable sets sampled
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SeedSelection{seeds=%s, estimatedSpread=%.2f, samples=%d}", seeds, estimatedSpread, samples);
+    }
+}
@@ -0,0 +1,98 @@
+package graph;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Created by Alex Filatau.
+ * Ways to place sensors, matching the sensor setters of {@link SpreadRunner}.
+ * Random choices come from the given generator, so an experiment can repeat them.
+ */
+public enum SensorStrategy {
+    /**
+     * Sensors on random vertices
+     */
+    RANDOM("Random", true) {
+        @Override
+        List<Integer> place(SocialGraph graph, int count, SplittableRandom random) {
+            return graph.getRandomVertices(count, random);
+        }
+    },
+    /**
+     * Sensors on the vertices with most centrality
+     */
+    CENTRALITY("Centrality", false) {
+        @Override
+        List<Integer> place(SocialGraph graph, int count, SplittableRandom random) {
+            return graph.getTopVerticesByCentrality(count);
+        }
+    },
+    /**
+     * Sensors on the vertices with highest PageRank
+     */
+    PAGE_RANK("PageRank", false) {
+        @Override
+        List<Integer> place(SocialGraph graph, int count, SplittableRandom random) {
+            return graph.getTopVerticesByPageRank(count);
+        }
+    },
+    /**
+     * Sensors on the vertices on most shortest paths
+     */
+    BETWEENNESS("Betweenness", false) {
+        @Override
+        List<Integer> place(SocialGraph graph, int count, SplittableRandom random) {
+            return graph.getTopVerticesByBetweenness(count);
+        }
+    },
+    /**
+     * Sensors on the vertices in the innermost k-cores
+     */
+    CORE_NUMBER("Core", false) {
+        @Override
+        List<Integer> place(SocialGraph graph, int count, SplittableRandom random) {
+            return graph.getTopVerticesByCoreNumber(count);
+        }
+    },
+    /**
+     * Sensors on random friends of random vertices following Friends' paradox
+     */
+    FRIENDS_PARADOX("Friends-Paradox", true) {
+        @Override
+        List<Integer> place(SocialGraph graph, int count, SplittableRandom random) {
+            return graph.getRandomFriendsOfRandomVertices(count, random);
+        }
+    };
+
+    private final String label;
+    private final boolean random;
+
+    SensorStrategy(String label, boolean random) {
+        this.label = label;
+        this.random = random;
+    }
+
+    /**
+     * Choose vertices for the sensors
+     *
+     * @param graph  target graph
+     * @param count  number of sensors
+     * @param random generator for the random choices
+     * @return distinct sensor vertices
+     */
+    abstract List<Integer> place(SocialGraph graph, int count, SplittableRandom random);
+
+    /**
+     * @return False if the strategy places the same sensors every time
+     */
+    boolean isRandom() {
+        return random;
+    }
+
+    /**
+     * @return name used in sensor type descriptions, like "Random-5"
+     */
+    public String getLabel() {
+        return label;
+    }
+}
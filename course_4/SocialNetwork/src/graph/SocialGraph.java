@@ -1,90 +1,196 @@
 package graph;
 
-import java.util.*;
+import util.IntIndexMap;
 
-import static java.util.stream.Collectors.toList;
+import java.util.*;
 
 /**
  * Created by Alex Filatau
  * Modification of base CapGraph class enabled to work with following social graph features:
- * - degree centralityMap of nodes (number of connections a node has) and access to top nodes by centrality
+ * - degree centrality of nodes (number of connections a node has) and access to top nodes by centrality
  * - access to random nodes
  * - access random friends of random nodes aka friends paradox
+ * <p>
+ * Vertices and their friends are also kept in arrays, so random vertices and random
+ * friends are picked in constant time.
  */
 public class SocialGraph extends CapGraph {
-    private HashMap<Integer, Integer> centralityMap = new HashMap<>();
-    private TreeMap<Integer, List<Integer>> centralitySortedIndex = new TreeMap<>(Collections.reverseOrder());
+    // vertices in the order they were added, with the friends of each one
+    private final IntIndexMap vertexIndex = new IntIndexMap();
+    private int[] vertexIds = new int[16];
+    private int[][] friends = new int[16][];
+    private int numVertices;
+    // out-degrees over the same indices, also the number of friends in the arrays
+    private final DegreeIndex centralityIndex = new DegreeIndex();
+    // other centralities of the current snapshot, computed on first use
+    private PageRank pageRank;
+    private BetweennessCentrality betweenness;
+    private CoreDecomposition coreDecomposition;
+    private FriendRecommender friendRecommender;
+
+    // Sources sampled for betweenness of bigger graphs, and the seed of the sample
+    static final int BETWEENNESS_SAMPLES = 256;
+    private static final long BETWEENNESS_SEED = 1;
+
+    /**
+     * Add new vertex to the graph
+     *
+     * @param num Integer value of the vertex
+     */
+    @Override
+    public void addVertex(int num) {
+        if (vertexIndex.containsKey(num)) return;
+        super.addVertex(num);
+        if (numVertices == vertexIds.length) {
+            vertexIds = Arrays.copyOf(vertexIds, numVertices * 2);
+            friends = Arrays.copyOf(friends, numVertices * 2);
+        }
+        vertexIndex.put(num, centralityIndex.addVertex());
+        vertexIds[numVertices++] = num;
+    }
 
     /**
      * Add new edge to the graph
-     * Keep count on degree centralityMap of the nodes involved
+     * Keep count on degree centrality of the from vertex, repeated edges are counted once
      *
      * @param from Integer value of the from vertex
      * @param to   Integer value of the to vertex
      */
     @Override
     public void addEdge(int from, int to) {
+        boolean isNew = !getNeighbors(from).contains(to);
         super.addEdge(from, to);
-        incrementCentrality(from);
+        if (isNew) addFriend(vertexIndex.get(from), to);
     }
 
-    /**
-     * Increase centralityMap count for the vertex
-     *
-     * @param vertex Integer value of the target vertex
-     */
-    private void incrementCentrality(int vertex) {
-        // store new centrality value
-        int centralityValue = this.centralityMap.getOrDefault(vertex, 0);
-        centralityValue++;
-        this.centralityMap.put(vertex, centralityValue);
-
-        // remove from previous centrality index if applicable
-        if (centralityValue > 1) {
-            List<Integer> oldVertexReferences = this.centralitySortedIndex.getOrDefault(centralityValue - 1, new ArrayList<>());
-            if (oldVertexReferences.contains(vertex)) {
-                oldVertexReferences.remove((Integer) vertex);
-                if (oldVertexReferences.isEmpty()) {
-                    this.centralitySortedIndex.remove(centralityValue - 1);
-                }
-            }
-        }
-
-        // add to new centrality index
-        List<Integer> vertexReferences = this.centralitySortedIndex.getOrDefault(centralityValue, new ArrayList<>());
-        vertexReferences.add(vertex);
-        this.centralitySortedIndex.put(centralityValue, vertexReferences);
+    private void addFriend(int index, int friend) {
+        int[] list = friends[index];
+        int count = centralityIndex.getDegree(index);
+        if (list == null)
+            list = friends[index] = new int[4];
+        else if (count == list.length)
+            list = friends[index] = Arrays.copyOf(list, count * 2);
+        list[count] = friend;
+        centralityIndex.increment(index);
     }
 
-
     /**
-     * Returns degree centralityMap value stored for the vertex
+     * Returns degree centrality value stored for the vertex
      *
      * @param vertex Integer value of the target vertex
-     * @return degree centralityMap
+     * @return degree centrality
      */
     public int getCentrality(int vertex) {
         if (!this.containsVertex(vertex)) {
             throw new IllegalArgumentException(String.format("Vertex [%s] is not in graph", vertex));
         }
-        return this.centralityMap.getOrDefault(vertex, 0);
+        return this.centralityIndex.getDegree(vertexIndex.get(vertex));
     }
 
     /**
      * Returns specified number (at most) of vertices sorted descending by centrality.
+     * Vertices of equal centrality come in the order they reached it.
      *
      * @param numVertices number of vertices to return
      * @return List of top vertices by centrality
      */
     public List<Integer> getTopVerticesByCentrality(int numVertices) {
-        List<Integer> topVertices = new ArrayList<>();
-        for (Integer centrality : this.centralitySortedIndex.keySet()) {
-            if (topVertices.size() >= numVertices) break;
-            List<Integer> vertices = this.centralitySortedIndex.get(centrality);
-            topVertices.addAll(vertices);
-        }
+        return toIds(this.centralityIndex.getTop(numVertices));
+    }
+
+    /**
+     * PageRank of all vertices, recomputed after the graph has changed
+     *
+     * @return ranks of the current snapshot
+     */
+    public synchronized PageRank getPageRank() {
+        if (pageRank == null || pageRank.getGraph() != getSnapshot())
+            pageRank = PageRank.compute(getSnapshot());
+        return pageRank;
+    }
+
+    /**
+     * Betweenness of all vertices, recomputed after the graph has changed.
+     * Exact up to BETWEENNESS_SAMPLES vertices, estimated from as many sources above that.
+     *
+     * @return betweenness of the current snapshot
+     */
+    public synchronized BetweennessCentrality getBetweenness() {
+        if (betweenness == null || betweenness.getGraph() != getSnapshot())
+            betweenness = BetweennessCentrality.approximate(getSnapshot(), BETWEENNESS_SAMPLES, BETWEENNESS_SEED);
+        return betweenness;
+    }
+
+    /**
+     * Core numbers of all vertices, recomputed after the graph has changed
+     *
+     * @return k-core decomposition of the current snapshot
+     */
+    public synchronized CoreDecomposition getCoreDecomposition() {
+        if (coreDecomposition == null || coreDecomposition.getGraph() != getSnapshot())
+            coreDecomposition = CoreDecomposition.compute(getSnapshot());
+        return coreDecomposition;
+    }
+
+    /**
+     * "People you may know": best friends of friends of a vertex that are not its friends yet
+     *
+     * @param vertex      target vertex
+     * @param numVertices how many vertices to return (at most)
+     * @param measure     score to rank them by
+     * @return List of recommended vertices, best first
+     */
+    public List<Integer> getRecommendedFriends(int vertex, int numVertices, FriendRecommender.Measure measure) {
+        List<Integer> result = new ArrayList<>();
+        for (FriendRecommender.Recommendation recommendation : getFriendRecommender().recommend(vertex, numVertices, measure))
+            result.add(recommendation.getVertex());
+        return result;
+    }
+
+    /**
+     * Friend recommendations over the current snapshot, rebuilt after the graph has changed
+     */
+    public synchronized FriendRecommender getFriendRecommender() {
+        if (friendRecommender == null || friendRecommender.getGraph() != getSnapshot())
+            friendRecommender = new FriendRecommender(getSnapshot());
+        return friendRecommender;
+    }
+
+    /**
+     * Returns specified number (at most) of vertices sorted descending by PageRank.
+     *
+     * @param numVertices number of vertices to return
+     * @return List of top vertices by PageRank
+     */
+    public List<Integer> getTopVerticesByPageRank(int numVertices) {
+        return getPageRank().getTopVertices(numVertices);
+    }
 
-        return topVertices.stream().limit(numVertices).collect(toList());
+    /**
+     * Returns specified number (at most) of vertices sorted descending by betweenness.
+     *
+     * @param numVertices number of vertices to return
+     * @return List of top vertices by betweenness
+     */
+    public List<Integer> getTopVerticesByBetweenness(int numVertices) {
+        return getBetweenness().getTopVertices(numVertices);
+    }
+
+    /**
+     * Returns specified number (at most) of vertices sorted descending by core number.
+     *
+     * @param numVertices number of vertices to return
+     * @return List of top vertices by core number
+     */
+    public List<Integer> getTopVerticesByCoreNumber(int numVertices) {
+        return getCoreDecomposition().getTopVertices(numVertices);
+    }
+
+    private List<Integer> toIds(int[] indices) {
+        List<Integer> ids = new ArrayList<>(indices.length);
+        for (int index : indices)
+            ids.add(vertexIds[index]);
+        return ids;
     }
 
     @Override
@@ -92,8 +198,13 @@ public class SocialGraph extends CapGraph {
         final StringBuffer sb = new StringBuffer("SocialGraph{");
         sb.append("vertices=").append(this.getVertices());
         sb.append(", edges=").append(this.getEdges());
-        sb.append(", centralitySortedIndex=").append(centralitySortedIndex);
-        sb.append('}');
+        sb.append(", centralitySortedIndex={");
+        int[] degrees = this.centralityIndex.getDegrees();
+        for (int i = 0; i < degrees.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(degrees[i]).append('=').append(toIds(this.centralityIndex.getBucket(degrees[i])));
+        }
+        sb.append("}}");
         return sb.toString();
     }
 
@@ -105,19 +216,31 @@ public class SocialGraph extends CapGraph {
      * @return List of random vertices
      */
     public List<Integer> getRandomVertices(int numVertices) {
+        return getRandomVertices(numVertices, new SplittableRandom());
+    }
+
+    /**
+     * Returns List of distinct random vertices from the graph, all subsets equally likely.
+     * Uses Floyd's sampling, so it takes time proportional to numVertices, not to the graph size.
+     *
+     * @param numVertices how many vertices to return
+     * @param random      generator to draw from, seeded to repeat the same choice
+     * @return List of random vertices
+     */
+    public List<Integer> getRandomVertices(int numVertices, SplittableRandom random) {
         if (numVertices < 1) return Collections.emptyList();
-        if (getVertices().size() < numVertices)
+        if (this.numVertices < numVertices)
             throw new IllegalArgumentException("There are not enough vertices in the graph");
 
-        List<Integer> result = new LinkedList<>();
-
-        while (result.size() < numVertices) {
-            Integer vertex = getRandomVertex();
-            if (!result.contains(vertex)) {
-                result.add(vertex);
-            }
+        Set<Integer> chosen = new LinkedHashSet<>();
+        for (int j = this.numVertices - numVertices; j < this.numVertices; j++) {
+            int index = random.nextInt(j + 1);
+            chosen.add(chosen.contains(index) ? j : index);
         }
 
+        List<Integer> result = new ArrayList<>(numVertices);
+        for (int index : chosen)
+            result.add(vertexIds[index]);
         return result;
     }
 
@@ -129,54 +252,35 @@ public class SocialGraph extends CapGraph {
      * @return List of random vertices
      */
     public List<Integer> getRandomFriendsOfRandomVertices(int numVertices) {
+        return getRandomFriendsOfRandomVertices(numVertices, new SplittableRandom());
+    }
+
+    /**
+     * "Friends' paradox" with a given generator: select random nodes and them select random "friend" of each node.
+     *
+     * @param numVertices how many vertices to return
+     * @param random      generator to draw from, seeded to repeat the same choice
+     * @return List of distinct random friends
+     */
+    public List<Integer> getRandomFriendsOfRandomVertices(int numVertices, SplittableRandom random) {
         if (numVertices < 1) return Collections.emptyList();
-        if (getVertices().size() < numVertices)
+        if (this.numVertices < numVertices)
             throw new IllegalArgumentException("There are not enough vertices in the graph");
 
-        List<Integer> result = new LinkedList<>();
+        Set<Integer> result = new LinkedHashSet<>();
         Set<Integer> visitedVertices = new HashSet<>();
 
         while (result.size() < numVertices) {
-            if (visitedVertices.size() >= getVertices().size()) {
+            if (visitedVertices.size() >= this.numVertices) {
                 throw new RuntimeException("There are not enough friends in the graph");
             }
-            Integer vertex = getRandomVertex();
-            visitedVertices.add(vertex);
-            Integer friend = getRandomFriendOfVertex(vertex);
-            if (friend == null) continue;
-            if (!result.contains(friend))
-                result.add(friend);
-        }
-
-        return result;
-    }
-
-    private int getRandomVertex() {
-        HashSet<Integer> vertices = getVertices();
-        return getRandomVertexFromSet(vertices);
-    }
-
-    private Integer getRandomFriendOfVertex(int vertex) {
-        HashSet<Integer> neighbors = this.getNeighbors(vertex);
-        if (neighbors.isEmpty()) return null;
-        return getRandomVertexFromSet(neighbors);
-    }
-
-
-    /**
-     * Helper method to select a random item from a set
-     *
-     * @param set given Set to chose an item from
-     * @return random node
-     */
-    private int getRandomVertexFromSet(Set<Integer> set) {
-        final Random rand = new Random();
-        int index = rand.nextInt(set.size());
-        Iterator<Integer> iter = set.iterator();
-        for (int i = 0; i < index; i++) {
-            iter.next();
+            int index = random.nextInt(this.numVertices);
+            visitedVertices.add(index);
+            int count = centralityIndex.getDegree(index);
+            if (count == 0) continue;
+            result.add(friends[index][random.nextInt(count)]);
         }
-        return iter.next();
 
+        return new ArrayList<>(result);
     }
 }
@@ -4,7 +4,9 @@ import org.junit.Test;
 import util.GraphLoader;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.SplittableRandom;
 
 import static org.junit.Assert.*;
 
@@ -211,4 +213,57 @@ public class SocialGraphTest {
         assertTrue(result.containsAll(Arrays.asList(2, 3, 4)));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void sameSeedShouldGiveSameRandomVertices() {
+        SocialGraph graph = new SocialGraph();
+        GraphLoader.loadGraph(graph, "data/facebook_1000.txt");
+
+        List<Integer> first = graph.getRandomVertices(100, new SplittableRandom(5));
+        List<Integer> second = graph.getRandomVertices(100, new SplittableRandom(5));
+        assertEquals(first, second);
+        assertEquals(100, new HashSet<>(first).size());
+        assertTrue(graph.getVertices().containsAll(first));
+    }
+
+    @Test
+    public void randomVerticesShouldBeUniform() {
+        SocialGraph graph = new SocialGraph();
+        for (int i = 0; i < 10; i++)
+            graph.addVertex(i);
+        SplittableRandom random = new SplittableRandom(1);
+
+        int[] counts = new int[10];
+        for (int run = 0; run < 20_000; run++)
+            graph.getRandomVertices(3, random).forEach(vertex -> counts[vertex]++);
+        // every vertex is in 3 of 10 draws
+        for (int count : counts)
+            assertEquals(6000, count, 250);
+    }
+
+    @Test
+    public void randomFriendsShouldBeFriendsOfSomeVertex() {
+        SocialGraph graph = new SocialGraph();
+        GraphLoader.loadGraph(graph, "data/facebook_1000.txt");
+
+        List<Integer> result = graph.getRandomFriendsOfRandomVertices(50, new SplittableRandom(3));
+        assertEquals(50, new HashSet<>(result).size());
+        assertEquals(result, graph.getRandomFriendsOfRandomVertices(50, new SplittableRandom(3)));
+        for (int friend : result)
+            assertTrue(graph.getVertices().stream().anyMatch(vertex -> graph.getNeighbors(vertex).contains(friend)));
+    }
+
+    @Test
+    public void recommendedFriendsShouldBeFriendsOfFriends() {
+        SocialGraph graph = new SocialGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(2, 4);
+        graph.addEdge(4, 5);
+        assertEquals(Arrays.asList(3, 4), graph.getRecommendedFriends(1, 5, FriendRecommender.Measure.COMMON_NEIGHBORS));
+
+        graph.addEdge(1, 4);
+        assertEquals(Arrays.asList(3, 5), graph.getRecommendedFriends(1, 5, FriendRecommender.Measure.COMMON_NEIGHBORS));
+        assertEquals(Arrays.asList(3, 5),
+                graph.getRecommendedFriends(1, Integer.MAX_VALUE, FriendRecommender.Measure.COMMON_NEIGHBORS));
+    }
+}
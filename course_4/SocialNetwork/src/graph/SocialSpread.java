@@ -1,17 +1,17 @@
 package graph;
 
-import java.util.*;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Created by Alex Filatau.
- * Abstract generic spread common for all implementation options
+ * Abstract generic spread common for all implementation options.
+ * State of the spread is kept by the implementation, see {@link BitsetSocialSpread}.
  */
 abstract class SocialSpread implements Spread {
 
     protected final SocialGraph graph;
     protected int currentStepNumber;
-    protected HashSet<Integer> triggeredVertices;
-    protected HashSet<Integer> lastTriggeredVertices;
 
     /**
      * Any social spread requires target graph to work on
@@ -28,108 +28,49 @@ abstract class SocialSpread implements Spread {
         return this.currentStepNumber;
     }
 
-    @Override
-    public int getNumberOfTriggeredVertices() {
-        return this.triggeredVertices.size();
-    }
-
-    /**
-     * Are there any adjusting vertices that might be affected by next step
-     *
-     * @return
-     */
-    @Override
-    public boolean isSpreadable() {
-        if (isCompleted()) return false;
-        if (this.graph.getVertices().isEmpty()) return false;
-        if (triggeredVertices.isEmpty()) return false;
-        if (lastTriggeredVertices.isEmpty()) return false;
-        for (Integer vertex : lastTriggeredVertices) {
-            if (!getNonTriggeredFriends(vertex).isEmpty()) return true;
-        }
-        return false;
-    }
-
     /**
      * Returns List of friends of specified vertex which are not marked as triggered
      *
      * @param vertex target vertex
      * @return List of vertices
      */
-    public List<Integer> getNonTriggeredFriends(Integer vertex) {
-        HashSet<Integer> friends = this.graph.getNeighbors(vertex);
-
-        if (friends.isEmpty()) return Collections.emptyList();
-
-        List<Integer> result = new LinkedList<>();
-        for (Integer friend : friends) {
-            if (!isVertexTriggered(friend)) result.add(friend);
-        }
-
-        return result;
-
-    }
+    public abstract List<Integer> getNonTriggeredFriends(Integer vertex);
 
     /**
      * Check if specified vertex is marked as triggered
-     * Throws
+     * Throws IllegalArgumentException if the vertex is not in graph
      *
      * @param vertex vertex to check
      * @return True if vertex marked as triggered
      */
-    public boolean isVertexTriggered(int vertex) {
-        if (!this.graph.containsVertex(vertex))
-            throw new IllegalArgumentException(String.format("Requested vertex [%s]is not in graph", vertex));
-        return this.getAllTriggeredVertices().contains(vertex);
-    }
+    public abstract boolean isVertexTriggered(int vertex);
 
     /**
-     * Spread is complete if all vertices are triggered
-     *
-     * @return True if completed
+     * Resets state of the spread to initial state
      */
     @Override
-    public boolean isCompleted() {
-        return getAllTriggeredVertices().size() == this.graph.getVertices().size();
+    public void reset() {
+        this.currentStepNumber = 0;
     }
 
     /**
-     * Get Set of all vertices that were affected by previous steps
+     * Starts the spread from specified vertex
      *
-     * @return Set of vertices
+     * @param vertex target vertex to start the spread from
      */
-    @Override
-    public Set<Integer> getAllTriggeredVertices() {
-        return this.triggeredVertices;
-    }
+    public abstract void setStartingPoint(int vertex);
 
     /**
-     * Get Set of vertices that were affected by last step
+     * Stop the spread at the first of these vertices to get triggered
      *
-     * @return Set of vertices
-     */
-    @Override
-    public Set<Integer> getLastTriggeredVertices() {
-        return this.lastTriggeredVertices;
-    }
-
-    /**
-     * Resets state of the spread to initial state
+     * @param sensors sensor vertices, null or empty for none
      */
-    @Override
-    public void reset() {
-        this.currentStepNumber = 0;
-        this.triggeredVertices = new HashSet<>();
-        this.lastTriggeredVertices = new HashSet<>();
-    }
+    public abstract void setSensors(Collection<Integer> sensors);
 
     /**
-     * Starts the spread from specified vertex
+     * First sensor triggered since the spread was reset or sensors were set
      *
-     * @param vertex target vertex to start the spread from
+     * @return the sensor vertex, null if none was triggered yet
      */
-    public void setStartingPoint(int vertex) {
-        this.triggeredVertices.add(vertex);
-        this.lastTriggeredVertices.add(vertex);
-    }
+    public abstract Integer getDetectedSensor();
 }
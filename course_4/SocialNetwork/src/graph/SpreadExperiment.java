@@ -0,0 +1,260 @@
+package graph;
+
+import util.GraphLoader;
+import util.RunningStatistics;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Created by Alex Filatau.
+ * <p>
+ * Compares sensor strategies over many simulated outbreaks, the job {@link SpreadRunner#main}
+ * does by hand for one strategy at a time.
+ * <p>
+ * Every combination of strategy and sensor count is run for the same number of trials.
+ * A trial picks random outbreak origins, places sensors, and runs the spread until a sensor
+ * is triggered or the spread stops. Trials run in parallel, split into a few tasks per thread;
+ * each task reuses one spread created by the factory and nothing else is shared, so trials
+ * don't see each other's state.
+ * <p>
+ * Trial i draws everything from its own seed, generated upfront from the seed of the whole run.
+ * Origins are drawn first, so all strategies are compared on the same outbreaks, and results
+ * don't depend on how trials are spread over threads.
+ * <p>
+ * Detection step and coverage of each trial go straight into {@link RunningStatistics},
+ * no per-trial data is kept.
+ */
+public class SpreadExperiment {
+    // Tasks per thread of the common pool, so uneven trials still balance
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final SocialGraph graph;
+    private final Function<SocialGraph, ? extends SocialSpread> spreadFactory;
+    private List<SensorStrategy> strategies = Arrays.asList(SensorStrategy.values());
+    private int[] sensorCounts = {1};
+    private int origins = 1;
+    private int trials = 100;
+    private int maxSteps = Integer.MAX_VALUE;
+
+    /**
+     * @param graph         target graph
+     * @param spreadFactory creates a spread on the graph, for example {@code AbsoluteSocialSpread::new}
+     */
+    public SpreadExperiment(SocialGraph graph, Function<SocialGraph, ? extends SocialSpread> spreadFactory) {
+        this.graph = graph;
+        this.spreadFactory = spreadFactory;
+    }
+
+    public SpreadExperiment setStrategies(SensorStrategy... strategies) {
+        this.strategies = Arrays.asList(strategies);
+        return this;
+    }
+
+    public SpreadExperiment setSensorCounts(int... sensorCounts) {
+        this.sensorCounts = sensorCounts.clone();
+        return this;
+    }
+
+    /**
+     * @param origins number of vertices an outbreak starts from
+     */
+    public SpreadExperiment setOrigins(int origins) {
+        this.origins = origins;
+        return this;
+    }
+
+    /**
+     * @param trials number of outbreaks per strategy and sensor count
+     */
+    public SpreadExperiment setTrials(int trials) {
+        this.trials = trials;
+        return this;
+    }
+
+    /**
+     * @param maxSteps steps after which an undetected spread is stopped
+     */
+    public SpreadExperiment setMaxSteps(int maxSteps) {
+        this.maxSteps = maxSteps;
+        return this;
+    }
+
+    /**
+     * Run all trials of all strategies and sensor counts
+     *
+     * @param seed seed of the whole run
+     * @return one result per strategy and sensor count, strategies first
+     */
+    public List<Result> run(long seed) {
+        if (origins < 1)
+            throw new IllegalStateException("Nothing to spread - not initialized");
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long[] trialSeeds = new long[trials];
+        for (int i = 0; i < trials; i++)
+            trialSeeds[i] = seeds.nextLong();
+
+        // build the snapshot once, before threads start asking for it
+        int numVertices = graph.getSnapshot().getNumVertices();
+        // sensors of deterministic strategies, null for random ones, by strategy then sensor count
+        List<List<Integer>> fixedSensors = new ArrayList<>();
+        for (SensorStrategy strategy : strategies)
+            for (int sensorCount : sensorCounts)
+                fixedSensors.add(strategy.isRandom() ? null : strategy.place(graph, sensorCount, null));
+
+        // a few tasks per thread, each with its own spread running its share of the trials of every
+        // strategy and sensor count; the spread is dropped with the task
+        int tasks = Math.max(1, Math.min(trials, ForkJoinPool.getCommonPoolParallelism() * TASKS_PER_THREAD));
+        Result[][] parts = new Result[tasks][];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            SocialSpread spread = spreadFactory.apply(graph);
+            Result[] part = new Result[fixedSensors.size()];
+            for (int s = 0; s < strategies.size(); s++) {
+                SensorStrategy strategy = strategies.get(s);
+                for (int c = 0; c < sensorCounts.length; c++) {
+                    Result result = new Result(strategy, sensorCounts[c]);
+                    for (int i = (int) ((long) trials * t / tasks); i < (long) trials * (t + 1) / tasks; i++) {
+                        SplittableRandom random = new SplittableRandom(trialSeeds[i]);
+                        List<Integer> outbreak = graph.getRandomVertices(origins, random);
+                        List<Integer> fixed = fixedSensors.get(s * sensorCounts.length + c);
+                        List<Integer> sensors = fixed != null ? fixed : strategy.place(graph, sensorCounts[c], random);
+                        runTrial(spread, outbreak, sensors, random, numVertices, result);
+                    }
+                    part[s * sensorCounts.length + c] = result;
+                }
+            }
+            parts[t] = part;
+        });
+
+        List<Result> results = new ArrayList<>();
+        for (int r = 0; r < fixedSensors.size(); r++) {
+            Result result = parts[0][r];
+            for (int t = 1; t < tasks; t++)
+                result.merge(parts[t][r]);
+            results.add(result);
+        }
+        return results;
+    }
+
+    private void runTrial(SocialSpread spread, List<Integer> outbreak, List<Integer> sensors,
+                          SplittableRandom random, int numVertices, Result result) {
+        spread.reset();
+        if (spread instanceof RandomSocialSpread)
+            ((RandomSocialSpread) spread).setSeed(random.nextLong());
+        outbreak.forEach(spread::setStartingPoint);
+
+        // the spread checks sensors as it triggers vertices and stops at the first one
+        spread.setSensors(sensors);
+        while (spread.getDetectedSensor() == null && spread.getCurrentStepNumber() < maxSteps) {
+            if (!spread.step()) break;
+        }
+        boolean detected = spread.getDetectedSensor() != null;
+
+        result.trials++;
+        if (detected) result.detectionSteps.add(spread.getCurrentStepNumber());
+        result.coverage.add((double) spread.getNumberOfTriggeredVertices() / numVertices);
+    }
+
+    /**
+     * Format results as a comparison table, one line per strategy and sensor count
+     *
+     * @param results results of {@link #run(long)}
+     * @return table with a header line
+     */
+    public static String toTable(List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-20s %8s %10s %12s %10s %10s%n",
+                "Sensors", "Trials", "Detected", "Avg steps", "Max steps", "Coverage"));
+        for (Result result : results) {
+            RunningStatistics steps = result.getDetectionSteps();
+            sb.append(String.format("%-20s %8d %9.1f%% %12.3f %10.0f %9.3f%%%n",
+                    result.getTypeOfSensors(), result.getTrials(), result.getDetectionRate() * 100,
+                    steps.getMean(), steps.getCount() == 0 ? 0 : steps.getMax(), result.getCoverage().getMean() * 100));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Outcome of all trials of one strategy and sensor count
+     */
+    public static class Result {
+        private final SensorStrategy strategy;
+        private final int sensorCount;
+        private long trials;
+        private final RunningStatistics detectionSteps = new RunningStatistics();
+        private final RunningStatistics coverage = new RunningStatistics();
+
+        Result(SensorStrategy strategy, int sensorCount) {
+            this.strategy = strategy;
+            this.sensorCount = sensorCount;
+        }
+
+        void merge(Result other) {
+            trials += other.trials;
+            detectionSteps.merge(other.detectionSteps);
+            coverage.merge(other.coverage);
+        }
+
+        public SensorStrategy getStrategy() {
+            return strategy;
+        }
+
+        public int getSensorCount() {
+            return sensorCount;
+        }
+
+        /**
+         * @return sensor type in the format of {@link SpreadRunner#getTypeOfSensors()}
+         */
+        public String getTypeOfSensors() {
+            return String.format("%s-%s", strategy.getLabel(), sensorCount);
+        }
+
+        public long getTrials() {
+            return trials;
+        }
+
+        /**
+         * @return share of trials in which a sensor was triggered
+         */
+        public double getDetectionRate() {
+            return trials == 0 ? 0 : (double) detectionSteps.getCount() / trials;
+        }
+
+        /**
+         * Step at which a sensor was triggered, over the trials with detection
+         */
+        public RunningStatistics getDetectionSteps() {
+            return detectionSteps;
+        }
+
+        /**
+         * Share of the graph triggered when the trial ended, by detection or because the spread stopped
+         */
+        public RunningStatistics getCoverage() {
+            return coverage;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Result{sensors=%s, trials=%d, detectionRate=%.3f, meanSteps=%.3f, meanCoverage=%.4f}",
+                    getTypeOfSensors(), trials, getDetectionRate(), detectionSteps.getMean(), coverage.getMean());
+        }
+    }
+
+    public static void main(String[] args) {
+        SocialGraph graph = new SocialGraph();
+        GraphLoader.loadGraph(graph, "data/facebook_2000.txt");
+
+        long start = System.nanoTime();
+        List<Result> results = new SpreadExperiment(graph, g -> new IndependentCascadeSpread(g, 0.1))
+                .setSensorCounts(1, 5, 20)
+                .setTrials(2000)
+                .run(42);
+        System.out.print(toTable(results));
+        System.out.println(String.format("Done in %d ms", (System.nanoTime() - start) / 1_000_000));
+    }
+}
@@ -0,0 +1,80 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class SpreadExperimentTest {
+    // none of the 20 trials of this seed picks the sensor as the outbreak origin
+    private static final long SEED_AWAY_FROM_SENSOR = 8;
+
+    @Test
+    public void centralSensorShouldDetectEveryOutbreakWithinOneStep() {
+        SocialGraph graph = new SocialGraph();
+        for (int i = 2; i <= 6; i++) {
+            graph.addEdge(1, i);
+            graph.addEdge(i, 1);
+        }
+        List<SpreadExperiment.Result> results = new SpreadExperiment(graph, AbsoluteSocialSpread::new)
+                .setStrategies(SensorStrategy.CENTRALITY)
+                .setTrials(600)
+                .run(1);
+
+        assertEquals(1, results.size());
+        SpreadExperiment.Result result = results.get(0);
+        assertEquals("Centrality-1", result.getTypeOfSensors());
+        assertEquals(600, result.getTrials());
+        assertEquals(1.0, result.getDetectionRate(), 0);
+        assertEquals(1, result.getDetectionSteps().getMax(), 0);
+        // outbreak starts on the sensor in 1 of 6 trials
+        assertEquals(5.0 / 6, result.getDetectionSteps().getMean(), 0.05);
+    }
+
+    @Test
+    public void undetectedSpreadShouldStopAtMaxSteps() {
+        SocialGraph graph = new SocialGraph();
+        // cycle 1 -> 2 -> ... -> 30 -> 1 and the sensor 0 leading into it, nothing leads to 0
+        for (int v = 1; v <= 30; v++)
+            graph.addEdge(v, v % 30 + 1);
+        graph.addEdge(0, 1);
+        graph.addEdge(0, 16);
+        List<SpreadExperiment.Result> results = new SpreadExperiment(graph, AbsoluteSocialSpread::new)
+                .setStrategies(SensorStrategy.CENTRALITY)
+                .setTrials(20)
+                .setMaxSteps(4)
+                .run(1);
+
+        // with this seed no trial starts on the sensor, so none reaches it, and every one is
+        // stopped with exactly the origin and the 4 vertices after it triggered
+        SpreadExperiment.Result result = results.get(0);
+        assertEquals(20, result.getTrials());
+        assertEquals(0, result.getDetectionRate(), 0);
+        assertEquals(5.0 / 31, result.getCoverage().getMin(), 1e-12);
+        assertEquals(5.0 / 31, result.getCoverage().getMax(), 1e-12);
+    }
+
+    @Test
+    public void sameSeedShouldGiveSameTable() {
+        SocialGraph graph = new SocialGraph();
+        GraphLoader.loadGraph(graph, "data/facebook_1000.txt");
+        SpreadExperiment experiment = new SpreadExperiment(graph, g -> new IndependentCascadeSpread(g, 0.2))
+                .setSensorCounts(1, 10)
+                .setOrigins(2)
+                .setTrials(300);
+
+        List<SpreadExperiment.Result> first = experiment.run(7);
+        List<SpreadExperiment.Result> second = experiment.run(7);
+        assertEquals(SensorStrategy.values().length * 2, first.size());
+        assertEquals(SpreadExperiment.toTable(first), SpreadExperiment.toTable(second));
+        for (SpreadExperiment.Result result : first) {
+            assertEquals(300, result.getTrials());
+            assertTrue(result.getCoverage().getMax() <= 1);
+        }
+    }
+}
@@ -32,6 +32,9 @@ public class SpreadRunner {
     private HashSet<Integer> startingPoints;
     private Integer triggeredSensor;
     private String typeOfSensors;
+    // records every run while tracing is on
+    private SpreadTrace.Recorder recorder;
+    private SpreadTrace trace;
 
     public SpreadRunner(SocialGraph graph, SocialSpread spread) {
         this.graph = graph;
@@ -47,22 +50,48 @@ public class SpreadRunner {
         this.triggeredSensor = null;
         this.startingPoints = new HashSet<>();
         this.typeOfSensors = null;
+        this.trace = null;
         this.spread.reset();
+        this.spread.setSensors(null);
     }
 
     /**
      * Start the spread and precess it until a sensor hit, no more room to spread or spread is completed
      */
     public void run() {
-        do {
-//            System.out.println(String.format("Triggered: %s", this.spread.getLastTriggeredVertices()));
-            for (Integer triggeredVertex : this.spread.getLastTriggeredVertices()) {
-                if (this.sensors.contains(triggeredVertex)) {
-                    this.triggeredSensor = triggeredVertex;
+        try {
+            // the spread checks sensors as it triggers vertices and stops right at the first one
+            this.spread.setSensors(this.sensors);
+            do {
+                if (this.recorder != null)
+                    this.recorder.addStep(this.spread.getLastTriggeredVertices());
+                if (this.spread.getDetectedSensor() != null) {
+                    this.triggeredSensor = this.spread.getDetectedSensor();
                     return;
                 }
-            }
-        } while (this.spread.step());
+            } while (this.spread.step());
+        } finally {
+            if (this.recorder != null)
+                this.trace = this.recorder.build();
+        }
+    }
+
+    /**
+     * Record the steps of every following run into a {@link SpreadTrace}
+     *
+     * @param tracing True to record, False to stop
+     */
+    public void setTracing(boolean tracing) {
+        this.recorder = tracing ? new SpreadTrace.Recorder() : null;
+    }
+
+    /**
+     * Trace of the last run, with tracing on
+     *
+     * @return steps of the run up to the triggered sensor, or null if the run wasn't traced
+     */
+    public SpreadTrace getTrace() {
+        return trace;
     }
 
     /**
@@ -237,6 +266,48 @@ public class SpreadRunner {
         return vertices;
     }
 
+    /**
+     * Sets sensors on the vertices with highest PageRank
+     *
+     * @param sensorCount number of sensors to place
+     * @return List of sensors
+     */
+    public List<Integer> setSensorsPageRankByCount(int sensorCount) {
+        isSensorSet();
+        List<Integer> vertices = this.graph.getTopVerticesByPageRank(sensorCount);
+        this.sensors.addAll(vertices);
+        this.typeOfSensors = String.format("PageRank-%s", sensorCount);
+        return vertices;
+    }
+
+    /**
+     * Sets sensors on the vertices with highest betweenness, the ones on most shortest paths
+     *
+     * @param sensorCount number of sensors to place
+     * @return List of sensors
+     */
+    public List<Integer> setSensorsBetweennessByCount(int sensorCount) {
+        isSensorSet();
+        List<Integer> vertices = this.graph.getTopVerticesByBetweenness(sensorCount);
+        this.sensors.addAll(vertices);
+        this.typeOfSensors = String.format("Betweenness-%s", sensorCount);
+        return vertices;
+    }
+
+    /**
+     * Sets sensors on the vertices with highest core number, the innermost part of the graph
+     *
+     * @param sensorCount number of sensors to place
+     * @return List of sensors
+     */
+    public List<Integer> setSensorsCoreNumberByCount(int sensorCount) {
+        isSensorSet();
+        List<Integer> vertices = this.graph.getTopVerticesByCoreNumber(sensorCount);
+        this.sensors.addAll(vertices);
+        this.typeOfSensors = String.format("Core-%s", sensorCount);
+        return vertices;
+    }
+
     private void isSensorSet() {
         if (getTypeOfSensors() != null) {
             throw new IllegalStateException("Sensors are already set");
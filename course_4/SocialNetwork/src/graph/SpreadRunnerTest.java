@@ -3,6 +3,9 @@ package graph;
 import org.junit.Test;
 import util.GraphLoader;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 import static org.junit.Assert.*;
 
 /**
@@ -87,4 +90,67 @@ public class SpreadRunnerTest {
         fail();
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void bridgeShouldGetBetweennessSensor() {
+        SocialGraph graph = new SocialGraph();
+        // two triangles joined through 4, which 8 points to as well
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(3, 1);
+        graph.addEdge(3, 4);
+        graph.addEdge(4, 5);
+        graph.addEdge(5, 6);
+        graph.addEdge(6, 7);
+        graph.addEdge(7, 5);
+        graph.addEdge(8, 4);
+        SpreadRunner runner = new SpreadRunner(graph, new AbsoluteSocialSpread(graph));
+
+        assertEquals(Arrays.asList(4), runner.setSensorsBetweennessByCount(1));
+        assertEquals("Betweenness-1", runner.getTypeOfSensors());
+        runner.setSpreadPoint(1);
+        runner.run();
+        assertEquals((Integer) 4, runner.getTriggeredSensor());
+    }
+
+    @Test
+    public void tracedRunShouldRecordStepsUntilSensor() {
+        SocialGraph graph = new SocialGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(3, 4);
+        graph.addEdge(2, 5);
+        SpreadRunner runner = new SpreadRunner(graph, new AbsoluteSocialSpread(graph));
+        runner.setTracing(true);
+        runner.setSpreadPoint(1);
+        runner.getSensors().add(5);
+        runner.run();
+
+        SpreadTrace trace = runner.getTrace();
+        assertEquals(Integer.valueOf(5), runner.getTriggeredSensor());
+        assertArrayEquals(new int[]{1, 1, 2}, trace.getStepCounts());
+        assertEquals(2, trace.getStepOf(3));
+        assertEquals(-1, trace.getStepOf(4));
+
+        runner.reset();
+        assertNull(runner.getTrace());
+    }
+
+    @Test
+    public void runShouldStopAtFirstSensorDiscoveredInStep() {
+        SocialGraph graph = new SocialGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(1, 3);
+        graph.addEdge(1, 4);
+        AbsoluteSocialSpread spread = new AbsoluteSocialSpread(graph);
+        SpreadRunner runner = new SpreadRunner(graph, spread);
+        runner.setSpreadPoint(1);
+        runner.getSensors().add(4);
+        runner.getSensors().add(3);
+        runner.run();
+
+        assertEquals(Integer.valueOf(3), runner.getTriggeredSensor());
+        assertEquals(1, spread.getCurrentStepNumber());
+        assertEquals(new HashSet<>(Arrays.asList(2, 3)), spread.getLastTriggeredVertices());
+    }
+}
@@ -0,0 +1,296 @@
+package graph;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Created by Alex Filatau.
+ * Compact log of one spread run: which vertices were triggered at which step, so a run
+ * can be replayed and analysed later without simulating it again.
+ * <p>
+ * Step 0 holds the starting points, step s the vertices triggered by the s-th step of the spread.
+ * Every step is stored as its vertex count followed by its vertices in ascending order,
+ * the first as a zig-zag coded id and the others as gaps from the previous one, all written
+ * as variable-length integers of 7 bits per byte. Neighboring ids then take a byte or two
+ * per event instead of a boxed Integer in a set.
+ * <p>
+ * Traces are built by a {@link Recorder}, and many of them go to one file with
+ * {@link #write(List, Path)}.
+ */
+public class SpreadTrace {
+    private static final int MAGIC = 0x53505452;
+    private static final int VERSION = 1;
+
+    private final byte[] data;
+    private final int[] stepCounts;
+    private final int numEvents;
+
+    // vertices sorted by id with the step each was triggered at, built on first use
+    private int[] sortedVertices;
+    private int[] sortedSteps;
+
+    private SpreadTrace(byte[] data, int[] stepCounts, int numEvents) {
+        this.data = data;
+        this.stepCounts = stepCounts;
+        this.numEvents = numEvents;
+    }
+
+    /**
+     * Visitor of trace events, in step order and by ascending vertex id within a step
+     */
+    public interface EventVisitor {
+        void visit(int step, int vertex);
+    }
+
+    /**
+     * Collects the vertices of every step and encodes them as they come
+     */
+    public static class Recorder {
+        private byte[] data = new byte[64];
+        private int size;
+        private int[] stepCounts = new int[16];
+        private int numSteps;
+        private int numEvents;
+        private int[] buffer = new int[16];
+
+        /**
+         * Record the vertices triggered by the next step, the starting points first
+         *
+         * @param vertices vertices triggered in the step, for example {@link Spread#getLastTriggeredVertices()}
+         * @return this recorder
+         */
+        public Recorder addStep(Collection<Integer> vertices) {
+            int count = 0;
+            if (buffer.length < vertices.size())
+                buffer = new int[vertices.size()];
+            for (int vertex : vertices)
+                buffer[count++] = vertex;
+            Arrays.sort(buffer, 0, count);
+
+            writeVarInt(count);
+            for (int i = 0; i < count; i++)
+                writeVarInt(i == 0 ? (buffer[0] << 1) ^ (buffer[0] >> 31) : buffer[i] - buffer[i - 1]);
+            if (numSteps == stepCounts.length)
+                stepCounts = Arrays.copyOf(stepCounts, numSteps * 2);
+            stepCounts[numSteps++] = count;
+            numEvents += count;
+            return this;
+        }
+
+        private void writeVarInt(int value) {
+            if (size + 5 > data.length)
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + 5));
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        /**
+         * Record a spread from its current state until it stops
+         *
+         * @param spread   spread with starting points set
+         * @param maxSteps steps after which to stop anyway
+         * @return the trace, the recorder is reset for the next run
+         */
+        public SpreadTrace record(Spread spread, int maxSteps) {
+            addStep(spread.getLastTriggeredVertices());
+            while (spread.getCurrentStepNumber() < maxSteps && spread.step())
+                addStep(spread.getLastTriggeredVertices());
+            return build();
+        }
+
+        /**
+         * Finish the trace and reset the recorder for the next run
+         *
+         * @return trace of the steps added so far
+         */
+        public SpreadTrace build() {
+            SpreadTrace trace = new SpreadTrace(Arrays.copyOf(data, size), Arrays.copyOf(stepCounts, numSteps), numEvents);
+            reset();
+            return trace;
+        }
+
+        public void reset() {
+            size = 0;
+            numSteps = 0;
+            numEvents = 0;
+        }
+    }
+
+    /**
+     * Number of steps recorded, including step 0 of the starting points
+     */
+    public int getNumSteps() {
+        return stepCounts.length;
+    }
+
+    /**
+     * Number of vertices triggered over the whole run
+     */
+    public int getNumEvents() {
+        return numEvents;
+    }
+
+    /**
+     * Size of the encoded events
+     */
+    public int getSizeInBytes() {
+        return data.length;
+    }
+
+    /**
+     * Number of vertices triggered in every step
+     *
+     * @return copy of the counts, element s belongs to step s
+     */
+    public int[] getStepCounts() {
+        return stepCounts.clone();
+    }
+
+    /**
+     * Number of vertices triggered up to every step
+     *
+     * @return element s is the number of vertices triggered in steps 0 .. s
+     */
+    public int[] getCumulativeCounts() {
+        int[] cumulative = new int[stepCounts.length];
+        int total = 0;
+        for (int s = 0; s < stepCounts.length; s++)
+            cumulative[s] = total += stepCounts[s];
+        return cumulative;
+    }
+
+    /**
+     * Decode all events in order
+     *
+     * @param visitor action for every event
+     */
+    public void forEachEvent(EventVisitor visitor) {
+        int[] position = {0};
+        for (int step = 0; step < stepCounts.length; step++) {
+            int count = readVarInt(position);
+            int vertex = 0;
+            for (int i = 0; i < count; i++) {
+                int value = readVarInt(position);
+                vertex = i == 0 ? (value >>> 1) ^ -(value & 1) : vertex + value;
+                visitor.visit(step, vertex);
+            }
+        }
+    }
+
+    private int readVarInt(int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    /**
+     * Vertices triggered in a step
+     *
+     * @param step step number, 0 for the starting points
+     * @return vertices in ascending order
+     */
+    public List<Integer> getVerticesAt(int step) {
+        if (step < 0 || step >= stepCounts.length)
+            throw new IndexOutOfBoundsException("Step: " + step + ", Steps: " + stepCounts.length);
+        List<Integer> vertices = new ArrayList<>(stepCounts[step]);
+        forEachEvent((s, vertex) -> {
+            if (s == step) vertices.add(vertex);
+        });
+        return vertices;
+    }
+
+    /**
+     * Step at which a vertex was triggered, its time to be reached from the starting points
+     *
+     * @param vertex vertex id
+     * @return step number, -1 if the vertex was never triggered
+     */
+    public synchronized int getStepOf(int vertex) {
+        if (sortedVertices == null) {
+            long[] events = new long[numEvents];
+            int[] count = {0};
+            // vertex in the high half, so sorting the longs sorts by vertex
+            forEachEvent((step, v) -> events[count[0]++] = ((long) v << 32) | step);
+            Arrays.sort(events);
+            sortedVertices = new int[numEvents];
+            sortedSteps = new int[numEvents];
+            for (int i = 0; i < numEvents; i++) {
+                sortedVertices[i] = (int) (events[i] >> 32);
+                sortedSteps[i] = (int) events[i];
+            }
+        }
+        int index = Arrays.binarySearch(sortedVertices, vertex);
+        return index >= 0 ? sortedSteps[index] : -1;
+    }
+
+    /**
+     * Steps at which all triggered vertices were reached
+     *
+     * @return map of vertex id to step
+     */
+    public HashMap<Integer, Integer> getStepsByVertex() {
+        HashMap<Integer, Integer> steps = new HashMap<>();
+        forEachEvent((step, vertex) -> steps.put(vertex, step));
+        return steps;
+    }
+
+    /**
+     * Write traces to a file, replacing it
+     *
+     * @param traces traces to write, in order
+     * @param file   target file
+     * @throws IOException if the file can't be written
+     */
+    public static void write(List<SpreadTrace> traces, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(traces.size());
+            for (SpreadTrace trace : traces) {
+                out.writeInt(trace.stepCounts.length);
+                for (int count : trace.stepCounts)
+                    out.writeInt(count);
+                out.writeInt(trace.data.length);
+                out.write(trace.data);
+            }
+        }
+    }
+
+    /**
+     * Read traces written by {@link #write(List, Path)}
+     *
+     * @param file file to read
+     * @return traces in the order they were written
+     * @throws IOException if the file can't be read or has a wrong format
+     */
+    public static List<SpreadTrace> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file.toFile())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Not a spread trace file: " + file);
+            int numTraces = in.readInt();
+            List<SpreadTrace> traces = new ArrayList<>(numTraces);
+            for (int t = 0; t < numTraces; t++) {
+                int[] stepCounts = new int[in.readInt()];
+                int numEvents = 0;
+                for (int s = 0; s < stepCounts.length; s++)
+                    numEvents += stepCounts[s] = in.readInt();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                traces.add(new SpreadTrace(data, stepCounts, numEvents));
+            }
+            return traces;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SpreadTrace{steps=%d, events=%d, bytes=%d}", getNumSteps(), numEvents, data.length);
+    }
+}
@@ -0,0 +1,87 @@
+package graph;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class SpreadTraceTest {
+
+    private static SpreadTrace sample() {
+        return new SpreadTrace.Recorder()
+                .addStep(Collections.singleton(7))
+                .addStep(new HashSet<>(Arrays.asList(300, -5, 8, 100000)))
+                .addStep(Collections.emptySet())
+                .addStep(Arrays.asList(Integer.MIN_VALUE, Integer.MAX_VALUE))
+                .build();
+    }
+
+    @Test
+    public void stepsShouldDecodeInOrder() {
+        SpreadTrace trace = sample();
+
+        assertEquals(4, trace.getNumSteps());
+        assertEquals(7, trace.getNumEvents());
+        assertArrayEquals(new int[]{1, 4, 0, 2}, trace.getStepCounts());
+        assertArrayEquals(new int[]{1, 5, 5, 7}, trace.getCumulativeCounts());
+        assertEquals(Arrays.asList(-5, 8, 300, 100000), trace.getVerticesAt(1));
+        assertEquals(Arrays.asList(Integer.MIN_VALUE, Integer.MAX_VALUE), trace.getVerticesAt(3));
+
+        List<String> events = new ArrayList<>();
+        trace.forEachEvent((step, vertex) -> events.add(step + ":" + vertex));
+        assertEquals("[0:7, 1:-5, 1:8, 1:300, 1:100000, 3:-2147483648, 3:2147483647]", events.toString());
+    }
+
+    @Test
+    public void stepOfVertexShouldBeTimeToReach() {
+        SpreadTrace trace = sample();
+
+        assertEquals(0, trace.getStepOf(7));
+        assertEquals(1, trace.getStepOf(-5));
+        assertEquals(3, trace.getStepOf(Integer.MAX_VALUE));
+        assertEquals(-1, trace.getStepOf(9));
+        assertEquals(Integer.valueOf(1), trace.getStepsByVertex().get(100000));
+    }
+
+    @Test
+    public void recorderShouldFollowSpread() {
+        SocialGraph graph = new SocialGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(2, 4);
+        graph.addEdge(4, 5);
+        AbsoluteSocialSpread spread = new AbsoluteSocialSpread(graph);
+        spread.setStartingPoint(1);
+
+        SpreadTrace.Recorder recorder = new SpreadTrace.Recorder();
+        SpreadTrace trace = recorder.record(spread, 2);
+        assertArrayEquals(new int[]{1, 1, 2}, trace.getStepCounts());
+        assertEquals(Arrays.asList(3, 4), trace.getVerticesAt(2));
+
+        // recorder starts over after build
+        assertEquals(1, recorder.addStep(Collections.singleton(1)).build().getNumSteps());
+    }
+
+    @Test
+    public void tracesShouldSurviveFile() throws IOException {
+        Path file = Files.createTempFile("spread", ".trace");
+        try {
+            SpreadTrace.write(Arrays.asList(sample(), new SpreadTrace.Recorder().build()), file);
+            List<SpreadTrace> traces = SpreadTrace.read(file);
+
+            assertEquals(2, traces.size());
+            assertEquals(sample().getStepsByVertex(), traces.get(0).getStepsByVertex());
+            assertArrayEquals(sample().getStepCounts(), traces.get(0).getStepCounts());
+            assertEquals(0, traces.get(1).getNumSteps());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package graph;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class StreamingGraphTest {
+
+    @Test
+    public void removingEdgeShouldSplitComponents() {
+        StreamingGraph graph = new StreamingGraph();
+        graph.apply(Arrays.asList(EdgeEvent.add(1, 2), EdgeEvent.add(2, 3), EdgeEvent.add(3, 1), EdgeEvent.add(4, 1)));
+
+        assertEquals(2, graph.getNumStronglyConnectedComponents());
+        assertEquals(1, graph.getNumWeaklyConnectedComponents());
+        assertTrue(graph.areStronglyConnected(1, 3));
+
+        assertTrue(graph.removeEdge(3, 1));
+        assertFalse(graph.removeEdge(3, 1));
+        assertEquals(4, graph.getNumStronglyConnectedComponents());
+        assertFalse(graph.areStronglyConnected(1, 3));
+
+        graph.removeEdge(4, 1);
+        assertEquals(2, graph.getNumWeaklyConnectedComponents());
+        assertFalse(graph.areWeaklyConnected(4, 1));
+        assertEquals(0, graph.getCentrality(4));
+        assertEquals(Arrays.asList(1, 2), graph.getTopVerticesByCentrality(2));
+    }
+
+    @Test
+    public void weakQueryBetweenBatchAndSccQueryShouldKeepAddedEdges() {
+        StreamingGraph graph = new StreamingGraph();
+        graph.addEdge(0, 1);
+        graph.addEdge(2, 1);
+        assertEquals(3, graph.getNumStronglyConnectedComponents());
+
+        // the removal splits the weak component the added edge was recorded under
+        graph.apply(Arrays.asList(EdgeEvent.add(1, 2), EdgeEvent.remove(0, 1)));
+        assertEquals(2, graph.getNumWeaklyConnectedComponents());
+
+        assertEquals(2, graph.getNumStronglyConnectedComponents());
+        assertTrue(graph.areStronglyConnected(1, 2));
+    }
+
+    @Test
+    public void snapshotShouldNotSeeLaterEvents() {
+        StreamingGraph graph = new StreamingGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(1, 3);
+        StreamingGraph.Snapshot before = graph.getSnapshot();
+
+        graph.apply(Arrays.asList(EdgeEvent.remove(1, 2), EdgeEvent.add(1, 4), EdgeEvent.add(2, 1)));
+
+        assertEquals(2, before.getNumEdges());
+        assertEquals(3, before.getNumVertices());
+        assertEquals(new HashSet<>(Arrays.asList(2, 3)), before.exportGraph().get(1));
+        assertEquals(new HashSet<>(Arrays.asList(3, 4)), graph.getSnapshot().exportGraph().get(1));
+        assertEquals(graph.getSnapshot().exportGraph(), graph.exportGraph());
+    }
+
+    @Test
+    public void egonetShouldMatchCapGraph() {
+        StreamingGraph graph = new StreamingGraph();
+        CapGraph expected = new CapGraph();
+        int[][] edges = {{1, 2}, {2, 1}, {1, 3}, {3, 2}, {3, 4}, {4, 1}};
+        for (int[] edge : edges) {
+            graph.addEdge(edge[0], edge[1]);
+            expected.addEdge(edge[0], edge[1]);
+        }
+
+        assertEquals(expected.getEgonet(1).exportGraph(), graph.getEgonet(1).exportGraph());
+        assertTrue(graph.getEgonet(42).exportGraph().isEmpty());
+    }
+
+    @Test
+    public void randomStreamShouldMatchRecomputation() {
+        Random random = new Random(7);
+        StreamingGraph graph = new StreamingGraph();
+        Set<List<Integer>> edges = new HashSet<>();
+        int n = 60;
+
+        for (int batch = 0; batch < 200; batch++) {
+            List<EdgeEvent> events = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                int from = random.nextInt(n);
+                int to = random.nextInt(n);
+                // removals are rarer, so components grow and split over time
+                if (random.nextInt(3) == 0) {
+                    events.add(EdgeEvent.remove(from, to));
+                    edges.remove(Arrays.asList(from, to));
+                } else {
+                    events.add(EdgeEvent.add(from, to));
+                    edges.add(Arrays.asList(from, to));
+                }
+            }
+            graph.apply(events);
+            // weak components asked for in between rebuild the union-find under pending SCC work
+            if (batch % 3 == 0) graph.getNumWeaklyConnectedComponents();
+            if (batch % 5 != 0) continue;
+
+            CsrGraph.Builder builder = new CsrGraph.Builder();
+            StreamingGraph.Snapshot snapshot = graph.getSnapshot();
+            for (int v = 0; v < snapshot.getNumVertices(); v++)
+                builder.addVertex(snapshot.getVertexId(v));
+            for (List<Integer> edge : edges)
+                builder.addEdge(edge.get(0), edge.get(1));
+            CsrGraph csr = builder.build();
+
+            assertEquals(edges.size(), snapshot.getNumEdges());
+            assertEquals(StronglyConnectedComponents.tarjan(csr).getNumComponents(),
+                    graph.getNumStronglyConnectedComponents());
+            assertEquals(graph.getNumStronglyConnectedComponents(), graph.getSCCs().size());
+            assertEquals(weakComponents(csr), graph.getNumWeaklyConnectedComponents());
+            for (int v = 0; v < csr.getNumVertices(); v++)
+                assertEquals(csr.getOutDegree(v), graph.getCentrality(csr.getVertexId(v)));
+        }
+    }
+
+    private static int weakComponents(CsrGraph graph) {
+        int n = graph.getNumVertices();
+        int[] parent = new int[n];
+        for (int v = 0; v < n; v++)
+            parent[v] = v;
+        for (int v = 0; v < n; v++) {
+            int from = v;
+            graph.forEachOutNeighbor(v, w -> parent[root(parent, from)] = root(parent, w));
+        }
+        int count = 0;
+        for (int v = 0; v < n; v++)
+            if (parent[v] == v) count++;
+        return count;
+    }
+
+    private static int root(int[] parent, int v) {
+        while (parent[v] != v) v = parent[v];
+        return v;
+    }
+}
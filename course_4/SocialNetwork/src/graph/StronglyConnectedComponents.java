@@ -0,0 +1,424 @@
+package graph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created by Alex Filatau.
+ * Strongly connected components of a {@link CsrGraph}, stored as one component id per vertex index.
+ * <p>
+ * Two ways to compute them:
+ * <ul>
+ * <li>{@link #tarjan(CsrGraph)} - Tarjan's algorithm with explicit int stacks, so long chains
+ * can't overflow the call stack</li>
+ * <li>{@link #forwardBackward(CsrGraph, ForkJoinPool)} - trims vertices without in- or out-edges,
+ * then splits the rest with forward and backward reachability from a pivot on a fork/join pool,
+ * finishing small pieces with Tarjan</li>
+ * </ul>
+ * Component ids are 0 .. getNumComponents() - 1, in no particular order.
+ * Members and subgraphs of components are only built when asked for.
+ */
+public class StronglyConnectedComponents {
+
+    // Graphs with fewer vertices are always solved with sequential Tarjan by of()
+    static final int PARALLEL_MIN_VERTICES = 100_000;
+    // Vertex sets smaller than this are not split any further by forward-backward
+    static final int SEQUENTIAL_THRESHOLD = 4096;
+    // Number of random vertices the forward-backward pivot is picked from
+    private static final int PIVOT_SAMPLES = 16;
+
+    private final CsrGraph graph;
+    private final int[] componentOf;
+    private final int numComponents;
+
+    // vertex indices grouped by component, built on first use
+    private int[] memberOffsets;
+    private int[] members;
+
+    private StronglyConnectedComponents(CsrGraph graph, int[] componentOf, int numComponents) {
+        this.graph = graph;
+        this.componentOf = componentOf;
+        this.numComponents = numComponents;
+    }
+
+    /**
+     * Compute components with the algorithm that suits the size of the graph
+     *
+     * @param graph target graph
+     * @return components of the graph
+     */
+    public static StronglyConnectedComponents of(CsrGraph graph) {
+        if (graph.getNumVertices() >= PARALLEL_MIN_VERTICES && ForkJoinPool.getCommonPoolParallelism() > 1)
+            return forwardBackward(graph, ForkJoinPool.commonPool());
+        return tarjan(graph);
+    }
+
+    /**
+     * Compute components sequentially with iterative Tarjan's algorithm
+     *
+     * @param graph target graph
+     * @return components of the graph
+     */
+    public static StronglyConnectedComponents tarjan(CsrGraph graph) {
+        Search search = new Search(graph);
+        int n = graph.getNumVertices();
+        int[] all = new int[n];
+        for (int v = 0; v < n; v++)
+            all[v] = v;
+        search.tarjan(all, 0);
+        return new StronglyConnectedComponents(graph, search.componentOf, search.nextComponent.get());
+    }
+
+    /**
+     * Compute components with the parallel forward-backward algorithm
+     *
+     * @param graph target graph
+     * @param pool  pool to run the search on
+     * @return components of the graph
+     */
+    public static StronglyConnectedComponents forwardBackward(CsrGraph graph, ForkJoinPool pool) {
+        return forwardBackward(graph, pool, SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * Parallel forward-backward with a custom size below which sets are left to Tarjan
+     */
+    static StronglyConnectedComponents forwardBackward(CsrGraph graph, ForkJoinPool pool, int sequentialThreshold) {
+        Search search = new Search(graph);
+        int[] remaining = search.trim();
+        if (remaining.length > 0)
+            pool.invoke(search.new ForwardBackwardTask(remaining, search.nextColor.getAndIncrement(),
+                    sequentialThreshold));
+        return new StronglyConnectedComponents(graph, search.componentOf, search.nextComponent.get());
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int getNumComponents() {
+        return numComponents;
+    }
+
+    /**
+     * Component id of a vertex
+     *
+     * @param index index of the vertex in the graph
+     * @return id of the component the vertex belongs to
+     */
+    public int getComponent(int index) {
+        return componentOf[index];
+    }
+
+    /**
+     * Component ids of all vertices
+     *
+     * @return copy of the array, element i is the component of the vertex with index i
+     */
+    public int[] getComponentIds() {
+        return componentOf.clone();
+    }
+
+    /**
+     * Vertices of a component
+     *
+     * @param component component id
+     * @return sorted indices of the vertices in the component
+     */
+    public int[] getMembers(int component) {
+        groupMembers();
+        return Arrays.copyOfRange(members, memberOffsets[component], memberOffsets[component + 1]);
+    }
+
+    /**
+     * Vertices of a component
+     *
+     * @param component component id
+     * @return ids of the vertices in the component
+     */
+    public int[] getMemberIds(int component) {
+        int[] result = getMembers(component);
+        for (int i = 0; i < result.length; i++)
+            result[i] = graph.getVertexId(result[i]);
+        return result;
+    }
+
+    /**
+     * Components as subgraphs. Each subgraph is created when it is read from the list.
+     *
+     * @return read-only list with one induced subgraph per component
+     */
+    public List<Graph> asGraphs() {
+        return new AbstractList<Graph>() {
+            @Override
+            public Graph get(int component) {
+                if (component < 0 || component >= numComponents)
+                    throw new IndexOutOfBoundsException("Index: " + component + ", Size: " + numComponents);
+                return graph.getInducedSubgraph(getMembers(component));
+            }
+
+            @Override
+            public int size() {
+                return numComponents;
+            }
+        };
+    }
+
+    private synchronized void groupMembers() {
+        if (members != null) return;
+        int[] offsets = new int[numComponents + 1];
+        for (int component : componentOf)
+            offsets[component + 1]++;
+        for (int c = 0; c < numComponents; c++)
+            offsets[c + 1] += offsets[c];
+        int[] grouped = new int[componentOf.length];
+        int[] position = Arrays.copyOf(offsets, numComponents);
+        for (int v = 0; v < componentOf.length; v++)
+            grouped[position[componentOf[v]]++] = v;
+        memberOffsets = offsets;
+        members = grouped;
+    }
+
+    /**
+     * State of one search. Vertex sets being worked on are told apart by a color per vertex;
+     * sets handled by different tasks are disjoint, so the per-vertex arrays are shared
+     * between tasks without locking.
+     */
+    private static class Search {
+        private final CsrGraph graph;
+        private final int[] componentOf;
+        private final int[] color;
+        // Tarjan visit order + 1 and lowest reachable visit order + 1, 0 while unvisited
+        private final int[] order;
+        private final int[] low;
+        // color of the last forward / backward search that reached each vertex
+        private final int[] forward;
+        private final int[] backward;
+        private final AtomicInteger nextComponent = new AtomicInteger();
+        private final AtomicInteger nextColor = new AtomicInteger();
+
+        Search(CsrGraph graph) {
+            int n = graph.getNumVertices();
+            this.graph = graph;
+            componentOf = new int[n];
+            color = new int[n];
+            order = new int[n];
+            low = new int[n];
+            forward = new int[n];
+            backward = new int[n];
+            Arrays.fill(forward, -1);
+            Arrays.fill(backward, -1);
+        }
+
+        /**
+         * Tarjan's algorithm over the vertices of one color, ignoring edges that leave the color
+         *
+         * @param vertices all vertices of the color
+         * @param c        the color
+         */
+        void tarjan(int[] vertices, int c) {
+            int[] outOffsets = graph.outOffsets;
+            int[] outTargets = graph.outTargets;
+            int count = vertices.length;
+            int[] callStack = new int[count];
+            int[] edge = new int[count];
+            int[] componentStack = new int[count];
+            int stackSize = 0;
+            int visits = 0;
+
+            for (int root : vertices) {
+                if (order[root] != 0) continue;
+                int depth = 0;
+                callStack[0] = root;
+                edge[0] = outOffsets[root];
+                order[root] = low[root] = ++visits;
+                componentStack[stackSize++] = root;
+                // componentOf doubles as the on-stack flag: -1 while the vertex waits on the stack
+                componentOf[root] = -1;
+
+                while (depth >= 0) {
+                    int v = callStack[depth];
+                    if (edge[depth] < outOffsets[v + 1]) {
+                        int w = outTargets[edge[depth]++];
+                        if (color[w] != c) continue;
+                        if (order[w] == 0) {
+                            order[w] = low[w] = ++visits;
+                            componentStack[stackSize++] = w;
+                            componentOf[w] = -1;
+                            callStack[++depth] = w;
+                            edge[depth] = outOffsets[w];
+                        } else if (componentOf[w] == -1 && order[w] < low[v]) {
+                            low[v] = order[w];
+                        }
+                        continue;
+                    }
+
+                    if (low[v] == order[v]) {
+                        int component = nextComponent.getAndIncrement();
+                        int w;
+                        do {
+                            w = componentStack[--stackSize];
+                            componentOf[w] = component;
+                        } while (w != v);
+                    }
+                    depth--;
+                    if (depth >= 0 && low[v] < low[callStack[depth]])
+                        low[callStack[depth]] = low[v];
+                }
+            }
+        }
+
+        /**
+         * Repeatedly remove vertices without in-edges or without out-edges, each of them
+         * is a component on its own. Remaining vertices get color 0.
+         *
+         * @return vertices left after trimming
+         */
+        int[] trim() {
+            int n = graph.getNumVertices();
+            int[] inDegree = new int[n];
+            int[] outDegree = new int[n];
+            int[] queue = new int[n];
+            int tail = 0;
+            for (int v = 0; v < n; v++) {
+                inDegree[v] = graph.getInDegree(v);
+                outDegree[v] = graph.getOutDegree(v);
+                if (inDegree[v] == 0 || outDegree[v] == 0) {
+                    color[v] = -1;
+                    queue[tail++] = v;
+                }
+            }
+            for (int head = 0; head < tail; head++) {
+                int v = queue[head];
+                componentOf[v] = nextComponent.getAndIncrement();
+                for (int e = graph.outOffsets[v]; e < graph.outOffsets[v + 1]; e++) {
+                    int w = graph.outTargets[e];
+                    if (color[w] == 0 && --inDegree[w] == 0) {
+                        color[w] = -1;
+                        queue[tail++] = w;
+                    }
+                }
+                for (int e = graph.inOffsets[v]; e < graph.inOffsets[v + 1]; e++) {
+                    int w = graph.inSources[e];
+                    if (color[w] == 0 && --outDegree[w] == 0) {
+                        color[w] = -1;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+
+            int[] remaining = new int[n - tail];
+            int size = 0;
+            for (int v = 0; v < n; v++)
+                if (color[v] == 0)
+                    remaining[size++] = v;
+            return remaining;
+        }
+
+        /**
+         * Mark everything reachable from the pivot within color c
+         *
+         * @return number of vertices reached
+         */
+        private int reach(int pivot, int c, int[] offsets, int[] neighbors, int[] mark, int[] queue) {
+            int tail = 0;
+            mark[pivot] = c;
+            queue[tail++] = pivot;
+            for (int head = 0; head < tail; head++) {
+                int v = queue[head];
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int w = neighbors[e];
+                    if (color[w] == c && mark[w] != c) {
+                        mark[w] = c;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+            return tail;
+        }
+
+        /**
+         * Split a set of one color into the component of a pivot, the vertices only the pivot
+         * reaches, the vertices only reaching the pivot and the rest. No component crosses
+         * these sets, so each of them is solved independently.
+         */
+        class ForwardBackwardTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int[] vertices;
+            private final int c;
+            private final int sequentialThreshold;
+
+            ForwardBackwardTask(int[] vertices, int c, int sequentialThreshold) {
+                this.vertices = vertices;
+                this.c = c;
+                this.sequentialThreshold = sequentialThreshold;
+            }
+
+            @Override
+            protected void compute() {
+                if (vertices.length < sequentialThreshold) {
+                    tarjan(vertices, c);
+                    return;
+                }
+
+                // hubs are likely to sit in the giant component, which then goes away in one step,
+                // while sampling at random keeps splits of long chains of components balanced
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int pivot = vertices[0];
+                long best = -1;
+                for (int i = 0; i < PIVOT_SAMPLES; i++) {
+                    int v = vertices[random.nextInt(vertices.length)];
+                    long score = (long) graph.getInDegree(v) * graph.getOutDegree(v);
+                    if (score > best) {
+                        best = score;
+                        pivot = v;
+                    }
+                }
+
+                int[] queue = new int[vertices.length];
+                int forwardCount = reach(pivot, c, graph.outOffsets, graph.outTargets, forward, queue);
+                int backwardCount = reach(pivot, c, graph.inOffsets, graph.inSources, backward, queue);
+
+                int component = nextComponent.getAndIncrement();
+                int sccSize = 0;
+                for (int v : vertices)
+                    if (forward[v] == c && backward[v] == c)
+                        sccSize++;
+                int[] forwardOnly = new int[forwardCount - sccSize];
+                int[] backwardOnly = new int[backwardCount - sccSize];
+                int[] rest = new int[vertices.length - forwardCount - backwardCount + sccSize];
+                int forwardColor = nextColor.getAndIncrement();
+                int backwardColor = nextColor.getAndIncrement();
+                int restColor = nextColor.getAndIncrement();
+                int f = 0, b = 0, r = 0;
+                for (int v : vertices) {
+                    boolean reached = forward[v] == c;
+                    boolean reaching = backward[v] == c;
+                    if (reached && reaching) {
+                        componentOf[v] = component;
+                        color[v] = -1;
+                    } else if (reached) {
+                        forwardOnly[f++] = v;
+                        color[v] = forwardColor;
+                    } else if (reaching) {
+                        backwardOnly[b++] = v;
+                        color[v] = backwardColor;
+                    } else {
+                        rest[r++] = v;
+                        color[v] = restColor;
+                    }
+                }
+
+                invokeAll(new ForwardBackwardTask(forwardOnly, forwardColor, sequentialThreshold),
+                        new ForwardBackwardTask(backwardOnly, backwardColor, sequentialThreshold),
+                        new ForwardBackwardTask(rest, restColor, sequentialThreshold));
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package graph;
+
+import org.junit.Test;
+import util.GraphLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class StronglyConnectedComponentsTest {
+    private static final int NUM_TESTS = 10;
+
+    @Test
+    public void tarjanShouldMatchGraderAnswers() throws IOException {
+        for (int i = 1; i <= NUM_TESTS; i++)
+            assertEquals("test_" + i, answer(i), components(StronglyConnectedComponents.tarjan(load(i))));
+    }
+
+    @Test
+    public void forwardBackwardShouldMatchGraderAnswers() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int i = 1; i <= NUM_TESTS; i++)
+            assertEquals("test_" + i, answer(i),
+                    components(StronglyConnectedComponents.forwardBackward(load(i), pool, 2)));
+        pool.shutdown();
+    }
+
+    @Test
+    public void longChainShouldNotOverflowStack() {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        int length = 1_000_000;
+        for (int v = 0; v < length; v++)
+            builder.addEdge(v, (v + 1) % length);
+        StronglyConnectedComponents components = StronglyConnectedComponents.tarjan(builder.build());
+
+        assertEquals(1, components.getNumComponents());
+        assertEquals(length, components.getMembers(0).length);
+    }
+
+    @Test
+    public void capGraphSccsShouldMatchGraderAnswers() throws IOException {
+        for (int i = 1; i <= NUM_TESTS; i++) {
+            CapGraph graph = new CapGraph();
+            GraphLoader.loadGraph(graph, "data/scc/test_" + i + ".txt");
+            Set<Set<Integer>> actual = new HashSet<>();
+            graph.getSCCs().forEach(scc -> actual.add(new TreeSet<>(scc.exportGraph().keySet())));
+            assertEquals("test_" + i, answer(i), actual);
+        }
+    }
+
+    private static CsrGraph load(int test) {
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        GraphLoader.loadGraph(builder, "data/scc/test_" + test + ".txt");
+        return builder.build();
+    }
+
+    private static Set<Set<Integer>> components(StronglyConnectedComponents components) {
+        Set<Set<Integer>> result = new HashSet<>();
+        for (int c = 0; c < components.getNumComponents(); c++) {
+            Set<Integer> vertices = new TreeSet<>();
+            for (int vertex : components.getMemberIds(c))
+                vertices.add(vertex);
+            result.add(vertices);
+        }
+        return result;
+    }
+
+    private static Set<Set<Integer>> answer(int test) throws IOException {
+        Set<Set<Integer>> result = new HashSet<>();
+        for (String line : Files.readAllLines(Paths.get("data/scc_answers/scc_" + test + ".txt"))) {
+            if (line.trim().isEmpty()) continue;
+            Set<Integer> vertices = new TreeSet<>();
+            for (String vertex : line.trim().split("\\s+"))
+                vertices.add(Integer.parseInt(vertex));
+            result.add(vertices);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,164 @@
+package util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Supplier;
+
+/**
+ * Created by Alex Filatau.
+ * Small benchmark harness: runs an operation for a number of warm-up iterations, so the JIT
+ * compiles it, then for measured iterations, and reports time and memory allocated per operation.
+ * <p>
+ * Every result of the operation is folded into a field the JVM can't prove unused,
+ * so the work isn't optimised away. Allocation is the change of the bytes allocated by all live
+ * threads (HotSpot's com.sun.management.ThreadMXBean), so work done on fork/join pools is
+ * counted too; NaN where the JVM doesn't track it.
+ */
+public class Benchmark {
+    private int warmupIterations = 5;
+    private int iterations = 10;
+    private int operationsPerIteration = 1;
+
+    // results end up here, read by nobody
+    private static volatile int sink;
+
+    public Benchmark setWarmupIterations(int warmupIterations) {
+        this.warmupIterations = warmupIterations;
+        return this;
+    }
+
+    public Benchmark setIterations(int iterations) {
+        if (iterations < 1)
+            throw new IllegalArgumentException(String.format("Iterations [%s] must be positive", iterations));
+        this.iterations = iterations;
+        return this;
+    }
+
+    /**
+     * @param operationsPerIteration calls of the operation timed together, more for operations
+     *                               too short to be timed one by one
+     */
+    public Benchmark setOperationsPerIteration(int operationsPerIteration) {
+        if (operationsPerIteration < 1)
+            throw new IllegalArgumentException(String.format("Operations [%s] must be positive", operationsPerIteration));
+        this.operationsPerIteration = operationsPerIteration;
+        return this;
+    }
+
+    /**
+     * Measure an operation
+     *
+     * @param name      name to report the result under
+     * @param operation the work, returning something that depends on it
+     * @return time and allocation per operation
+     */
+    public Result run(String name, Supplier<?> operation) {
+        for (int i = 0; i < warmupIterations; i++)
+            iterate(operation);
+
+        RunningStatistics nanos = new RunningStatistics();
+        long allocated = allocatedBytes();
+        long collections = collections();
+        long totalNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long elapsed = iterate(operation);
+            totalNanos += elapsed;
+            nanos.add((double) elapsed / operationsPerIteration);
+        }
+        long operations = (long) iterations * operationsPerIteration;
+        double bytes = allocated < 0 ? Double.NaN : (double) (allocatedBytes() - allocated) / operations;
+        return new Result(name, nanos, bytes, operations, totalNanos, collections() - collections);
+    }
+
+    private long iterate(Supplier<?> operation) {
+        int hash = 0;
+        long start = System.nanoTime();
+        for (int k = 0; k < operationsPerIteration; k++)
+            hash += System.identityHashCode(operation.get());
+        long elapsed = System.nanoTime() - start;
+        sink += hash;
+        return elapsed;
+    }
+
+    /**
+     * Bytes allocated so far by all live threads
+     *
+     * @return the total, -1 if the JVM doesn't count them
+     */
+    static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+        if (!hotspot.isThreadAllocatedMemorySupported() || !hotspot.isThreadAllocatedMemoryEnabled()) return -1;
+        long total = 0;
+        for (long bytes : hotspot.getThreadAllocatedBytes(threads.getAllThreadIds()))
+            if (bytes > 0) total += bytes;
+        return total;
+    }
+
+    private static long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, collector.getCollectionCount());
+        return count;
+    }
+
+    /**
+     * Measurements of one operation
+     */
+    public static class Result {
+        private final String name;
+        private final RunningStatistics nanos;
+        private final double bytesPerOperation;
+        private final long operations;
+        private final long totalNanos;
+        private final long collections;
+
+        Result(String name, RunningStatistics nanos, double bytesPerOperation, long operations, long totalNanos,
+               long collections) {
+            this.name = name;
+            this.nanos = nanos;
+            this.bytesPerOperation = bytesPerOperation;
+            this.operations = operations;
+            this.totalNanos = totalNanos;
+            this.collections = collections;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Time per operation of every measured iteration, in nanoseconds
+         */
+        public RunningStatistics getNanosPerOperation() {
+            return nanos;
+        }
+
+        public double getBytesPerOperation() {
+            return bytesPerOperation;
+        }
+
+        /**
+         * Allocation rate over the measured iterations, in MB per second
+         */
+        public double getAllocationRate() {
+            return totalNanos == 0 ? 0 : bytesPerOperation * operations / (totalNanos / 1e9) / (1 << 20);
+        }
+
+        /**
+         * Garbage collections during the measured iterations
+         */
+        public long getCollections() {
+            return collections;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-50s %12.3f ms/op +- %8.3f  (min %10.3f)  %12.1f KB/op  %8.1f MB/s  %4d GCs",
+                    name, nanos.getMean() / 1e6, nanos.getStandardError() / 1e6, nanos.getMin() / 1e6,
+                    bytesPerOperation / 1024, getAllocationRate(), collections);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class BenchmarkTest {
+
+    @Test
+    public void resultShouldCountOperationsAndAllocation() {
+        int[] calls = {0};
+        Benchmark.Result result = new Benchmark().setWarmupIterations(2).setIterations(3).setOperationsPerIteration(4)
+                .run("allocate", () -> {
+                    calls[0]++;
+                    return new long[1024];
+                });
+
+        assertEquals(20, calls[0]);
+        assertEquals("allocate", result.getName());
+        assertEquals(3, result.getNanosPerOperation().getCount());
+        assertTrue(result.getNanosPerOperation().getMin() > 0);
+        if (Benchmark.allocatedBytes() >= 0)
+            assertTrue(result.toString(), result.getBytesPerOperation() >= 8 * 1024);
+        assertTrue(result.toString().startsWith("allocate"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void iterationsShouldBePositive() {
+        new Benchmark().setIterations(0);
+    }
+}
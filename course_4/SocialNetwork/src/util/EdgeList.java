@@ -0,0 +1,56 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Created by Alex Filatau.
+ * Directed edges kept as two parallel int arrays, edge i going from getFrom()[i] to getTo()[i].
+ * Arrays are shared, not copied, so loaded edges can be handed to a bulk builder as they are.
+ */
+public class EdgeList {
+    private final int[] from;
+    private final int[] to;
+    private final int size;
+
+    /**
+     * @param from start vertices of the edges
+     * @param to   end vertices of the edges
+     * @param size number of edges, the arrays may be longer
+     */
+    public EdgeList(int[] from, int[] to, int size) {
+        if (size > from.length || size > to.length)
+            throw new IllegalArgumentException("Edge arrays are shorter than " + size);
+        this.from = from;
+        this.to = to;
+        this.size = size;
+    }
+
+    public int[] getFrom() {
+        return from;
+    }
+
+    public int[] getTo() {
+        return to;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * All vertices appearing in the edges
+     *
+     * @return sorted array of distinct vertex ids
+     */
+    public int[] getVertices() {
+        int[] vertices = new int[2 * size];
+        System.arraycopy(from, 0, vertices, 0, size);
+        System.arraycopy(to, 0, vertices, size, size);
+        Arrays.sort(vertices);
+        int unique = 0;
+        for (int i = 0; i < vertices.length; i++)
+            if (unique == 0 || vertices[i] != vertices[unique - 1])
+                vertices[unique++] = vertices[i];
+        return Arrays.copyOf(vertices, unique);
+    }
+}
@@ -1,47 +1,263 @@
 /**
  * @author UCSD MOOC development team
- * 
+ *
  * Utility class to add vertices and edges to a graph
  *
  */
 package util;
 
-import java.io.File;
-import java.util.HashSet;
-import java.util.Scanner;
-import java.util.Set;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 public class GraphLoader {
+    /** First int of a binary edges file, "EDGS" in ASCII */
+    static final int EDGES_MAGIC = 0x45444753;
+
+    // Number of text chunks parsed in parallel per core
+    private static final int CHUNKS_PER_CORE = 4;
+    // Smallest text chunk worth handing to another thread
+    private static final int MIN_CHUNK = 1 << 20;
+    // Ints written or mapped at once in binary files, so files may exceed 2 GB
+    private static final int BINARY_CHUNK_INTS = 1 << 24;
+
     /**
      * Loads graph with data from a file.
      * The file should consist of lines with 2 integers each, corresponding
-     * to a "from" vertex and a "to" vertex.
-     */ 
+     * to a "from" vertex and a "to" vertex, or be a binary file written
+     * by {@link #saveEdges(EdgeList, String)}.
+     * Every vertex is added once, when first seen, before its edge.
+     */
     public static void loadGraph(graph.Graph g, String filename) {
-        Set<Integer> seen = new HashSet<Integer>();
-        Scanner sc;
-        try {
-            sc = new Scanner(new File(filename));
-        } catch (Exception e) {
+        EdgeList edges = loadEdges(filename);
+        int[] from = edges.getFrom();
+        int[] to = edges.getTo();
+        // vertices are found by binary search in the sorted ids instead of a set of boxed Integers
+        int[] vertices = edges.getVertices();
+        boolean[] added = new boolean[vertices.length];
+        for (int i = 0; i < edges.size(); i++) {
+            int v1 = Arrays.binarySearch(vertices, from[i]);
+            if (!added[v1]) {
+                g.addVertex(from[i]);
+                added[v1] = true;
+            }
+            int v2 = Arrays.binarySearch(vertices, to[i]);
+            if (!added[v2]) {
+                g.addVertex(to[i]);
+                added[v2] = true;
+            }
+            g.addEdge(from[i], to[i]);
+        }
+    }
+
+    /**
+     * Loads edges from a file into a CsrGraph builder, same format as
+     * {@link #loadGraph(graph.Graph, String)}. All edges are handed
+     * over in one bulk call.
+     */
+    public static void loadGraph(graph.CsrGraph.Builder builder, String filename) {
+        EdgeList edges = loadEdges(filename);
+        builder.addEdges(edges.getFrom(), edges.getTo(), edges.size());
+    }
+
+    /**
+     * Read all edges of a text edge list or a binary edges file.
+     * <p>
+     * Text files are memory-mapped and split into chunks ending at a newline, which
+     * are parsed byte by byte in parallel. Lines not starting with two integers are skipped.
+     * Binary files are recognised by their first int and read in bulk.
+     *
+     * @param filename file to read
+     * @return edges in file order, empty if the file can't be read
+     */
+    public static EdgeList loadEdges(String filename) {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+             FileChannel channel = file.getChannel()) {
+            if (isBinary(channel))
+                return readBinary(channel);
+
+            long[] bounds = findChunkBounds(channel);
+            EdgeList[] chunks = new EdgeList[bounds.length - 1];
+            IOException[] failure = new IOException[1];
+            IntStream.range(0, chunks.length).parallel().forEach(i -> {
+                try {
+                    chunks[i] = parseChunk(channel, bounds[i], bounds[i + 1]);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null)
+                throw failure[0];
+            return concat(chunks);
+        } catch (IOException e) {
             e.printStackTrace();
-            return;
-        }
-        // Iterate over the lines in the file, adding new
-        // vertices as they are found and connecting them with edges.
-        while (sc.hasNextInt()) {
-            int v1 = sc.nextInt();
-            int v2 = sc.nextInt();
-            if (!seen.contains(v1)) {
-                g.addVertex(v1);
-                seen.add(v1);
+            return new EdgeList(new int[0], new int[0], 0);
+        }
+    }
+
+    /**
+     * Write edges in the binary format: the magic int, the number of edges,
+     * then all start vertices followed by all end vertices, big-endian.
+     *
+     * @param edges    edges to write
+     * @param filename file to create or overwrite, by convention ending with .edges
+     * @throws IOException if the file can't be written
+     */
+    public static void saveEdges(EdgeList edges, String filename) throws IOException {
+        int size = edges.size();
+        try (RandomAccessFile file = new RandomAccessFile(filename, "rw");
+             FileChannel channel = file.getChannel()) {
+            file.setLength(0);
+            ByteBuffer buffer = ByteBuffer.allocate(4 * Math.min(BINARY_CHUNK_INTS, Math.max(2, size)));
+            buffer.putInt(EDGES_MAGIC).putInt(size).flip();
+            writeFully(channel, buffer);
+            writeInts(channel, buffer, edges.getFrom(), size);
+            writeInts(channel, buffer, edges.getTo(), size);
+            channel.force(false);
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            int chunk = Math.min(count - done, buffer.capacity() / 4);
+            buffer.clear();
+            buffer.asIntBuffer().put(values, done, chunk);
+            buffer.limit(4 * chunk);
+            writeFully(channel, buffer);
+            done += chunk;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static void readInts(FileChannel channel, long position, int[] values, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            int chunk = Math.min(count - done, BINARY_CHUNK_INTS);
+            channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * done, 4L * chunk).asIntBuffer()
+                    .get(values, done, chunk);
+            done += chunk;
+        }
+    }
+
+    private static boolean isBinary(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        return channel.size() >= 8 && channel.read(header, 0) == 4 && header.getInt(0) == EDGES_MAGIC;
+    }
+
+    private static EdgeList readBinary(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        channel.read(header, 0);
+        int size = header.getInt(4);
+        if (channel.size() < 8 + 8L * size)
+            throw new IOException("Binary edges file is truncated, expected " + size + " edges");
+        int[] from = new int[size];
+        int[] to = new int[size];
+        readInts(channel, 8, from, size);
+        readInts(channel, 8 + 4L * size, to, size);
+        return new EdgeList(from, to, size);
+    }
+
+    // Split a file into about CHUNKS_PER_CORE chunks per core,
+    // none smaller than MIN_CHUNK bytes, each ending just after a newline
+    private static long[] findChunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int numChunks = (int) Math.max(1, Math.min(
+                Runtime.getRuntime().availableProcessors() * CHUNKS_PER_CORE,
+                size / MIN_CHUNK));
+        long[] bounds = new long[numChunks + 1];
+        ByteBuffer probe = ByteBuffer.allocate(256);
+        for (int i = 1; i < numChunks; i++) {
+            long position = Math.max(bounds[i - 1], size * i / numChunks);
+            // advance to the byte after the next newline
+            boolean found = false;
+            while (!found && position < size) {
+                probe.clear();
+                int read = channel.read(probe, position);
+                for (int k = 0; k < read && !found; k++) {
+                    found = probe.get(k) == '\n';
+                    position++;
+                }
             }
-            if (!seen.contains(v2)) {
-                g.addVertex(v2);
-                seen.add(v2);
+            bounds[i] = position;
+        }
+        bounds[numChunks] = size;
+        return bounds;
+    }
+
+    // Parse the first two integers of every line in [start, end) of the file
+    private static EdgeList parseChunk(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int length = buffer.limit();
+        // a line holds at least 4 bytes, "1 2\n"
+        int capacity = length / 4 + 1;
+        int[] from = new int[capacity];
+        int[] to = new int[capacity];
+        int size = 0;
+        int[] values = new int[2];
+        int position = 0;
+        while (position < length) {
+            int found = 0;
+            boolean valid = true;
+            // read up to two integers, stopping at the end of the line
+            while (position < length && buffer.get(position) != '\n') {
+                byte b = buffer.get(position);
+                if (b == ' ' || b == '\t' || b == '\r') {
+                    position++;
+                    continue;
+                }
+                if (found == 2 || !valid) {
+                    position++;
+                    continue;
+                }
+                boolean negative = b == '-';
+                if (negative) position++;
+                int digitsStart = position;
+                int value = 0;
+                while (position < length && (b = buffer.get(position)) >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    position++;
+                }
+                if (position == digitsStart) {
+                    valid = false;
+                    continue;
+                }
+                values[found++] = negative ? -value : value;
             }
-            g.addEdge(v1, v2);
+            position++;
+            if (valid && found == 2) {
+                if (size == from.length) {
+                    from = Arrays.copyOf(from, size * 2);
+                    to = Arrays.copyOf(to, size * 2);
+                }
+                from[size] = values[0];
+                to[size] = values[1];
+                size++;
+            }
+        }
+        return new EdgeList(from, to, size);
+    }
+
+    private static EdgeList concat(EdgeList[] chunks) {
+        if (chunks.length == 1)
+            return chunks[0];
+        int size = 0;
+        for (EdgeList chunk : chunks)
+            size += chunk.size();
+        int[] from = new int[size];
+        int[] to = new int[size];
+        int position = 0;
+        for (EdgeList chunk : chunks) {
+            System.arraycopy(chunk.getFrom(), 0, from, position, chunk.size());
+            System.arraycopy(chunk.getTo(), 0, to, position, chunk.size());
+            position += chunk.size();
         }
-        
-        sc.close();
+        return new EdgeList(from, to, size);
     }
 }
@@ -0,0 +1,56 @@
+package util;
+
+import graph.CapGraph;
+import graph.CsrGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class GraphLoaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldParseEdgesInFileOrder() throws IOException {
+        File file = folder.newFile("edges.txt");
+        Files.write(file.toPath(), "1 2\r\n  30\t-4\n\nnot an edge\n5\n6 7 8\n9 10".getBytes());
+        EdgeList edges = GraphLoader.loadEdges(file.getPath());
+
+        assertEquals(4, edges.size());
+        assertArrayEquals(new int[]{1, 30, 6, 9}, Arrays.copyOf(edges.getFrom(), 4));
+        assertArrayEquals(new int[]{2, -4, 7, 10}, Arrays.copyOf(edges.getTo(), 4));
+    }
+
+    @Test
+    public void binaryEdgesShouldLoadSameGraph() throws IOException {
+        String binary = folder.newFile("facebook_1000.edges").getPath();
+        GraphLoader.saveEdges(GraphLoader.loadEdges("data/facebook_1000.txt"), binary);
+        CapGraph expected = new CapGraph();
+        GraphLoader.loadGraph(expected, "data/facebook_1000.txt");
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        GraphLoader.loadGraph(builder, binary);
+
+        assertEquals(expected.exportGraph(), builder.build().exportGraph());
+    }
+
+    @Test(expected = IOException.class)
+    public void unwritableBinaryFileShouldFail() throws IOException {
+        GraphLoader.saveEdges(GraphLoader.loadEdges("data/facebook_1000.txt"),
+                folder.getRoot().getPath() + "/no_such_folder/facebook_1000.edges");
+    }
+
+    @Test
+    public void missingFileShouldGiveNoEdges() {
+        assertEquals(0, GraphLoader.loadEdges("data/no_such_file.txt").size());
+    }
+}
@@ -0,0 +1,126 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Created by Alex Filatau.
+ * Map from int keys to non-negative int values, typically vertex id to dense index.
+ * Open addressing with linear probing over two int arrays, so there are no boxed
+ * Integers or entry objects per key.
+ */
+public class IntIndexMap {
+    // marks a free slot in the values array
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public IntIndexMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize number of keys that fit without resizing
+     */
+    public IntIndexMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, FREE);
+        mask = capacity - 1;
+    }
+
+    // murmur3 finalizer, spreads sequential ids over the table
+    private static int hash(int key) {
+        int h = key * 0x85ebca6b;
+        h ^= h >>> 16;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @param key key to look up
+     * @return value stored for the key, -1 if there is none
+     */
+    public int get(int key) {
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (values[slot] == FREE) return FREE;
+            if (keys[slot] == key) return values[slot];
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != FREE;
+    }
+
+    /**
+     * Store a value for the key, replacing the previous one
+     *
+     * @param key   key
+     * @param value non-negative value
+     */
+    public void put(int key, int value) {
+        if (value < 0)
+            throw new IllegalArgumentException(String.format("Value [%s] is negative", value));
+        int slot = hash(key) & mask;
+        while (values[slot] != FREE && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        if (values[slot] == FREE) {
+            if (++size > values.length / 2) {
+                resize();
+                put(key, value);
+                return;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Remove the key if present
+     *
+     * @param key key to remove
+     * @return value that was stored for the key, -1 if there was none
+     */
+    public int remove(int key) {
+        int slot = hash(key) & mask;
+        while (values[slot] != FREE && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        int value = values[slot];
+        if (value == FREE) return FREE;
+        size--;
+        // shift later keys of the probe run back, so lookups don't stop at the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != FREE; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            // move the key unless its home lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = FREE;
+        return value;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldValues.length * 2);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++)
+            if (oldValues[i] != FREE)
+                put(oldKeys[i], oldValues[i]);
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,66 @@
+package util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class IntIndexMapTest {
+    @Test
+    public void shouldMatchHashMapThroughResizes() {
+        IntIndexMap map = new IntIndexMap(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(-5000, 5000);
+            map.put(key, i);
+            expected.put(key, i);
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = -5000; key < 5000; key++)
+            assertEquals(expected.getOrDefault(key, -1).intValue(), map.get(key));
+    }
+
+    @Test
+    public void removeShouldKeepOtherKeysReachable() {
+        IntIndexMap map = new IntIndexMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertEquals(expected.getOrDefault(key, -1).intValue(), map.remove(key));
+                expected.remove(key);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 500; key++)
+            assertEquals(expected.getOrDefault(key, -1).intValue(), map.get(key));
+    }
+
+    @Test
+    public void missingKeyShouldGiveMinusOne() {
+        IntIndexMap map = new IntIndexMap();
+        map.put(0, 0);
+
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(1));
+        assertEquals(-1, map.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeValue() {
+        new IntIndexMap().put(1, -1);
+    }
+}
@@ -0,0 +1,78 @@
+package util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Created by Alex Filatau.
+ * Synthetic social graphs of any size, for scaling benchmarks past the bundled data files.
+ * <p>
+ * Vertices 0 .. n-1 arrive one by one, each following edgesPerVertex earlier vertices picked by
+ * preferential attachment (Barabasi and Albert): an endpoint of a random earlier edge, so
+ * popular vertices get more popular and degrees follow a power law with exponent near 3.
+ * A share of picks is uniform instead, so new vertices get followers too. Every edge is
+ * followed back with the given probability, as friendships in social graphs mostly are.
+ * <p>
+ * The same seed always gives the same edges. Repeated edges may appear, graphs ignore them.
+ */
+public class PowerLawGenerator {
+    public static final double DEFAULT_RECIPROCITY = 0.5;
+    // Share of targets picked uniformly instead of by degree
+    static final double UNIFORM_SHARE = 0.1;
+
+    /**
+     * Generate a graph with the default reciprocity
+     */
+    public static EdgeList generate(int numVertices, int edgesPerVertex, long seed) {
+        return generate(numVertices, edgesPerVertex, DEFAULT_RECIPROCITY, seed);
+    }
+
+    /**
+     * Generate a graph
+     *
+     * @param numVertices    number of vertices
+     * @param edgesPerVertex out-edges every vertex gets when it arrives (fewer for the first ones)
+     * @param reciprocity    probability of an edge having the opposite edge too
+     * @param seed           seed of the generator
+     * @return edges in the order they were made
+     */
+    public static EdgeList generate(int numVertices, int edgesPerVertex, double reciprocity, long seed) {
+        if (numVertices < 0 || edgesPerVertex < 0)
+            throw new IllegalArgumentException(String.format("Graph size [%s, %s] can't be negative", numVertices, edgesPerVertex));
+        if (!(reciprocity >= 0 && reciprocity <= 1))
+            throw new IllegalArgumentException(String.format("Reciprocity [%s] is not between 0 and 1", reciprocity));
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, (long) numVertices * edgesPerVertex * 2);
+        int[] from = new int[Math.max(16, capacity)];
+        int[] to = new int[from.length];
+        int size = 0;
+        // both endpoints of every edge, picking one is picking a vertex by degree
+        int[] endpoints = new int[from.length];
+        int numEndpoints = 0;
+
+        for (int v = 1; v < numVertices; v++) {
+            int count = Math.min(edgesPerVertex, v);
+            for (int k = 0; k < count; k++) {
+                int target = numEndpoints == 0 || random.nextDouble() < UNIFORM_SHARE
+                        ? random.nextInt(v) : endpoints[random.nextInt(numEndpoints)];
+                boolean reciprocal = random.nextDouble() < reciprocity;
+                if (numEndpoints + 2 > from.length) {
+                    int length = (int) Math.min(Integer.MAX_VALUE - 8, from.length * 2L);
+                    from = Arrays.copyOf(from, length);
+                    to = Arrays.copyOf(to, length);
+                    endpoints = Arrays.copyOf(endpoints, length);
+                }
+                from[size] = v;
+                to[size++] = target;
+                if (reciprocal) {
+                    from[size] = target;
+                    to[size++] = v;
+                }
+                endpoints[numEndpoints++] = v;
+                endpoints[numEndpoints++] = target;
+            }
+        }
+        return new EdgeList(from, to, size);
+    }
+}
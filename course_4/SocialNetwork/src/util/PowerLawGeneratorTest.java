@@ -0,0 +1,50 @@
+package util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class PowerLawGeneratorTest {
+
+    @Test
+    public void sameSeedShouldGiveSameEdges() {
+        EdgeList a = PowerLawGenerator.generate(1000, 3, 5);
+        EdgeList b = PowerLawGenerator.generate(1000, 3, 5);
+
+        assertEquals(a.size(), b.size());
+        assertArrayEquals(Arrays.copyOf(a.getFrom(), a.size()), Arrays.copyOf(b.getFrom(), b.size()));
+        assertArrayEquals(Arrays.copyOf(a.getTo(), a.size()), Arrays.copyOf(b.getTo(), b.size()));
+        assertEquals(1000, a.getVertices().length);
+    }
+
+    @Test
+    public void reciprocityShouldControlEdgeCount() {
+        // vertex 0 follows nobody, 1 and 2 follow 1 and 2 vertices, the other 97 follow 3 each
+        assertEquals(1 + 2 + 97 * 3, PowerLawGenerator.generate(100, 3, 0, 1).size());
+        assertEquals(2 * (1 + 2 + 97 * 3), PowerLawGenerator.generate(100, 3, 1, 1).size());
+    }
+
+    @Test
+    public void degreesShouldHaveHeavyTail() {
+        int n = 20000;
+        EdgeList edges = PowerLawGenerator.generate(n, 4, 0, 2);
+        int[] inDegree = new int[n];
+        for (int i = 0; i < edges.size(); i++)
+            inDegree[edges.getTo()[i]]++;
+        Arrays.sort(inDegree);
+
+        // average in-degree is 4, hubs get hundreds of times that
+        assertTrue(inDegree[n - 1] > 100 * 4);
+        assertTrue(inDegree[n / 2] <= 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reciprocityShouldBeProbability() {
+        PowerLawGenerator.generate(10, 2, 1.5, 1);
+    }
+}
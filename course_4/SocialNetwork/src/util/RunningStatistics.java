@@ -0,0 +1,104 @@
+package util;
+
+/**
+ * Created by Alex Filatau.
+ * Count, mean, variance and range of a stream of values, kept in constant memory
+ * with Welford's update. Statistics collected on separate threads are combined
+ * with {@link #merge(RunningStatistics)} (Chan et al.), so the class works as a
+ * mutable reduction in parallel streams.
+ */
+public class RunningStatistics {
+    private long count;
+    private double mean;
+    // sum of squared differences from the mean
+    private double squares;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Add a value
+     *
+     * @param value next value of the stream
+     */
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squares += delta * (value - mean);
+        if (count == 1 || value < min) min = value;
+        if (count == 1 || value > max) max = value;
+    }
+
+    /**
+     * Add all values seen by other statistics, as if they were added here
+     *
+     * @param other statistics to take values from, left unchanged
+     */
+    public void merge(RunningStatistics other) {
+        if (other.count == 0) return;
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            squares = other.squares;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        squares += other.squares + delta * delta * count * other.count / total;
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return mean of the values, 0 if there are none
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return sample variance, 0 for less than two values
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : squares / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Standard error of the mean, shrinks with the square root of the count
+     */
+    public double getStandardError() {
+        return count == 0 ? 0 : Math.sqrt(getVariance() / count);
+    }
+
+    /**
+     * @return smallest value, NaN if there are none
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return largest value, NaN if there are none
+     */
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RunningStatistics{count=%d, mean=%.4f, sd=%.4f, min=%s, max=%s}",
+                count, mean, getStandardDeviation(), min, max);
+    }
+}
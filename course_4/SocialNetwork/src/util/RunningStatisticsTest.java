@@ -0,0 +1,57 @@
+package util;
+
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Alex Filatau.
+ */
+public class RunningStatisticsTest {
+    @Test
+    public void shouldMatchTwoPassStatistics() {
+        double[] values = {4, 7, 13, 16, -2, 0.5};
+        RunningStatistics statistics = new RunningStatistics();
+        for (double value : values)
+            statistics.add(value);
+
+        double mean = 0;
+        for (double value : values)
+            mean += value / values.length;
+        double squares = 0;
+        for (double value : values)
+            squares += (value - mean) * (value - mean);
+
+        assertEquals(6, statistics.getCount());
+        assertEquals(mean, statistics.getMean(), 1e-12);
+        assertEquals(squares / 5, statistics.getVariance(), 1e-12);
+        assertEquals(-2, statistics.getMin(), 0);
+        assertEquals(16, statistics.getMax(), 0);
+    }
+
+    @Test
+    public void mergedStatisticsShouldEqualSequentialOnes() {
+        RunningStatistics sequential = new RunningStatistics();
+        IntStream.range(0, 1000).forEach(i -> sequential.add(Math.sin(i) * 1e6 + 1e9));
+        RunningStatistics parallel = IntStream.range(0, 1000).parallel().collect(RunningStatistics::new,
+                (s, i) -> s.add(Math.sin(i) * 1e6 + 1e9), RunningStatistics::merge);
+
+        assertEquals(sequential.getCount(), parallel.getCount());
+        assertEquals(sequential.getMean(), parallel.getMean(), 1e-3);
+        assertEquals(sequential.getVariance(), parallel.getVariance(), sequential.getVariance() * 1e-9);
+        assertEquals(sequential.getMin(), parallel.getMin(), 0);
+        assertEquals(sequential.getMax(), parallel.getMax(), 0);
+    }
+
+    @Test
+    public void emptyStatisticsShouldHaveNoRange() {
+        RunningStatistics statistics = new RunningStatistics();
+        statistics.merge(new RunningStatistics());
+
+        assertEquals(0, statistics.getCount());
+        assertEquals(0, statistics.getVariance(), 0);
+        assertTrue(Double.isNaN(statistics.getMin()));
+    }
+}